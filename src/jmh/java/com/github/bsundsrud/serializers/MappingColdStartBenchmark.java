@@ -0,0 +1,200 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.*;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Startup cost of resolving the mappings of {@link #CLASSES} generated serializer classes loaded from a jar, in a fresh
+ * JVM: scanning each one (<code>SCAN</code>), loading its {@link MappingIndexFormat} entry from the jar
+ * (<code>INDEX</code>), and building every serializer through a {@link SerializerRegistry}, which scans and then creates
+ * the processors (<code>BUILD</code>).  Loading the classes is part of every mode.
+ *
+ * The jar is built by a separate JVM (see {@link #main(String[])}), so compiling and indexing the classes does not warm
+ * up the JVM that is measured.  Each fork measures a single run.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+@State(Scope.Benchmark)
+public class MappingColdStartBenchmark {
+    public static final int CLASSES = 300;
+    private static final String PACKAGE = "generated";
+
+    @Param({"SCAN", "INDEX", "BUILD"})
+    public String mode;
+
+    private File jar;
+    private URLClassLoader loader;
+
+    @Setup
+    public void setup() throws Exception {
+        jar = File.createTempFile("mapping-cold-start", ".jar");
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                MappingColdStartBenchmark.class.getName(), jar.getPath()).inheritIO().start();
+        if (builder.waitFor() != 0) {
+            throw new IllegalStateException("Could not build " + jar);
+        }
+        loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loader.close();
+        if (!jar.delete()) {
+            throw new IOException("Could not delete " + jar);
+        }
+    }
+
+    @Benchmark
+    public int resolve() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        int mappings = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            Class<?> serializer = Class.forName(PACKAGE + ".Dto" + i, true, loader);
+            Class<?> source = serializer.getAnnotation(SerializedFrom.class).value();
+            if ("SCAN".equals(mode)) {
+                mappings += AnnotationSerializer.scan(source, serializer).size();
+            } else if ("INDEX".equals(mode)) {
+                List<FieldMapping> indexed = MappingIndexFormat.load(loader, serializer, source);
+                if (indexed == null) {
+                    throw new IllegalStateException("No index entry for " + serializer.getName());
+                }
+                mappings += indexed.size();
+            } else {
+                mappings += registry.serializerFor(serializer).projection().fieldNames().length;
+            }
+        }
+        return mappings;
+    }
+
+    /**
+     * Compile the generated serializer and source classes, index them, and write both to a jar
+     *
+     * @param args path of the jar to write
+     * @throws Exception if the classes cannot be compiled or indexed
+     */
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("mapping-cold-start");
+        File sources = new File(dir.toFile(), "src");
+        File classes = new File(dir.toFile(), "classes");
+        List<String> options = new ArrayList<String>();
+        Collections.addAll(options, "-proc:none", "-nowarn", "-d", classes.getPath(), "-cp", System.getProperty("java.class.path"));
+        List<String> names = new ArrayList<String>();
+        write(sources, "Leaf", "public class Leaf {\n"
+                + "    public String getCode() { return \"c\"; }\n"
+                + "    public int getRank() { return 1; }\n"
+                + "}\n");
+        write(sources, "LeafDto", "@SerializedFrom(Leaf.class)\n"
+                + "public class LeafDto {\n"
+                + "    public String code;\n"
+                + "    public int rank;\n"
+                + "}\n");
+        names.add("Leaf");
+        names.add("LeafDto");
+        for (int i = 0; i < CLASSES; i++) {
+            write(sources, "Dto" + i + "Source", "public class Dto" + i + "Source {\n"
+                    + "    public int getId() { return " + i + "; }\n"
+                    + "    public String getName() { return \"name\"; }\n"
+                    + "    public long getCreated() { return 0L; }\n"
+                    + "    public double getAmount() { return 1.5; }\n"
+                    + "    public Boolean getActive() { return true; }\n"
+                    + "    public List<String> getTags() { return Collections.emptyList(); }\n"
+                    + "    public String getCode() { return \"code\"; }\n"
+                    + "    public Integer getCount() { return 3; }\n"
+                    + "    public String getRef() { return \"ref\"; }\n"
+                    + "    public Leaf getLeaf() { return new Leaf(); }\n"
+                    + "}\n");
+            write(sources, "Dto" + i, "@SerializedFrom(Dto" + i + "Source.class)\n"
+                    + "public class Dto" + i + " {\n"
+                    + "    public int id;\n"
+                    + "    public String name;\n"
+                    + "    public double amount;\n"
+                    + "    public Boolean active;\n"
+                    + "    public List<String> tags;\n"
+                    + "    @FromField(\"ref\")\n"
+                    + "    public String reference;\n"
+                    + "    @WithSerializer\n"
+                    + "    public LeafDto leaf;\n"
+                    + "    private long created;\n"
+                    + "    private String code;\n"
+                    + "    private Integer count;\n"
+                    + "    public void setCreated(long created) { this.created = created; }\n"
+                    + "    public void setCode(String code) { this.code = code; }\n"
+                    + "    public void setCount(Integer count) { this.count = count; }\n"
+                    + "    @Synthesized(target = \"label\", from = {\"id\", \"name\"})\n"
+                    + "    public String label(int id, String name) { return name + id; }\n"
+                    + "    public String label;\n"
+                    + "}\n");
+            names.add("Dto" + i + "Source");
+            names.add("Dto" + i);
+        }
+        for (String name : names) {
+            options.add(new File(sources, PACKAGE + File.separator + name + ".java").getPath());
+        }
+        if (!classes.mkdirs()) {
+            throw new IOException("Could not create " + classes);
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null || compiler.run(null, null, null, options.toArray(new String[options.size()])) != 0) {
+            throw new IllegalStateException("Could not compile the generated classes");
+        }
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, MappingColdStartBenchmark.class.getClassLoader());
+        List<Class<?>> serializers = new ArrayList<Class<?>>();
+        for (int i = 0; i < CLASSES; i++) {
+            serializers.add(Class.forName(PACKAGE + ".Dto" + i, false, loader));
+        }
+        MappingIndexFormat.write(classes, serializers);
+        loader.close();
+
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(args[0]));
+        try {
+            Path root = classes.toPath();
+            for (Path file : (Iterable<Path>) Files.walk(root).filter(Files::isRegularFile).sorted()::iterator) {
+                out.putNextEntry(new JarEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        for (Path file : (Iterable<Path>) Files.walk(dir).sorted(Collections.reverseOrder())::iterator) {
+            Files.delete(file);
+        }
+    }
+
+    private static void write(File sources, String name, String body) throws IOException {
+        File file = new File(sources, PACKAGE + File.separator + name + ".java");
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Could not create " + file.getParentFile());
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        try {
+            out.write("package " + PACKAGE + ";\n\n"
+                    + "import com.github.bsundsrud.serializers.annotations.*;\n"
+                    + "import java.util.Collections;\n"
+                    + "import java.util.List;\n\n"
+                    + body);
+        } finally {
+            out.close();
+        }
+    }
+}
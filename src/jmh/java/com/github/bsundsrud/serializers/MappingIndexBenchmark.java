@@ -0,0 +1,69 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to resolve the mappings of one serializer class with a warm JVM: scanning it with reflection, as
+ * {@link AnnotationSerializer} does, against loading its entry from a {@link MappingIndexFormat} index on the classpath.
+ * {@link MappingColdStartBenchmark} compares the two at startup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingIndexBenchmark {
+
+    @Param({"Flat", "Nested", "Synthetic"})
+    public String serializer;
+
+    private Class<?> serializerClass;
+    private Class<?> sourceClass;
+    private File indexDir;
+    private URLClassLoader resources;
+
+    @Setup
+    public void setup() throws Exception {
+        serializerClass = Class.forName(Fixtures.class.getName() + "$" + serializer);
+        sourceClass = serializerClass.getAnnotation(SerializedFrom.class).value();
+        indexDir = Files.createTempDirectory("mapping-index").toFile();
+        MappingIndexFormat.write(indexDir, Collections.<Class<?>>singletonList(serializerClass));
+        // entries are looked up through the whole classpath first, as they would be from a jar on it
+        resources = new URLClassLoader(new URL[]{indexDir.toURI().toURL()}, getClass().getClassLoader());
+        if (MappingIndexFormat.load(resources, serializerClass, sourceClass) == null) {
+            throw new IllegalStateException("No index entry for " + serializerClass.getName());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        resources.close();
+        for (File file : Files.walk(indexDir.toPath()).map(p -> p.toFile()).sorted(Collections.reverseOrder()).toArray(File[]::new)) {
+            if (!file.delete()) {
+                throw new IOException("Could not delete " + file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<FieldMapping> scan() throws Exception {
+        return AnnotationSerializer.scan(sourceClass, serializerClass);
+    }
+
+    @Benchmark
+    public List<FieldMapping> index() throws Exception {
+        return MappingIndexFormat.load(resources, serializerClass, sourceClass);
+    }
+}
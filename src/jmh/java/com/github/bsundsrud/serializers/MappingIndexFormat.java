@@ -0,0 +1,226 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.github.bsundsrud.serializers.util.SerializerUtils;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The build-time mapping index that was tried and dropped in favor of scanning, kept here so
+ * {@link MappingIndexBenchmark} and {@link MappingColdStartBenchmark} can compare the two.
+ *
+ * An entry lists the resolved mappings of one serializer class (source getter, target setter or field, kind, nested
+ * serializer) and a CRC-32 of the class files of the serializer and its source class hierarchy.  Loading an entry checks
+ * the checksum and resolves every member by name, which is what a runtime lookup has to do to be safe against stale
+ * entries.
+ */
+final class MappingIndexFormat {
+    /** Classpath directory of the entries, named after the binary name of their serializer class */
+    static final String LOCATION = "META-INF/annotation-serializer/mappings/";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String HEADER = "# annotation-serializer mappings 1";
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> type : Arrays.<Class<?>>asList(boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class)) {
+            PRIMITIVES.put(type.getName(), type);
+        }
+    }
+
+    private MappingIndexFormat() {
+    }
+
+    /**
+     * Write the entry of each serializer class below {@link #LOCATION} of a class output directory
+     */
+    static void write(File outputDir, List<Class<?>> serializers) throws SerializerException, IOException {
+        File dir = new File(outputDir, LOCATION);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        for (Class<?> serializer : serializers) {
+            Writer out = new OutputStreamWriter(new FileOutputStream(new File(dir, serializer.getName())), UTF8);
+            try {
+                write(serializer, out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    static void write(Class<?> serializer, Writer out) throws SerializerException, IOException {
+        Class<?> source = serializer.getAnnotation(SerializedFrom.class).value();
+        Long checksum = checksum(serializer, source);
+        if (checksum == null) {
+            throw new SerializerException("Class files of '" + serializer.getName() + "' cannot be read");
+        }
+        out.write(HEADER + "\n");
+        out.write("checksum\t" + Long.toHexString(checksum) + "\n");
+        for (FieldMapping m : AnnotationSerializer.scan(source, serializer)) {
+            switch (m.kind) {
+                case VALUE:
+                    out.write("value\t" + m.targetField + "\t" + m.getter.getName() + "\t" + write(m) + "\n");
+                    break;
+                case CHAINED:
+                    out.write("chained\t" + m.targetField + "\t" + m.getter.getName() + "\t" + write(m) + "\t"
+                            + m.nested.getName() + "\t" + join(Arrays.asList(m.nestedFields)) + "\n");
+                    break;
+                case SYNTHESIZED:
+                    List<String> parameters = new ArrayList<String>();
+                    for (Class<?> type : m.combinator.getParameterTypes()) {
+                        parameters.add(type.getName());
+                    }
+                    List<String> inputs = new ArrayList<String>();
+                    for (Method getter : m.inputs) {
+                        inputs.add(getter.getName());
+                    }
+                    out.write("synthesized\t" + m.targetField + "\t" + m.combinator.getName() + "\t" + join(parameters)
+                            + "\t" + join(inputs) + "\t" + write(m) + "\n");
+                    break;
+            }
+        }
+    }
+
+    private static String write(FieldMapping m) {
+        if (m.setter != null) {
+            return "setter:" + m.setter.getName() + ":" + m.setter.getParameterTypes()[0].getName();
+        }
+        return m.field != null ? "field:" + m.field.getName() : "-";
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            sb.append(sb.length() == 0 ? "" : ",").append(value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Load the entry of a serializer class
+     *
+     * @param resources class loader to find the entry with
+     * @return the mappings, or null if there is no entry, it is out of date, or it names members that no longer exist
+     */
+    static List<FieldMapping> load(ClassLoader resources, Class<?> serializer, Class<?> source) throws IOException {
+        InputStream in = resources.getResourceAsStream(LOCATION + serializer.getName());
+        if (in == null) {
+            return null;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+        try {
+            return read(serializer, source, reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static List<FieldMapping> read(Class<?> serializer, Class<?> source, BufferedReader in) throws IOException {
+        String header = in.readLine();
+        String checksumLine = in.readLine();
+        Long checksum = checksum(serializer, source);
+        if (!HEADER.equals(header) || checksumLine == null || checksum == null
+                || !checksumLine.equals("checksum\t" + Long.toHexString(checksum))) {
+            return null;
+        }
+        List<FieldMapping> mappings = new ArrayList<FieldMapping>();
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                if ("value".equals(parts[0])) {
+                    Method getter = SerializerUtils.findGetter(source, parts[2]);
+                    mappings.add(FieldMapping.value(parts[1], getter, setter(serializer, parts[3]), field(serializer, parts[3])));
+                } else if ("chained".equals(parts[0])) {
+                    Method getter = SerializerUtils.findGetter(source, parts[2]);
+                    mappings.add(FieldMapping.chained(parts[1], getter, setter(serializer, parts[3]), field(serializer, parts[3]),
+                            type(serializer, parts[4]), split(parts[5]).toArray(new String[0])));
+                } else if ("synthesized".equals(parts[0])) {
+                    List<String> parameters = split(parts[3]);
+                    Class<?>[] types = new Class<?>[parameters.size()];
+                    for (int i = 0; i < types.length; i++) {
+                        types[i] = type(serializer, parameters.get(i));
+                    }
+                    Method combinator = serializer.getDeclaredMethod(parts[2], types);
+                    List<Method> inputs = new ArrayList<Method>();
+                    for (String getter : split(parts[4])) {
+                        inputs.add(SerializerUtils.findGetter(source, getter));
+                    }
+                    mappings.add(FieldMapping.synthesized(parts[1], combinator, inputs, setter(serializer, parts[5]),
+                            SerializerUtils.fieldForName(serializer, parts[1])));
+                } else {
+                    throw new IOException("Unknown mapping '" + line + "'");
+                }
+            }
+        } catch (SerializerException | ReflectiveOperationException | LinkageError | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+        return mappings;
+    }
+
+    private static Method setter(Class<?> serializer, String write) throws ReflectiveOperationException {
+        if (!write.startsWith("setter:")) {
+            return null;
+        }
+        String[] parts = write.split(":");
+        return serializer.getDeclaredMethod(parts[1], type(serializer, parts[2]));
+    }
+
+    private static Field field(Class<?> serializer, String write) throws ReflectiveOperationException {
+        return write.startsWith("field:") ? serializer.getDeclaredField(write.substring("field:".length())) : null;
+    }
+
+    private static Class<?> type(Class<?> serializer, String name) throws ClassNotFoundException {
+        Class<?> primitive = PRIMITIVES.get(name);
+        return primitive != null ? primitive : Class.forName(name, false, serializer.getClassLoader());
+    }
+
+    private static List<String> split(String values) {
+        return values.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(values.split(","));
+    }
+
+    /**
+     * @return CRC-32 of the class files of the serializer and of its source class hierarchy, or null if one cannot be read
+     */
+    private static Long checksum(Class<?> serializer, Class<?> source) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        classes.add(serializer);
+        for (Class<?> cls = source; cls != null && cls.getClassLoader() != null; cls = cls.getSuperclass()) {
+            classes.add(cls);
+        }
+        for (Class<?> cls : classes) {
+            InputStream in = cls.getClassLoader().getResourceAsStream(cls.getName().replace('.', '/') + ".class");
+            if (in == null) {
+                return null;
+            }
+            try {
+                try {
+                    int n;
+                    while ((n = in.read(buffer)) > 0) {
+                        crc.update(buffer, 0, n);
+                    }
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return crc.getValue();
+    }
+}
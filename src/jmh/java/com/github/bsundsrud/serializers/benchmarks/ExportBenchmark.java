@@ -0,0 +1,139 @@
+package com.github.bsundsrud.serializers.benchmarks;
+
+import com.github.bsundsrud.serializers.AnnotationSerializer;
+import com.github.bsundsrud.serializers.BinaryExporter;
+import com.github.bsundsrud.serializers.FieldProjection;
+import com.github.bsundsrud.serializers.benchmarks.Fixtures.Nested;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of exporting {@link #RECORDS} records to a file: the JSON text of <code>serializeToMap</code> through a
+ * buffered writer, against {@link BinaryExporter} writing to a {@link FileChannel} and to mapped regions of the file.
+ * Scores are records per second.
+ *
+ * Each output runs in its own fork, which prints its peak heap use and peak resident set size (Linux only) when it
+ * ends.  Sources are created as they are exported, so neither includes a list of the records.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+    public static final int RECORDS = 100000;
+
+    @Param({"JSON_VIA_MAP", "BINARY_CHANNEL", "BINARY_MAPPED"})
+    public String output;
+
+    private final Gson gson = new Gson();
+    private AnnotationSerializer<Nested> nested;
+    private FieldProjection<Nested> projection;
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        nested = AnnotationSerializer.serializerForClass(Nested.class);
+        projection = nested.projection();
+        file = File.createTempFile("export-benchmark", ".out");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.println();
+        System.out.println(output + ": " + file.length() + " bytes per export, peak heap " + (peakHeap >> 20)
+                + " MB, peak RSS " + peakRss());
+        if (!file.delete()) {
+            throw new IOException("Could not delete " + file);
+        }
+    }
+
+    private static String peakRss() throws IOException {
+        File status = new File("/proc/self/status");
+        if (!status.exists()) {
+            return "unknown";
+        }
+        BufferedReader in = new BufferedReader(new FileReader(status));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("VmHWM:")) {
+                    return line.substring("VmHWM:".length()).trim();
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return "unknown";
+    }
+
+    private static Iterable<Fixtures.Source> sources() {
+        return () -> new Iterator<Fixtures.Source>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < RECORDS;
+            }
+
+            @Override
+            public Fixtures.Source next() {
+                return Fixtures.newSource(next++);
+            }
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long export() throws Exception {
+        if ("JSON_VIA_MAP".equals(output)) {
+            Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+            try {
+                for (Fixtures.Source source : sources()) {
+                    out.write(gson.toJson(nested.serializeToMap(source)));
+                    out.write('\n');
+                }
+            } finally {
+                out.close();
+            }
+            return file.length();
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            BinaryExporter<Nested> export = "BINARY_MAPPED".equals(output)
+                    ? BinaryExporter.toMappedFile(projection, channel)
+                    : BinaryExporter.toChannel(projection, channel);
+            try {
+                export.writeAll(sources());
+            } finally {
+                export.close();
+            }
+            return export.getSize();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.bsundsrud.serializers.benchmarks;
+
+import com.github.bsundsrud.serializers.processors.BaseValueProcessor;
+import com.github.bsundsrud.serializers.util.SerializerUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares public-field writes looked up by name on every call against fields resolved once when the processor is built.
+ * Run with <code>-prof gc</code> to see the allocation per serialized object.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldWriteBenchmark {
+
+    public static class Source {
+        private final int id = 42;
+        private final String name = "name";
+        private final String email = "someone@example.com";
+        private final long created = 1454335120000L;
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+    }
+
+    public static class Target {
+        public int id;
+        public String name;
+        public String email;
+        public long created;
+    }
+
+    private static final String[] FIELDS = {"id", "name", "email", "created"};
+
+    private final Source source = new Source();
+    private BaseValueProcessor[] byName;
+    private BaseValueProcessor[] resolved;
+    private BaseValueProcessor[] handles;
+
+    @Setup
+    public void setup() throws Exception {
+        byName = new BaseValueProcessor[FIELDS.length];
+        resolved = new BaseValueProcessor[FIELDS.length];
+        handles = new BaseValueProcessor[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+            Method getter = SerializerUtils.findGetterForFieldName(Source.class, FIELDS[i]);
+            byName[i] = new BaseValueProcessor(FIELDS[i], getter);
+            resolved[i] = new BaseValueProcessor(Target.class.getField(FIELDS[i]), getter);
+            handles[i] = new BaseValueProcessor(Target.class.getField(FIELDS[i]), getter, true);
+        }
+    }
+
+    private Target copy(BaseValueProcessor[] processors) throws Exception {
+        Target target = new Target();
+        for (BaseValueProcessor p : processors) {
+            p.serialize(source, target);
+        }
+        return target;
+    }
+
+    @Benchmark
+    public Target fieldByName() throws Exception {
+        return copy(byName);
+    }
+
+    @Benchmark
+    public Target resolvedField() throws Exception {
+        return copy(resolved);
+    }
+
+    @Benchmark
+    public Target resolvedFieldMethodHandle() throws Exception {
+        return copy(handles);
+    }
+}
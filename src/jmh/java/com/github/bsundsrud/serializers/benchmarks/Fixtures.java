@@ -0,0 +1,184 @@
+package com.github.bsundsrud.serializers.benchmarks;
+
+import com.github.bsundsrud.serializers.annotations.FromField;
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.annotations.Synthesized;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+
+import java.util.Date;
+
+/**
+ * Sources and serializers used by the benchmarks, modeled on the ones in <code>AnnotationSerializerTest</code>.
+ */
+public class Fixtures {
+
+    public static class Source {
+        private final int id;
+        private final String name;
+        private final String sender;
+        private final String receiver;
+        private final long timestampMillis;
+        private final double amount;
+        private final SubSource sub;
+
+        public Source(int id, String name, SubSource sub) {
+            this.id = id;
+            this.name = name;
+            this.sender = "sender-" + id;
+            this.receiver = "receiver-" + id;
+            this.timestampMillis = 1454335120000L + id;
+            this.amount = id * 1.5;
+            this.sub = sub;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSender() {
+            return sender;
+        }
+
+        public String getReceiver() {
+            return receiver;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public SubSource getSub() {
+            return sub;
+        }
+    }
+
+    public static class SubSource {
+        private final String extra;
+        private final String required;
+        private final SubSource child;
+
+        public SubSource(String extra, String required, SubSource child) {
+            this.extra = extra;
+            this.required = required;
+            this.child = child;
+        }
+
+        public String getExtra() {
+            return extra;
+        }
+
+        public String getRequired() {
+            return required;
+        }
+
+        public SubSource getChild() {
+            return child;
+        }
+    }
+
+    /**
+     * Plain fields and setters only
+     */
+    @SerializedFrom(Source.class)
+    public static class Flat {
+        public int id;
+        public String name;
+        public String sender;
+        public String receiver;
+        public long timestampMillis;
+        public double amount;
+        @FromField("id")
+        public int idCopy;
+        private String mySender;
+
+        public String getMySender() {
+            return mySender;
+        }
+
+        @FromField("sender")
+        public void setMySender(String mySender) {
+            this.mySender = mySender;
+        }
+    }
+
+    /**
+     * Multi-argument {@link Synthesized} combinators
+     */
+    @SerializedFrom(Source.class)
+    public static class Synthetic {
+        public int id;
+        public String sendAndReceive;
+        public Date date;
+        public String summary;
+
+        @Synthesized(target = "sendAndReceive", from = {"sender", "receiver"})
+        public String makeSendAndReceive(String sender, String receiver) {
+            return sender + ":" + receiver;
+        }
+
+        @Synthesized(target = "date", from = "timestampMillis")
+        public Date makeDate(long millis) {
+            return new Date(millis);
+        }
+
+        @Synthesized(target = "summary", from = {"id", "name", "amount", "timestampMillis"})
+        public String makeSummary(int id, String name, double amount, long millis) {
+            return name + "#" + id;
+        }
+    }
+
+    /**
+     * Three levels of {@link WithSerializer} below the root
+     */
+    @SerializedFrom(Source.class)
+    public static class Nested {
+        public int id;
+        public String name;
+
+        @WithSerializer
+        public Level1 sub;
+
+        @FromField("sub")
+        @WithSerializer(fields = "required")
+        public Level1 filteredSub;
+    }
+
+    @SerializedFrom(SubSource.class)
+    public static class Level1 {
+        public String extra;
+        public String required;
+
+        @WithSerializer
+        public Level2 child;
+    }
+
+    @SerializedFrom(SubSource.class)
+    public static class Level2 {
+        public String extra;
+        public String required;
+
+        @WithSerializer
+        public Level3 child;
+    }
+
+    @SerializedFrom(SubSource.class)
+    public static class Level3 {
+        public String extra;
+        public String required;
+    }
+
+    public static Source newSource(int id) {
+        SubSource leaf = new SubSource("extra-3", "required-3", null);
+        SubSource mid = new SubSource("extra-2", "required-2", leaf);
+        SubSource top = new SubSource("extra-1", "required-1", mid);
+        return new Source(id, "name-" + id, top);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.bsundsrud.serializers.benchmarks;
+
+import com.github.bsundsrud.serializers.AccessorEngine;
+import com.github.bsundsrud.serializers.AnnotationSerializer;
+import com.github.bsundsrud.serializers.benchmarks.Fixtures.Flat;
+import com.github.bsundsrud.serializers.benchmarks.Fixtures.Nested;
+import com.github.bsundsrud.serializers.benchmarks.Fixtures.Source;
+import com.github.bsundsrud.serializers.benchmarks.Fixtures.Synthetic;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the main serialization paths for each {@link AccessorEngine}.
+ * The <code>jmh</code> Gradle task runs with the GC profiler, which adds the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    @Param({"REFLECTION", "BYTECODE", "METHOD_HANDLE"})
+    public AccessorEngine engine;
+
+    private final Gson gson = new Gson();
+    private Source source;
+    private AnnotationSerializer<Flat> flat;
+    private AnnotationSerializer<Nested> nested;
+    private AnnotationSerializer<Synthetic> synthetic;
+
+    @Setup
+    public void setup() throws Exception {
+        source = Fixtures.newSource(7);
+        flat = AnnotationSerializer.serializerForClass(Flat.class, engine);
+        nested = AnnotationSerializer.serializerForClass(Nested.class, engine);
+        synthetic = AnnotationSerializer.serializerForClass(Synthetic.class, engine);
+    }
+
+    @Benchmark
+    public Flat flatSerialize() throws Exception {
+        return flat.serialize(source);
+    }
+
+    @Benchmark
+    public Map<String, Object> flatSerializeToMap() throws Exception {
+        return flat.serializeToMap(source);
+    }
+
+    @Benchmark
+    public Flat flatFiltered() throws Exception {
+        return flat.serialize(source, "id", "name");
+    }
+
+    @Benchmark
+    public Map<String, Object> flatFilteredToMap() throws Exception {
+        return flat.serializeToMap(source, "id", "name");
+    }
+
+    @Benchmark
+    public Nested nestedSerialize() throws Exception {
+        return nested.serialize(source);
+    }
+
+    @Benchmark
+    public Map<String, Object> nestedSerializeToMap() throws Exception {
+        return nested.serializeToMap(source);
+    }
+
+    @Benchmark
+    public Synthetic synthesized() throws Exception {
+        return synthetic.serialize(source);
+    }
+
+    @Benchmark
+    public Map<String, Object> synthesizedToMap() throws Exception {
+        return synthetic.serializeToMap(source);
+    }
+
+    @Benchmark
+    public String nestedJsonViaMap() throws Exception {
+        return gson.toJson(nested.serializeToMap(source));
+    }
+
+    @Benchmark
+    public String nestedJsonStreaming() throws Exception {
+        StringBuilder out = new StringBuilder(256);
+        nested.serializeTo(source, out);
+        return out.toString();
+    }
+}
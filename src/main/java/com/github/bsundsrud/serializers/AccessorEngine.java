@@ -0,0 +1,32 @@
+package com.github.bsundsrud.serializers;
+
+/**
+ * Selects how a serializer reads values from the source object and writes them to the target.
+ * Serializers with {@link GeneratedMappings} always use their generated code; the engine then only applies to nested
+ * serializers that have none.
+ */
+public enum AccessorEngine {
+    /**
+     * Call getters and setters through {@link java.lang.reflect.Method#invoke(Object, Object...)}.  Works for every mapping.
+     */
+    REFLECTION,
+
+    /**
+     * Generate a small class per mapping that calls the getter and setter directly.
+     * Mappings that can't be compiled (non-public members, mismatched types) fall back to {@link #REFLECTION}.
+     *
+     * @see com.github.bsundsrud.serializers.processors.BytecodeProcessorFactory
+     */
+    BYTECODE,
+
+    /**
+     * Resolve getters, setters and {@link com.github.bsundsrud.serializers.annotations.Synthesized} combinators into
+     * {@link java.lang.invoke.MethodHandle}s when the serializer is built.  Lighter than {@link #BYTECODE} and covers all
+     * processor types; members that aren't accessible fall back to {@link #REFLECTION}.
+     * <code>int</code>, <code>long</code>, <code>double</code> and <code>boolean</code> mappings between matching types
+     * are copied and written to JSON without boxing.
+     *
+     * @see com.github.bsundsrud.serializers.processors.PrimitiveValueProcessor
+     */
+    METHOD_HANDLE
+}
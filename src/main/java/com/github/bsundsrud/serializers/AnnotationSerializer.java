@@ -5,16 +5,35 @@ import com.github.bsundsrud.serializers.annotations.SerializedFrom;
 import com.github.bsundsrud.serializers.annotations.Synthesized;
 import com.github.bsundsrud.serializers.annotations.WithSerializer;
 import com.github.bsundsrud.serializers.processors.BaseValueProcessor;
+import com.github.bsundsrud.serializers.processors.BytecodeProcessorFactory;
+import com.github.bsundsrud.serializers.processors.ChainedCollectionProcessor;
 import com.github.bsundsrud.serializers.processors.ChainedProcessor;
+import com.github.bsundsrud.serializers.processors.PrimitiveValueProcessor;
 import com.github.bsundsrud.serializers.processors.SyntheticFieldProcessor;
 import com.github.bsundsrud.serializers.processors.ValueProcessor;
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.JsonUtils;
 import com.github.bsundsrud.serializers.util.SerializerException;
 import com.github.bsundsrud.serializers.util.SerializerUtils;
+import com.github.bsundsrud.serializers.util.UncheckedSerializerException;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collector;
 
 /**
  * Processes annotation-based serializations and translate instances of a source object into a serializable representation.
@@ -75,6 +94,17 @@ import java.util.*;
  *
  * </pre>
  *
+ * Instances of subclasses of the {@link SerializedFrom} class, such as ORM proxies, are accepted as sources.  Getters are
+ * resolved on the declared source class and its superclasses, and calls on them dispatch to any overrides in the subclass.
+ *
+ * Serializers returned by {@link #serializerForClass(Class, String...)} are cached in the default {@link SerializerRegistry},
+ * so repeated calls for the same class and fields return the same instance.
+ *
+ * Thread safety: once built, an AnnotationSerializer and its processors are never modified (only the cache of compiled
+ * {@link FieldProjection}s changes; it is a {@link ConcurrentHashMap} with approximate least-recently-used eviction,
+ * and takes no lock).  A single instance can be shared by any number of threads and used
+ * concurrently without external synchronization; {@link #serializeAllParallel(List, ExecutorService, String...)} relies on this.
+ *
  * GSON-ified object is this: (int fields get defaulted to 0, using Integer would solve this)
  *
  * <pre>
@@ -120,11 +150,67 @@ import java.util.*;
  * @param <T> The type of the serializer class
  */
 public class AnnotationSerializer<T> {
-    private Map<String, ValueProcessor> valueSerializerMap = new HashMap<String, ValueProcessor>();
-    private List<String> includedFields = new ArrayList<String>();
-    private Class<T> resultClass;
+    /**
+     * Number of per-call field selections whose compiled {@link FieldProjection} is kept by each serializer
+     */
+    public static final int PROJECTION_CACHE_SIZE = 32;
+
+    /**
+     * Default number of elements below which {@link #serializeAllParallel(List, ExecutorService, String...)} stays sequential
+     */
+    public static final int PARALLEL_THRESHOLD = 1000;
+
+    private final Class<T> resultClass;
+    private final Class<?> sourceClass;
+    private final SerializerRegistry registry;
+    private final AccessorEngine engine;
+    private final GeneratedMappings<T> generated;
+    // ()Object handle on the no-argument constructor, or null if there is none we can call
+    private final MethodHandle constructor;
+    private final Map<String, ValueProcessor> valueSerializerMap;
+    private final String[] sortedFields;
+    private final FieldProjection<T> defaultProjection;
+    // whether instances of a runtime class can be serialized, computed once per class
+    private final ClassValue<Boolean> acceptedSources = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return sourceClass.isAssignableFrom(type);
+        }
+    };
+    // per-call projections keyed by their sorted, de-duplicated field names; reads take no lock
+    private final ConcurrentHashMap<List<String>, CachedProjection<T>> projectionCache =
+            new ConcurrentHashMap<List<String>, CachedProjection<T>>();
+    // advanced on every cache miss; entries remember the value at their last use, for eviction
+    private final AtomicLong projectionClock = new AtomicLong();
 
-    private AnnotationSerializer() {
+    /*
+     * Everything is scanned and resolved here, before the constructor returns.  The processors (including any method handles
+     * they resolve) are only reachable through final fields, so they are safely published with the serializer.
+     */
+    private AnnotationSerializer(SerializerRegistry registry, AccessorEngine engine, Class<T> resultClass, List<String> includedFields) throws SerializerException {
+        this.registry = registry;
+        this.engine = engine;
+        this.resultClass = resultClass;
+        this.sourceClass = serializedFrom(resultClass);
+        this.generated = generatedMappings(resultClass);
+        this.constructor = generated == null ? constructorHandle(resultClass) : null;
+        // Recursive @WithSerializer references resolve to this instance.  It is only used once construction has finished.
+        registry.building(resultClass, engine, includedFields, this);
+
+        Map<String, ValueProcessor> processors;
+        if (generated != null) {
+            processors = generated.createProcessors(registry, engine);
+        } else {
+            processors = new HashMap<String, ValueProcessor>();
+            for (FieldMapping mapping : scan(sourceClass, resultClass)) {
+                processors.put(mapping.targetField, newProcessor(mapping));
+            }
+        }
+
+        this.valueSerializerMap = Collections.unmodifiableMap(processors);
+        Set<String> sorted = new TreeSet<String>(processors.keySet());
+        this.sortedFields = sorted.toArray(new String[sorted.size()]);
+        this.defaultProjection = compileProjection(includedFields);
     }
 
     private static Class<?> serializedFrom(Class<?> resultClass) throws SerializerException {
@@ -135,8 +221,33 @@ public class AnnotationSerializer<T> {
         return from.value();
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> GeneratedMappings<T> generatedMappings(Class<T> resultClass) throws SerializerException {
+        if (resultClass.getClassLoader() == null) {
+            return null;
+        }
+        String pkg = resultClass.getPackage() != null ? resultClass.getPackage().getName() : "";
+        String simpleName = pkg.isEmpty() ? resultClass.getName() : resultClass.getName().substring(pkg.length() + 1);
+        String name = (pkg.isEmpty() ? "" : pkg + ".") + simpleName.replace('$', '_') + GeneratedMappings.SUFFIX;
+        Class<?> cls;
+        try {
+            cls = Class.forName(name, true, resultClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!GeneratedMappings.class.isAssignableFrom(cls)) {
+            return null;
+        }
+        try {
+            return (GeneratedMappings<T>) cls.getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new SerializerException("Could not instantiate generated mappings '" + name + "'", e);
+        }
+    }
+
     /**
-     * Create and initialize a new AnnotationSerializer instance
+     * Get an initialized AnnotationSerializer instance from the default {@link SerializerRegistry}.
+     * The instance is shared with other callers asking for the same class and fields.
      *
      * @param target Class of serialization target
      * @param includedFields varargs list of fields to include in serialization.  If specified, only those named fields will be set on the resulting object.
@@ -145,21 +256,56 @@ public class AnnotationSerializer<T> {
      * @throws SerializerException on failure to initialize mapping for given serializer class
      */
     public static <T> AnnotationSerializer<T> serializerForClass(Class<T> target, String... includedFields) throws SerializerException {
-        AnnotationSerializer<T> sap = new AnnotationSerializer<T>();
-        sap.init(target, Arrays.asList(includedFields));
-        return sap;
+        return SerializerRegistry.getDefault().serializerFor(target, includedFields);
+    }
+
+    /**
+     * Get an initialized AnnotationSerializer instance from the default {@link SerializerRegistry}, using the given engine
+     * to access source and target members.  Nested serializers use the same engine.
+     *
+     * @param target Class of serialization target
+     * @param engine how getters and setters are called
+     * @param includedFields varargs list of fields to include in serialization.  If specified, only those named fields will be set on the resulting object.
+     * @param <T> The type of the serializer class
+     * @return a fully initialized AnnotationSerializer, ready to serialize instances of source objects
+     * @throws SerializerException on failure to initialize mapping for given serializer class
+     */
+    public static <T> AnnotationSerializer<T> serializerForClass(Class<T> target, AccessorEngine engine, String... includedFields) throws SerializerException {
+        return SerializerRegistry.getDefault().serializerFor(target, engine, includedFields);
+    }
+
+    /**
+     * @return the class named by the serializer class's {@link SerializedFrom}
+     */
+    public Class<?> getSourceClass() {
+        return sourceClass;
+    }
+
+    /**
+     * @return the serializer class, instances of which are produced by this serializer
+     */
+    public Class<T> getResultClass() {
+        return resultClass;
+    }
+
+    static <T> AnnotationSerializer<T> build(SerializerRegistry registry, AccessorEngine engine, Class<T> target, List<String> includedFields) throws SerializerException {
+        return new AnnotationSerializer<T>(registry, engine, target, new ArrayList<String>(includedFields));
+    }
+
+    /**
+     * Resolve the mappings of a serializer class with reflection.  Later mappings of the same target field replace
+     * earlier ones.
+     */
+    static List<FieldMapping> scan(Class<?> srcClass, Class<?> resultClass) throws SerializerException {
+        List<FieldMapping> mappings = new ArrayList<FieldMapping>();
+        Set<String> mapped = new HashSet<String>();
+        scanMethods(srcClass, resultClass, mappings, mapped);
+        scanFields(srcClass, resultClass, mappings, mapped);
+        return mappings;
     }
 
-    private void scanMethods(Class<?> srcClass, Class<T> resultClass) throws SerializerException {
+    private static void scanMethods(Class<?> srcClass, Class<?> resultClass, List<FieldMapping> mappings, Set<String> mapped) throws SerializerException {
         for (Method m : resultClass.getDeclaredMethods()) {
-            // Assume field on source object matches field on target object
-            String srcFieldName = SerializerUtils.methodToField(m.getName());
-            String tgtFieldName = SerializerUtils.methodToField(m.getName());
-            // Check for presence of field mapping
-            if (m.isAnnotationPresent(FromField.class)) {
-                FromField mapping = m.getAnnotation(FromField.class);
-                srcFieldName = mapping.value();
-            }
             // Is this a computed field?
             if (m.isAnnotationPresent(Synthesized.class)) {
                 Synthesized f = m.getAnnotation(Synthesized.class);
@@ -180,39 +326,39 @@ public class AnnotationSerializer<T> {
                     }
                 }
 
-                valueSerializerMap.put(targetField, new SyntheticFieldProcessor(targetField, m, SerializerUtils.setterForField(resultClass, targetField), getters));
+                Method setter = SerializerUtils.setterForField(resultClass, targetField);
+                Field field = SerializerUtils.fieldForName(resultClass, targetField);
+                mappings.add(FieldMapping.synthesized(targetField, m, getters, setter, field));
+                mapped.add(targetField);
             } else if (m.getName().startsWith("set") && m.getParameterCount() == 1) { // is this a setter method?  Setters are assumed to start with "set" and take only 1 parameter
+                // Assume field on source object matches field on target object
+                String tgtFieldName = SerializerUtils.methodToField(m.getName());
+                String srcFieldName = tgtFieldName;
+                // Check for presence of field mapping
+                if (m.isAnnotationPresent(FromField.class)) {
+                    FromField mapping = m.getAnnotation(FromField.class);
+                    srcFieldName = mapping.value();
+                }
                 if (m.isAnnotationPresent(WithSerializer.class)) { // is this a sub-serializer?
                     WithSerializer ws = m.getAnnotation(WithSerializer.class);
-                    Class otherSerializer = ws.value();
-                    Class<?> firstParamType = m.getParameterTypes()[0];
-                    // if the type is omitted, default to the parameter's type
-                    if (otherSerializer.equals(void.class)) {
-                        otherSerializer = firstParamType;
-                    } else {
-                        // type-check params vs annotation parameter
-                        if (otherSerializer != firstParamType) {
-                            throw new SerializerException("Type of serializer '" + otherSerializer.getName()
-                                    + "' does not match parameter type '" + firstParamType.getName()
-                                    + "' for setter '" + m.getName() + "'");
-                        }
-                    }
-
-                    AnnotationSerializer sap = serializerForClass(otherSerializer, ws.fields());
-                    valueSerializerMap.put(tgtFieldName, new ChainedProcessor(sap, tgtFieldName, SerializerUtils.findGetterForFieldName(srcClass, srcFieldName), m));
+                    Class<?> nested = nestedSerializerClass(ws, m.getParameterTypes()[0],
+                            m.getGenericParameterTypes()[0], "parameter type", "setter '" + m.getName() + "'");
+                    Method getter = SerializerUtils.findGetterForFieldName(srcClass, srcFieldName);
+                    mappings.add(FieldMapping.chained(tgtFieldName, getter, m, null, nested, ws.fields()));
                 } else { // standard setter method
                     Method getter = SerializerUtils.findGetterForSetter(srcClass, srcFieldName, m);
-                    valueSerializerMap.put(tgtFieldName, new BaseValueProcessor(tgtFieldName, getter, m));
+                    mappings.add(FieldMapping.value(tgtFieldName, getter, m, null));
                 }
+                mapped.add(tgtFieldName);
             }
         }
     }
 
-    private void scanFields(Class<?> srcClass, Class<T> resultClass) throws SerializerException {
+    private static void scanFields(Class<?> srcClass, Class<?> resultClass, List<FieldMapping> mappings, Set<String> mapped) throws SerializerException {
         for (Field f : resultClass.getDeclaredFields()) {
             int modifiers = f.getModifiers();
             // Only consider public non-transient fields that don't already have a mapping from the methods
-            if (Modifier.isPublic(modifiers) && !Modifier.isTransient(modifiers) && !valueSerializerMap.containsKey(f.getName())) {
+            if (Modifier.isPublic(modifiers) && !Modifier.isTransient(modifiers) && !mapped.contains(f.getName())) {
                 String sourceFieldName;
                 // If a field mapping is present, set source field appropriately
                 if (f.isAnnotationPresent(FromField.class)) {
@@ -221,59 +367,266 @@ public class AnnotationSerializer<T> {
                 } else {
                     sourceFieldName = f.getName();
                 }
+                Method getter = SerializerUtils.findGetterForFieldName(srcClass, sourceFieldName);
                 // Is this field a sub-serializer?
                 if (f.isAnnotationPresent(WithSerializer.class)) {
                     WithSerializer ws = f.getAnnotation(WithSerializer.class);
-                    Class<?> otherSerializer = ws.value();
-
-                    // If the type is omitted, default to the field's type
-                    if (otherSerializer.equals(void.class)) {
-                        otherSerializer = f.getType();
-                    } else {
-                        // type-check field vs annotation value
-                        if (otherSerializer != f.getType()) {
-                            throw new SerializerException("Type of serializer '" + otherSerializer.getName()
-                                    + "' does not match field type '" + f.getType().getName()
-                                    + "' for field '" + f.getName() + "'");
-                        }
-                    }
-
-                    AnnotationSerializer sap = serializerForClass(otherSerializer, ws.fields());
-                    Method getter = SerializerUtils.findGetterForFieldName(srcClass, sourceFieldName);
-                    valueSerializerMap.put(f.getName(), new ChainedProcessor(sap, f.getName(), getter, null));
+                    Class<?> nested = nestedSerializerClass(ws, f.getType(),
+                            f.getGenericType(), "field type", "field '" + f.getName() + "'");
+                    mappings.add(FieldMapping.chained(f.getName(), getter, null, f, nested, ws.fields()));
                 } else { //standard field
-                    BaseValueProcessor bvs = new BaseValueProcessor(f.getName(), SerializerUtils.findGetterForFieldName(srcClass, sourceFieldName));
-                    valueSerializerMap.put(f.getName(), bvs);
+                    mappings.add(FieldMapping.value(f.getName(), getter, null, f));
+                }
+                mapped.add(f.getName());
+            }
+        }
+    }
+
+    /**
+     * Resolve the serializer class named by a {@link WithSerializer}.  For arrays, collections and maps it serializes the
+     * elements, so it is checked against (or inferred from) the element type instead of the declared type.
+     */
+    private static Class<?> nestedSerializerClass(WithSerializer ws, Class<?> declaredType, Type genericType,
+                                                  String typeDescription, String memberDescription) throws SerializerException {
+        Class<?> expected = declaredType;
+        if (ChainedCollectionProcessor.isContainer(declaredType)) {
+            expected = ChainedCollectionProcessor.elementType(declaredType, genericType);
+        }
+        Class<?> otherSerializer = ws.value();
+        // If the type is omitted, default to the declared (element) type
+        if (otherSerializer.equals(void.class)) {
+            if (expected == null) {
+                throw new SerializerException("Cannot infer element serializer for " + memberDescription
+                        + " of type '" + genericType.getTypeName() + "'; name it in @WithSerializer");
+            }
+            otherSerializer = expected;
+        } else if (expected != null && otherSerializer != expected) {
+            // type-check declared type vs annotation value
+            throw new SerializerException("Type of serializer '" + otherSerializer.getName()
+                    + "' does not match " + typeDescription + " '" + expected.getName()
+                    + "' for " + memberDescription);
+        }
+        return otherSerializer;
+    }
+
+    private ValueProcessor newProcessor(FieldMapping mapping) throws SerializerException {
+        boolean handles = engine == AccessorEngine.METHOD_HANDLE;
+        switch (mapping.kind) {
+            case SYNTHESIZED:
+                if (mapping.setter == null && mapping.field != null) {
+                    return new SyntheticFieldProcessor(mapping.field, mapping.combinator, mapping.inputs, handles);
+                }
+                return new SyntheticFieldProcessor(mapping.targetField, mapping.combinator, mapping.setter, mapping.inputs, handles);
+            case CHAINED:
+                AnnotationSerializer sap = registry.serializerFor(mapping.nested, engine, mapping.nestedFields);
+                if (ChainedCollectionProcessor.isContainer(mapping.targetType())) {
+                    return mapping.setter != null
+                            ? new ChainedCollectionProcessor(sap, mapping.targetField, mapping.getter, mapping.setter, mapping.targetType(), handles)
+                            : new ChainedCollectionProcessor(sap, mapping.field, mapping.getter, handles);
                 }
+                return mapping.setter != null
+                        ? new ChainedProcessor(sap, mapping.targetField, mapping.getter, mapping.setter, handles)
+                        : new ChainedProcessor(sap, mapping.field, mapping.getter, handles);
+            default:
+                return mapping.setter != null
+                        ? newValueProcessor(resultClass, mapping.targetField, mapping.getter, mapping.setter)
+                        : newValueProcessor(resultClass, mapping.field, mapping.getter);
+        }
+    }
+
+    private BaseValueProcessor newValueProcessor(Class<T> resultClass, String targetField, Method getter, Method setter) throws SerializerException {
+        if (engine == AccessorEngine.BYTECODE) {
+            return BytecodeProcessorFactory.create(resultClass, targetField, getter, setter);
+        }
+        if (engine == AccessorEngine.METHOD_HANDLE) {
+            Field field = setter == null ? SerializerUtils.fieldForName(resultClass, targetField) : null;
+            BaseValueProcessor primitive = PrimitiveValueProcessor.forMapping(targetField, getter, setter, field);
+            if (primitive != null) {
+                return primitive;
+            }
+            return new BaseValueProcessor(targetField, getter, setter, true);
+        }
+        return new BaseValueProcessor(targetField, getter, setter);
+    }
+
+    private BaseValueProcessor newValueProcessor(Class<T> resultClass, Field field, Method getter) throws SerializerException {
+        if (engine == AccessorEngine.BYTECODE) {
+            return BytecodeProcessorFactory.create(resultClass, field.getName(), getter, null);
+        }
+        if (engine == AccessorEngine.METHOD_HANDLE) {
+            BaseValueProcessor primitive = PrimitiveValueProcessor.forMapping(field.getName(), getter, null, field);
+            if (primitive != null) {
+                return primitive;
             }
+            return new BaseValueProcessor(field, getter, true);
         }
+        return new BaseValueProcessor(field, getter);
     }
 
+    @SuppressWarnings("unchecked")
     private T newInstance() throws SerializerException {
+        if (generated != null) {
+            try {
+                return generated.newInstance();
+            } catch (Exception e) {
+                throw new SerializerException("Could not instantiate instance of type '" + resultClass.getName() + "'", e);
+            }
+        }
+        if (constructor != null) {
+            try {
+                return (T) constructor.invokeExact();
+            } catch (Throwable t) {
+                throw new SerializerException("Could not instantiate instance of type '" + resultClass.getName() + "'", t);
+            }
+        }
+        // no usable constructor; let reflection report why
         try {
-            return resultClass.newInstance();
+            return resultClass.getDeclaredConstructor().newInstance();
+        } catch (NoSuchMethodException e) {
+            throw new SerializerException("Could not instantiate instance of type '" + resultClass.getName() + "'", e);
         } catch (InstantiationException e) {
             throw new SerializerException("Could not instantiate instance of type '" + resultClass.getName() + "'", e);
+        } catch (InvocationTargetException e) {
+            throw new SerializerException("Could not instantiate instance of type '" + resultClass.getName() + "'", e);
         } catch (IllegalAccessException e) {
             throw new SerializerException("Could not access constructor of type '" + resultClass.getName() + "'", e);
         }
     }
 
+    private static MethodHandle constructorHandle(Class<?> resultClass) {
+        try {
+            return MethodHandles.lookup().unreflectConstructor(resultClass.getDeclaredConstructor())
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
     private void assertCanSerializeFrom(Class<?> srcClass) throws SerializerException {
-        // assert that the serialization source of resultClass is the same as srcClass
-        Class<?> target = serializedFrom(resultClass);
-        if (!srcClass.equals(target)) {
-            throw new SerializerException("Source Object does not match Serializer target: " + srcClass.getName() + " vs " + target.getName());
+        // assert that srcClass is the serialization source of resultClass, or a subclass of it (such as a proxy)
+        if (srcClass != sourceClass && !acceptedSources.get(srcClass)) {
+            throw new SerializerException("Source Object does not match Serializer target: " + srcClass.getName() + " vs " + sourceClass.getName());
         }
     }
 
-    private void init(Class<T> resultClass, List<String> includedFields) throws SerializerException {
-        this.resultClass = resultClass;
-        this.includedFields = includedFields;
-        Class<?> srcClass = serializedFrom(resultClass);
+    private FieldProjection<T> compileProjection(Collection<String> fields) {
+        // split "field.rest" paths into the sub-paths selected under each top-level field
+        Set<String> whole = new HashSet<String>();
+        Map<String, List<String>> paths = new HashMap<String, List<String>>();
+        for (String field : fields) {
+            int dot = field.indexOf('.');
+            if (dot < 0) {
+                whole.add(field);
+            } else {
+                String head = field.substring(0, dot);
+                List<String> rest = paths.get(head);
+                if (rest == null) {
+                    rest = new ArrayList<String>();
+                    paths.put(head, rest);
+                }
+                rest.add(field.substring(dot + 1));
+            }
+        }
+        List<String> names = new ArrayList<String>();
+        for (String field : sortedFields) {
+            if (fields.isEmpty() || whole.contains(field) || paths.containsKey(field)) {
+                names.add(field);
+            }
+        }
+        ValueProcessor[] processors = new ValueProcessor[names.size()];
+        for (int i = 0; i < processors.length; i++) {
+            String name = names.get(i);
+            processors[i] = valueSerializerMap.get(name);
+            List<String> rest = paths.get(name);
+            if (rest != null && !whole.contains(name) && !rest.contains("*") && processors[i] instanceof ChainedProcessor) {
+                processors[i] = new NestedProjectionProcessor((ChainedProcessor) processors[i], rest);
+            }
+        }
+        return new FieldProjection<T>(this, names.toArray(new String[names.size()]), processors);
+    }
+
+    /**
+     * Compile a selection of fields into a reusable {@link FieldProjection}.
+     * Unknown field names are ignored.  With no fields, the projection covers the fields this serializer was created with.
+     *
+     * Fields with a sub-serializer can be narrowed with dotted paths: <code>"subthing.baz"</code> emits only
+     * <code>baz</code> of <code>subthing</code>, and paths nest to any depth.  <code>"subthing"</code> or
+     * <code>"subthing.*"</code> emit the sub-serializer's own fields.  The nested selections are compiled when they are
+     * first used, since a recursive sub-serializer may still be under construction, and are then kept with this
+     * projection; fields outside of them are never read from the source.  A path into a field without a
+     * sub-serializer selects the field itself.
+     *
+     * @param includedFields varargs list of fields to include in the result
+     * @return compiled projection, ready to serialize instances of source objects
+     */
+    public FieldProjection<T> projection(String... includedFields) {
+        if (includedFields.length == 0) {
+            return defaultProjection;
+        }
+        return projection(Arrays.asList(includedFields));
+    }
+
+    /**
+     * Compile a selection of fields into a reusable {@link FieldProjection}.
+     * The most recently used projections are cached (see {@link #PROJECTION_CACHE_SIZE}) by field set, so the same
+     * fields in any order, or repeated, share one projection.  Cache hits take no lock.
+     *
+     * @param includedFields list of fields to include in the result
+     * @return compiled projection, ready to serialize instances of source objects
+     * @see #projection(String...)
+     */
+    public FieldProjection<T> projection(List<String> includedFields) {
+        if (includedFields.isEmpty()) {
+            return defaultProjection;
+        }
+        // selections usually come sorted already, and then are their own key
+        CachedProjection<T> cached = projectionCache.get(includedFields);
+        List<String> key = includedFields;
+        if (cached == null) {
+            key = new ArrayList<String>(new TreeSet<String>(includedFields));
+            cached = projectionCache.get(key);
+        }
+        if (cached == null) {
+            cached = new CachedProjection<T>(compileProjection(key), projectionClock.incrementAndGet());
+            CachedProjection<T> raced = projectionCache.putIfAbsent(key, cached);
+            if (raced != null) {
+                cached = raced;
+            } else if (projectionCache.size() > PROJECTION_CACHE_SIZE) {
+                evictLeastRecentlyUsed();
+            }
+        }
+        long now = projectionClock.get();
+        if (cached.used != now) {
+            cached.used = now;
+        }
+        return cached.projection;
+    }
 
-        scanMethods(srcClass, resultClass);
-        scanFields(srcClass, resultClass);
+    private void evictLeastRecentlyUsed() {
+        while (projectionCache.size() > PROJECTION_CACHE_SIZE) {
+            Map.Entry<List<String>, CachedProjection<T>> eldest = null;
+            for (Map.Entry<List<String>, CachedProjection<T>> entry : projectionCache.entrySet()) {
+                if (eldest == null || entry.getValue().used < eldest.getValue().used) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            projectionCache.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private static final class CachedProjection<T> {
+        final FieldProjection<T> projection;
+        volatile long used;
+
+        CachedProjection(FieldProjection<T> projection, long used) {
+            this.projection = projection;
+            this.used = used;
+        }
     }
 
     /**
@@ -285,7 +638,7 @@ public class AnnotationSerializer<T> {
      * @throws SerializerException on failures in mapping from source to T
      */
     public T serialize(Object source, String... includedFields) throws SerializerException {
-        return serialize(source, Arrays.asList(includedFields));
+        return serialize(source, projection(includedFields));
     }
 
     /**
@@ -297,25 +650,41 @@ public class AnnotationSerializer<T> {
      * @throws SerializerException on failures in mapping from source to T
      */
     public T serialize(Object source, List<String> includedFields) throws SerializerException {
+        return serialize(source, projection(includedFields));
+    }
+
+    T serialize(Object source, FieldProjection<T> projection) throws SerializerException {
         if (source == null) {
             return null;
         }
 
         assertCanSerializeFrom(source.getClass());
 
-        T resultObj = newInstance();
+        return serializeChecked(source, projection);
+    }
 
-        if (includedFields.size() == 0) {
-            includedFields = this.includedFields;
+    @SuppressWarnings("unchecked")
+    private T serializeChecked(Object source, FieldProjection<T> projection) throws SerializerException {
+        IdentityTracking tracking = IdentityTracking.current();
+        if (tracking != null) {
+            Object seen = tracking.target(projection, source);
+            if (seen != null) {
+                return (T) seen;
+            }
+        }
+        T resultObj = newInstance();
+        if (tracking != null) {
+            // remembered before the fields are filled, so cycles back to this source close on this instance
+            tracking.rememberTarget(projection, source, resultObj);
         }
 
-        for (String field : valueSerializerMap.keySet()) {
-            if (includedFields.size() > 0 && !includedFields.contains(field)) {
-                continue;
-            }
-            ValueProcessor vs = valueSerializerMap.get(field);
+        Metrics metrics = registry.metrics();
+        if (metrics != null) {
+            processMeasured(metrics, MetricsListener.Output.OBJECT, projection, source, resultObj, null, null);
+            return resultObj;
+        }
+        for (ValueProcessor vs : projection.processors()) {
             vs.serialize(source, resultObj);
-
         }
 
         return resultObj;
@@ -330,11 +699,12 @@ public class AnnotationSerializer<T> {
      * @throws SerializerException on failures in mapping from source to type T
      */
     public Map<String, Object> serializeToMap(Object source, String... includedFields) throws SerializerException {
-        return serializeToMap(source, Arrays.asList(includedFields));
+        return serializeToMap(source, projection(includedFields));
     }
 
     /**
-     * Serialize a source object to a {@link java.util.Map} of &lt;String, Object&gt;
+     * Serialize a source object to a {@link java.util.Map} of &lt;String, Object&gt;, iterated in field name order.
+     * The map is mutable; it shares its array of keys with every other result of the same field selection.
      *
      * @param source source object to serialize
      * @param includedFields list of fields to include in result map
@@ -342,27 +712,514 @@ public class AnnotationSerializer<T> {
      * @throws SerializerException on failures in mapping from source to type T
      */
     public Map<String, Object> serializeToMap(Object source, List<String> includedFields) throws SerializerException {
+        return serializeToMap(source, projection(includedFields));
+    }
+
+    Map<String, Object> serializeToMap(Object source, FieldProjection<T> projection) throws SerializerException {
         if (source == null) {
             return new HashMap<String, Object>();
         }
 
         assertCanSerializeFrom(source.getClass());
 
-        T resultObj = newInstance();
+        return serializeToMapChecked(source, projection);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> serializeToMapChecked(Object source, FieldProjection<T> projection) throws SerializerException {
+        IdentityTracking tracking = IdentityTracking.current();
+        if (tracking != null) {
+            Object seen = tracking.map(projection, source);
+            if (seen != null) {
+                return (Map<String, Object>) seen;
+            }
+        }
+        T resultObj = projection.needsTarget() ? newInstance() : null;
+
+        Map<String, Object> results = new FieldMap(projection.fieldNames());
+        if (tracking != null) {
+            tracking.rememberMap(projection, source, results);
+        }
+        Metrics metrics = registry.metrics();
+        if (metrics != null) {
+            processMeasured(metrics, MetricsListener.Output.MAP, projection, source, resultObj, results, null);
+            return results;
+        }
+        for (ValueProcessor vs : projection.processors()) {
+            vs.serializeToMap(source, resultObj, results);
+        }
+        return results;
+    }
+
+    /**
+     * Serialize a source object to a read-only {@link java.util.Map} whose values are computed when they are first read.
+     * Getters, combinators and sub-serializers of fields that are never read are never called, and sub-objects become
+     * lazy maps themselves.  Computed values are kept, so each field is serialized at most once.
+     *
+     * The source is read after this method returns, so it must not change while the map is in use.  Failures are
+     * thrown as {@link UncheckedSerializerException} by the read that triggered them.  Identity tracking and metrics do
+     * not apply to values computed lazily.
+     *
+     * @param source source object to serialize
+     * @param includedFields varargs list of fields to include in result map
+     * @return lazy {@link java.util.Map} of the serialization result, iterated in field name order
+     * @throws SerializerException if <code>source</code> is not of the serializer's source class, or the target cannot be created
+     */
+    public Map<String, Object> serializeToLazyMap(Object source, String... includedFields) throws SerializerException {
+        return serializeToLazyMap(source, projection(includedFields));
+    }
 
-        if (includedFields.size() == 0) {
-            includedFields = this.includedFields;
+    Map<String, Object> serializeToLazyMap(Object source, FieldProjection<T> projection) throws SerializerException {
+        if (source == null) {
+            return new HashMap<String, Object>();
         }
+        assertCanSerializeFrom(source.getClass());
+        return new LazyFieldMap(source, projection.needsTarget() ? newInstance() : null, projection);
+    }
+
+    /**
+     * Serialize a batch of source objects to instances of type T.
+     * The field selection is compiled once and the source class is only checked when it changes between elements.
+     * Null elements produce null results.
+     *
+     * @param sources source objects to serialize
+     * @param includedFields varargs list of fields to include in each result
+     * @return a list of results in the order of <code>sources</code>
+     * @throws SerializerException on failures in mapping from source to T
+     */
+    public List<T> serializeAll(Iterable<?> sources, String... includedFields) throws SerializerException {
+        return serializeAll(sources, new ArrayList<T>(sizeHint(sources)), includedFields);
+    }
+
+    /**
+     * Serialize a batch of source objects into the given collection, in iteration order of <code>sources</code>.
+     * Null elements produce null results.
+     *
+     * @param sources source objects to serialize
+     * @param results collection to add the results to, typically presized by the caller
+     * @param includedFields varargs list of fields to include in each result
+     * @param <C> type of the result collection
+     * @return <code>results</code>
+     * @throws SerializerException on failures in mapping from source to T
+     * @see #serializeAll(Iterable, String...)
+     */
+    public <C extends Collection<? super T>> C serializeAll(Iterable<?> sources, C results, String... includedFields) throws SerializerException {
+        return serializeAll(sources, results, projection(includedFields));
+    }
 
-        Map<String, Object> results = new TreeMap<String, Object>();
-        for (String field : valueSerializerMap.keySet()) {
-            if (includedFields.size() > 0 && !includedFields.contains(field)) {
+    <C extends Collection<? super T>> C serializeAll(Iterable<?> sources, C results, FieldProjection<T> projection) throws SerializerException {
+        Class<?> checked = null;
+        for (Object source : sources) {
+            if (source == null) {
+                results.add(null);
                 continue;
             }
-            ValueProcessor vs = valueSerializerMap.get(field);
-            vs.serializeToMap(source, resultObj, results);
+            if (source.getClass() != checked) {
+                assertCanSerializeFrom(source.getClass());
+                checked = source.getClass();
+            }
+            results.add(serializeChecked(source, projection));
+        }
+        return results;
+    }
+
+    /**
+     * Serialize a batch of source objects to {@link java.util.Map}s.
+     * Null elements produce empty maps.
+     *
+     * @param sources source objects to serialize
+     * @param includedFields varargs list of fields to include in each result map
+     * @return a list of result maps in the order of <code>sources</code>
+     * @throws SerializerException on failures in mapping from source to type T
+     * @see #serializeAll(Iterable, String...)
+     */
+    public List<Map<String, Object>> serializeAllToMaps(Iterable<?> sources, String... includedFields) throws SerializerException {
+        return serializeAllToMaps(sources, projection(includedFields));
+    }
+
+    List<Map<String, Object>> serializeAllToMaps(Iterable<?> sources, FieldProjection<T> projection) throws SerializerException {
+        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>(sizeHint(sources));
+        Class<?> checked = null;
+        for (Object source : sources) {
+            if (source == null) {
+                results.add(new HashMap<String, Object>());
+                continue;
+            }
+            if (source.getClass() != checked) {
+                assertCanSerializeFrom(source.getClass());
+                checked = source.getClass();
+            }
+            results.add(serializeToMapChecked(source, projection));
         }
         return results;
     }
 
+    /**
+     * A {@link Collector} that serializes each element of a stream to an instance of type T.
+     * Failures are thrown as {@link UncheckedSerializerException}.
+     *
+     * <pre>
+     * List&lt;TestSerializer&gt; out = sources.stream().collect(sap.toSerialized("docId", "date"));
+     * </pre>
+     *
+     * @param includedFields varargs list of fields to include in each result
+     * @return a collector producing a list of results in encounter order
+     * @see #serializeAll(Iterable, String...)
+     */
+    public Collector<Object, ?, List<T>> toSerialized(String... includedFields) {
+        final FieldProjection<T> projection = projection(includedFields);
+        return Collector.of(
+                BatchResults::new,
+                (batch, source) -> batch.add(source, projection),
+                BatchResults::merge,
+                batch -> batch.results);
+    }
+
+    /**
+     * Serialize a list of source objects in parallel on the given executor, using {@link #PARALLEL_THRESHOLD}.
+     *
+     * @param sources source objects to serialize
+     * @param executor executor to run on, for example a {@link ForkJoinPool} or a virtual-thread-per-task executor
+     * @param includedFields varargs list of fields to include in each result
+     * @return a list of results in the order of <code>sources</code>
+     * @throws SerializerException on failures in mapping from source to T
+     * @see #serializeAllParallel(List, ExecutorService, int, String...)
+     */
+    public List<T> serializeAllParallel(List<?> sources, ExecutorService executor, String... includedFields) throws SerializerException {
+        return serializeAllParallel(sources, executor, PARALLEL_THRESHOLD, includedFields);
+    }
+
+    /**
+     * Serialize a list of source objects in parallel on the given executor.
+     *
+     * Lists of up to <code>threshold</code> elements are serialized sequentially on the calling thread.
+     * Larger lists are split into chunks of at most <code>threshold</code> elements; on a {@link ForkJoinPool} the
+     * chunks are forked recursively, on any other executor they are submitted as separate tasks.
+     * Results keep the order of <code>sources</code>.
+     *
+     * @param sources source objects to serialize
+     * @param executor executor to run on
+     * @param threshold largest number of elements serialized by a single task
+     * @param includedFields varargs list of fields to include in each result
+     * @return a list of results in the order of <code>sources</code>
+     * @throws SerializerException on failures in mapping from source to T, or if the calling thread is interrupted
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> serializeAllParallel(List<?> sources, ExecutorService executor, int threshold, String... includedFields) throws SerializerException {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        if (sources.size() <= threshold) {
+            return serializeAll(sources, includedFields);
+        }
+        FieldProjection<T> projection = projection(includedFields);
+        Object[] results = new Object[sources.size()];
+        try {
+            if (executor instanceof ForkJoinPool) {
+                ((ForkJoinPool) executor).invoke(new BatchTask(sources, results, projection, threshold, 0, sources.size()));
+            } else {
+                List<Future<?>> futures = new ArrayList<Future<?>>();
+                for (int from = 0; from < sources.size(); from += threshold) {
+                    int to = Math.min(from + threshold, sources.size());
+                    futures.add(executor.submit(new BatchTask(sources, results, projection, threshold, from, to)));
+                }
+                try {
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } catch (ExecutionException | InterruptedException e) {
+                    // the batch has failed; don't leave the rest of it queued on a shared executor
+                    for (Future<?> future : futures) {
+                        future.cancel(false);
+                    }
+                    throw e;
+                }
+            }
+        } catch (UncheckedSerializerException e) {
+            throw e.getCause();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedSerializerException) {
+                throw ((UncheckedSerializerException) e.getCause()).getCause();
+            }
+            throw new SerializerException("Parallel serialization of '" + resultClass.getName() + "' failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerializerException("Interrupted while serializing '" + resultClass.getName() + "'", e);
+        }
+        return (List<T>) Arrays.asList(results);
+    }
+
+    private class BatchTask extends RecursiveAction implements Runnable {
+        private static final long serialVersionUID = 1L;
+
+        private final List<?> sources;
+        private final Object[] results;
+        private final FieldProjection<T> projection;
+        private final int threshold;
+        private final int from;
+        private final int to;
+
+        BatchTask(List<?> sources, Object[] results, FieldProjection<T> projection, int threshold, int from, int to) {
+            this.sources = sources;
+            this.results = results;
+            this.projection = projection;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(sources, results, projection, threshold, from, mid),
+                        new BatchTask(sources, results, projection, threshold, mid, to));
+                return;
+            }
+            try {
+                Class<?> checked = null;
+                for (int i = from; i < to; i++) {
+                    Object source = sources.get(i);
+                    if (source == null) {
+                        continue;
+                    }
+                    if (source.getClass() != checked) {
+                        assertCanSerializeFrom(source.getClass());
+                        checked = source.getClass();
+                    }
+                    results[i] = serializeChecked(source, projection);
+                }
+            } catch (SerializerException e) {
+                throw new UncheckedSerializerException(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            compute();
+        }
+    }
+
+    private static int sizeHint(Iterable<?> sources) {
+        return sources instanceof Collection ? ((Collection<?>) sources).size() : 10;
+    }
+
+    private class BatchResults {
+        private final List<T> results = new ArrayList<T>();
+        private Class<?> checked;
+
+        void add(Object source, FieldProjection<T> projection) {
+            try {
+                if (source == null) {
+                    results.add(null);
+                    return;
+                }
+                if (source.getClass() != checked) {
+                    assertCanSerializeFrom(source.getClass());
+                    checked = source.getClass();
+                }
+                results.add(serializeChecked(source, projection));
+            } catch (SerializerException e) {
+                throw new UncheckedSerializerException(e);
+            }
+        }
+
+        BatchResults merge(BatchResults other) {
+            results.addAll(other.results);
+            return this;
+        }
+    }
+
+    /**
+     * Serialize a source object straight to JSON, without building an instance of T or a {@link java.util.Map}.
+     * Sub-serializers are written inline.  The output is the same as <code>new Gson().toJson(serializeToMap(source))</code>.
+     *
+     * @param source source object to serialize
+     * @param out destination of the JSON text.  It is flushed, but not closed.
+     * @param includedFields varargs list of fields to include in the result
+     * @throws SerializerException on failures in mapping from source to type T, or if writing to <code>out</code> fails
+     */
+    public void serializeTo(Object source, Appendable out, String... includedFields) throws SerializerException {
+        serializeTo(source, out, projection(includedFields));
+    }
+
+    /**
+     * Serialize a source object straight to UTF-8 encoded JSON.
+     *
+     * @param source source object to serialize
+     * @param out destination of the JSON bytes.  It is flushed, but not closed.
+     * @param includedFields varargs list of fields to include in the result
+     * @throws SerializerException on failures in mapping from source to type T, or if writing to <code>out</code> fails
+     * @see #serializeTo(Object, Appendable, String...)
+     */
+    public void serializeTo(Object source, OutputStream out, String... includedFields) throws SerializerException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, Charset.forName("UTF-8")));
+        serializeTo(source, writer, projection(includedFields));
+    }
+
+    /**
+     * Serialize a source object as the next value of an existing {@link JsonWriter}.
+     * The writer is not flushed, so this can be used to write a serializer's output inside a larger document.
+     *
+     * @param source source object to serialize
+     * @param out JSON writer positioned where a value is expected
+     * @param includedFields varargs list of fields to include in the result
+     * @throws SerializerException on failures in mapping from source to type T, or if writing to <code>out</code> fails
+     * @see #serializeTo(Object, Appendable, String...)
+     */
+    public void serializeTo(Object source, JsonWriter out, String... includedFields) throws SerializerException {
+        serializeTo(source, out, projection(includedFields));
+    }
+
+    void serializeTo(Object source, Appendable out, FieldProjection<T> projection) throws SerializerException {
+        Metrics metrics = registry.metrics();
+        CountingWriter counter = metrics != null ? new CountingWriter(out) : null;
+        JsonWriter json = JsonUtils.newJsonWriter(counter != null ? counter : out);
+        serializeTo(source, json, projection);
+        try {
+            json.flush();
+        } catch (IOException e) {
+            throw new SerializerException("Could not flush JSON output of '" + resultClass.getName() + "'", e);
+        }
+        if (counter != null) {
+            metrics.listener.written(resultClass, counter.count());
+        }
+    }
+
+    /**
+     * The processor loop of the serialize methods, reporting to the installed {@link MetricsListener}.
+     * Exactly one of <code>target</code> (for objects), <code>map</code> or <code>out</code> receives the fields, as
+     * selected by <code>output</code>.
+     */
+    private void processMeasured(Metrics metrics, MetricsListener.Output output, FieldProjection<T> projection,
+                                 Object source, T target, Map<String, Object> map, JsonWriter out) throws SerializerException {
+        MetricsListener listener = metrics.listener;
+        ValueProcessor[] processors = projection.processors();
+        String[] fields = projection.fieldNames();
+        boolean timed = metrics.sample();
+        long start = timed ? System.nanoTime() : 0;
+        int i = 0;
+        try {
+            for (; i < processors.length; i++) {
+                long fieldStart = timed ? System.nanoTime() : 0;
+                if (output == MetricsListener.Output.OBJECT) {
+                    processors[i].serialize(source, target);
+                } else if (output == MetricsListener.Output.MAP) {
+                    processors[i].serializeToMap(source, target, map);
+                } else {
+                    processors[i].serializeToJson(source, target, out);
+                }
+                if (timed) {
+                    listener.fieldSerialized(resultClass, fields[i], System.nanoTime() - fieldStart);
+                }
+            }
+        } catch (IOException e) {
+            SerializerException failure = new SerializerException("Could not write JSON output of '" + resultClass.getName() + "'", e);
+            listener.failed(resultClass, fields[i], failure);
+            throw failure;
+        } catch (SerializerException e) {
+            listener.failed(resultClass, fields[i], e);
+            throw e;
+        }
+        listener.serialized(resultClass, output, timed ? System.nanoTime() - start : MetricsListener.NOT_TIMED);
+    }
+
+    void serializeTo(Object source, JsonWriter out, FieldProjection<T> projection) throws SerializerException {
+        try {
+            IdentityTracking tracking = source != null ? IdentityTracking.current() : null;
+            if (tracking != null) {
+                Integer id = tracking.writtenId(projection, source);
+                if (id != null) {
+                    out.beginObject().name(IdentityTracking.REF).value(id).endObject();
+                    return;
+                }
+            }
+            out.beginObject();
+            if (source != null) {
+                assertCanSerializeFrom(source.getClass());
+                if (tracking != null) {
+                    out.name(IdentityTracking.ID).value(tracking.assignId(projection, source));
+                }
+
+                T resultObj = projection.needsTarget() ? newInstance() : null;
+
+                Metrics metrics = registry.metrics();
+                if (metrics != null) {
+                    processMeasured(metrics, MetricsListener.Output.JSON, projection, source, resultObj, null, out);
+                } else {
+                    for (ValueProcessor vs : projection.processors()) {
+                        vs.serializeToJson(source, resultObj, out);
+                    }
+                }
+            }
+            out.endObject();
+        } catch (IOException e) {
+            throw new SerializerException("Could not write JSON output of '" + resultClass.getName() + "'", e);
+        }
+    }
+
+    /**
+     * Serialize a source object to a compact binary message, appended to <code>out</code>.
+     *
+     * The message is an 8-byte {@link FieldProjection#fingerprint()} of the field selection followed by the values of the
+     * fields in projection order, without names, so it is only meant to be read back by
+     * {@link #deserializeFromBinary(ByteBuffer, String...)} with the same fields (by this or another process running
+     * the same serializer classes), as in a cache or between services.  Identity tracking and metrics do not apply to
+     * binary output.
+     *
+     * <pre>
+     * BinaryEncoder out = new BinaryEncoder(256);
+     * sap.serializeToBinary(src, out);
+     * TestSerializer copy = sap.deserializeFromBinary(out.toByteBuffer());
+     * </pre>
+     *
+     * @param source source object to serialize
+     * @param out encoder to append to; it can be {@link BinaryEncoder#reset() reset} and reused for the next message
+     * @param includedFields varargs list of fields to include in the result
+     * @throws SerializerException on failures in mapping from source to type T, or if a value has no binary representation
+     * @see BinaryEncoder
+     */
+    public void serializeToBinary(Object source, BinaryEncoder out, String... includedFields) throws SerializerException {
+        projection(includedFields).serializeToBinary(source, out);
+    }
+
+    /**
+     * Read a message written by {@link #serializeToBinary(Object, BinaryEncoder, String...)} into a new instance of type T.
+     * Fields are set the same way {@link #serialize(Object, String...)} sets them; values of plain (not
+     * {@link WithSerializer}) collection and map fields are read as {@link ArrayList}s and {@link LinkedHashMap}s, or
+     * converted to the declared array or set type.
+     *
+     * @param in buffer positioned at the start of the message; its position is advanced past it
+     * @param includedFields the fields the message was written with
+     * @return an instance of the type parameter T, or null if a null source was written
+     * @throws SerializerException if the message was written with other fields or another version of the serializer,
+     * is malformed, or setting a field fails
+     */
+    public T deserializeFromBinary(ByteBuffer in, String... includedFields) throws SerializerException {
+        return projection(includedFields).deserializeFromBinary(in);
+    }
+
+    void writeBinary(Object source, BinaryEncoder out, FieldProjection<T> projection) throws SerializerException {
+        if (source == null) {
+            out.writeNull();
+            return;
+        }
+        assertCanSerializeFrom(source.getClass());
+        T resultObj = projection.needsTarget() ? newInstance() : null;
+        out.beginObject();
+        for (ValueProcessor vs : projection.processors()) {
+            vs.serializeToBinary(source, resultObj, out);
+        }
+    }
+
+    T readBinary(BinaryDecoder in, FieldProjection<T> projection) throws SerializerException {
+        if (!in.beginObject()) {
+            return null;
+        }
+        T resultObj = newInstance();
+        for (ValueProcessor vs : projection.processors()) {
+            vs.deserializeFromBinary(resultObj, in);
+        }
+        return resultObj;
+    }
 }
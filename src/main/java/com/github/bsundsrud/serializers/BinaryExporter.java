@@ -0,0 +1,301 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.DirectBufferPool;
+import com.github.bsundsrud.serializers.util.SerializerException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.Consumer;
+
+/**
+ * Writes large numbers of source objects to a file or channel in the binary format of
+ * {@link AnnotationSerializer#serializeToBinary(Object, BinaryEncoder, String...)}, without building result objects,
+ * maps or strings on the heap.
+ *
+ * Records are encoded straight into a direct buffer borrowed from a {@link DirectBufferPool}.  When it is nearly full,
+ * it is written to the channel, or copied into a {@link MappedByteBuffer} region of the file, and reused.  Heap use
+ * does not depend on the number of records.  A record that does not fit is encoded into a larger direct buffer of its
+ * own, which is written out right after it and then left to the garbage collector; the pooled buffer is used again
+ * from the next record on.
+ *
+ * <pre>
+ * try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+ *      BinaryExporter&lt;TestSerializer&gt; export = BinaryExporter.toChannel(sap.projection(), channel)) {
+ *     export.writeAll(sources);
+ * }
+ * </pre>
+ *
+ * The output is the {@link FieldProjection#fingerprint()} of the projection, one binary object (or null) per record,
+ * and a trailer of the record count and the fingerprint again, which {@link #close()} writes.  It is read back with
+ * {@link #read(FieldProjection, FileChannel, Consumer)}, which rejects an export without the trailer, such as one that
+ * was never closed and still ends in the unwritten part of a mapped region.  Output starts at the
+ * channel's position when the exporter is created.  The channel is not closed or forced, and an exporter is not
+ * thread-safe.
+ *
+ * @param <T> The type of the serializer class
+ */
+public class BinaryExporter<T> implements Closeable {
+    /** Size of the regions of the file mapped at a time by {@link #toMappedFile(FieldProjection, FileChannel)} */
+    public static final long DEFAULT_REGION_SIZE = 64L << 20;
+
+    private final FieldProjection<T> projection;
+    private final WritableByteChannel channel;
+    private final long regionSize;
+    private final DirectBufferPool pool;
+    private final ByteBuffer pooled;
+    private final BinaryEncoder encoder;
+    private final int flushAt;
+    private final long start;
+    private MappedByteBuffer region;
+    private long position;
+    private long count;
+    private boolean closed;
+
+    private BinaryExporter(FieldProjection<T> projection, WritableByteChannel channel, long regionSize, DirectBufferPool pool) throws SerializerException {
+        this.projection = projection;
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.pool = pool;
+        this.pooled = pool.acquire();
+        this.encoder = new BinaryEncoder(pooled);
+        // leave room for a typical record, so most of them are encoded without growing the buffer
+        this.flushAt = pooled.capacity() - pooled.capacity() / 4;
+        try {
+            this.start = channel instanceof FileChannel ? ((FileChannel) channel).position() : 0;
+        } catch (IOException e) {
+            pool.release(pooled);
+            throw new SerializerException("Could not read the position of the export channel", e);
+        }
+        this.position = start;
+        encoder.writeFixed64(projection.fingerprint());
+    }
+
+    /**
+     * Export with {@link WritableByteChannel#write(ByteBuffer)}, using buffers from the default pool
+     *
+     * @param projection fields to write for each record
+     * @param channel destination; written from its current position
+     * @param <T> The type of the serializer class
+     * @return a new exporter
+     * @throws SerializerException if the position of a {@link FileChannel} cannot be read
+     */
+    public static <T> BinaryExporter<T> toChannel(FieldProjection<T> projection, WritableByteChannel channel) throws SerializerException {
+        return new BinaryExporter<T>(projection, channel, 0, DirectBufferPool.getDefault());
+    }
+
+    /**
+     * Export with {@link WritableByteChannel#write(ByteBuffer)}
+     *
+     * @param projection fields to write for each record
+     * @param channel destination; written from its current position
+     * @param pool pool to borrow the encoding buffer from, for the lifetime of the exporter
+     * @param <T> The type of the serializer class
+     * @return a new exporter
+     * @throws SerializerException if the position of a {@link FileChannel} cannot be read
+     */
+    public static <T> BinaryExporter<T> toChannel(FieldProjection<T> projection, WritableByteChannel channel, DirectBufferPool pool) throws SerializerException {
+        return new BinaryExporter<T>(projection, channel, 0, pool);
+    }
+
+    /**
+     * Export into {@link #DEFAULT_REGION_SIZE} regions of a file mapped with {@link FileChannel#map}, using buffers
+     * from the default pool
+     *
+     * @param projection fields to write for each record
+     * @param channel destination, opened for reading and writing; written from its current position
+     * @param <T> The type of the serializer class
+     * @return a new exporter
+     * @throws SerializerException if the position of the channel cannot be read
+     */
+    public static <T> BinaryExporter<T> toMappedFile(FieldProjection<T> projection, FileChannel channel) throws SerializerException {
+        return toMappedFile(projection, channel, DEFAULT_REGION_SIZE, DirectBufferPool.getDefault());
+    }
+
+    /**
+     * Export into regions of a file mapped with {@link FileChannel#map}.  The file is extended a region at a time, and
+     * truncated to the written size by {@link #close()}.  Mapped regions are released by the garbage collector.
+     *
+     * @param projection fields to write for each record
+     * @param channel destination, opened for reading and writing; written from its current position
+     * @param regionSize bytes to map at a time
+     * @param pool pool to borrow the encoding buffer from, for the lifetime of the exporter
+     * @param <T> The type of the serializer class
+     * @return a new exporter
+     * @throws SerializerException if the position of the channel cannot be read
+     */
+    public static <T> BinaryExporter<T> toMappedFile(FieldProjection<T> projection, FileChannel channel, long regionSize,
+                                                     DirectBufferPool pool) throws SerializerException {
+        if (regionSize <= 0 || regionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid region size " + regionSize);
+        }
+        return new BinaryExporter<T>(projection, channel, regionSize, pool);
+    }
+
+    /**
+     * Serialize one record.  If it fails, nothing of it is written, and the export can go on with the next record.
+     *
+     * @param source source object to serialize, or null
+     * @throws SerializerException on failures in mapping from source to type T, or if writing to the channel fails
+     */
+    public void write(Object source) throws SerializerException {
+        if (closed) {
+            throw new SerializerException("Export of '" + projection.getSerializer().getResultClass().getName() + "' is closed");
+        }
+        int mark = encoder.size();
+        try {
+            projection.writeBinary(source, encoder);
+        } catch (SerializerException e) {
+            encoder.truncate(mark);
+            throw e;
+        }
+        count++;
+        if (encoder.size() >= flushAt) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new SerializerException("Could not write export of '" + projection.getSerializer().getResultClass().getName() + "'", e);
+            }
+        }
+    }
+
+    /**
+     * Serialize a batch of records.  Sources are read one at a time, so they can be produced lazily.
+     *
+     * @param sources source objects to serialize
+     * @return number of records written
+     * @throws SerializerException on failures in mapping from source to type T, or if writing to the channel fails
+     */
+    public long writeAll(Iterable<?> sources) throws SerializerException {
+        long before = count;
+        for (Object source : sources) {
+            write(source);
+        }
+        return count - before;
+    }
+
+    /**
+     * @return number of records written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return number of bytes written so far, including those still buffered
+     */
+    public long getSize() {
+        return position - start + encoder.size();
+    }
+
+    private void flush() throws IOException {
+        ByteBuffer bytes = encoder.toByteBuffer();
+        if (regionSize > 0) {
+            FileChannel file = (FileChannel) channel;
+            while (bytes.hasRemaining()) {
+                if (region == null || !region.hasRemaining()) {
+                    region = file.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+                }
+                // direct to mapped memory, so the bytes never pass through the heap
+                int n = Math.min(region.remaining(), bytes.remaining());
+                ByteBuffer chunk = bytes.duplicate();
+                chunk.limit(chunk.position() + n);
+                region.put(chunk);
+                bytes.position(bytes.position() + n);
+                position += n;
+            }
+        } else {
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes);
+            }
+        }
+        // a record larger than the pooled buffer grew the encoder into a new one; drop that and go back
+        encoder.reset(pooled);
+    }
+
+    /**
+     * Write the buffered records and the trailer, truncate a mapped file to the written size, and return the buffer to
+     * the pool.  The channel is left open.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            encoder.writeFixed64(count);
+            encoder.writeFixed64(projection.fingerprint());
+            flush();
+            if (regionSize > 0) {
+                region = null;
+                FileChannel file = (FileChannel) channel;
+                file.truncate(position);
+                file.position(position);
+            }
+        } finally {
+            pool.release(pooled);
+        }
+    }
+
+    /**
+     * Read the records of an export
+     *
+     * @param projection fields the export was written with
+     * @param channel file holding the export, from its current position to its end; the file is mapped, so it must be
+     *                smaller than 2 GB
+     * @param consumer receives each record, in order
+     * @param <T> The type of the serializer class
+     * @return number of records read
+     * @throws SerializerException if the export was written with another projection, was not closed, is malformed, or
+     *                             cannot be read
+     */
+    public static <T> long read(FieldProjection<T> projection, FileChannel channel, Consumer<? super T> consumer) throws SerializerException {
+        ByteBuffer in;
+        try {
+            long start = channel.position();
+            long size = channel.size() - start;
+            if (size > Integer.MAX_VALUE) {
+                throw new SerializerException("Export of " + size + " bytes is too large to map");
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        } catch (IOException e) {
+            throw new SerializerException("Could not read export of '" + projection.getSerializer().getResultClass().getName() + "'", e);
+        }
+        String name = projection.getSerializer().getResultClass().getName();
+        BinaryDecoder decoder = new BinaryDecoder(in);
+        long written = decoder.readFixed64();
+        if (written != projection.fingerprint()) {
+            throw new SerializerException("Export of '" + name + "' was written with fingerprint " + Long.toHexString(written)
+                    + ", expected " + Long.toHexString(projection.fingerprint()));
+        }
+        // the trailer is checked first, so the records of an incomplete export are never handed out
+        if (in.remaining() < 16) {
+            throw new SerializerException("Export of '" + name + "' is incomplete; it has no trailer");
+        }
+        ByteBuffer trailer = in.duplicate();
+        trailer.position(in.limit() - 16);
+        BinaryDecoder trailerDecoder = new BinaryDecoder(trailer);
+        long expected = trailerDecoder.readFixed64();
+        if (trailerDecoder.readFixed64() != projection.fingerprint() || expected < 0) {
+            throw new SerializerException("Export of '" + name + "' is incomplete; it has no trailer");
+        }
+        in.limit(in.limit() - 16);
+        long count = 0;
+        while (in.hasRemaining()) {
+            consumer.accept(projection.readBinary(decoder));
+            count++;
+        }
+        if (count != expected) {
+            throw new SerializerException("Export of '" + name + "' has " + count + " records, expected " + expected);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.bsundsrud.serializers;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Counts the characters passed on to an {@link Appendable}, for {@link MetricsListener#written(Class, long)}
+ */
+final class CountingWriter extends Writer {
+    private final Appendable out;
+    private final Writer writer;
+    private long count;
+
+    CountingWriter(Appendable out) {
+        this.out = out;
+        this.writer = out instanceof Writer ? (Writer) out : null;
+    }
+
+    long count() {
+        return count;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (writer != null) {
+            writer.write(cbuf, off, len);
+        } else {
+            out.append(CharBuffer.wrap(cbuf, off, len));
+        }
+        count += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (writer != null) {
+            writer.write(str, off, len);
+        } else {
+            out.append(str, off, off + len);
+        }
+        count += len;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        out.append((char) c);
+        count++;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
@@ -0,0 +1,284 @@
+package com.github.bsundsrud.serializers;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The {@link Map} returned by <code>serializeToMap</code>.
+ *
+ * Keys live in a sorted array shared by every map produced through the same {@link FieldProjection}, so each result only
+ * holds an array of values.  Iteration is in key order, as it was with the {@link java.util.TreeMap} this replaces.
+ *
+ * The map is fully mutable.  Removing a key or replacing a value keeps the shared keys; adding a key that is not part of
+ * the projection gives this map its own copy of the key array first.
+ *
+ * Like the {@link java.util.TreeMap} it can be cloned and serialized; it is serialized as a <code>TreeMap</code> with
+ * the same entries, so the shared keys are not written and readers do not need this class.
+ */
+final class FieldMap extends AbstractMap<String, Object> implements Cloneable, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Object ABSENT = new Object();
+
+    private String[] keys;
+    private Object[] values;
+    private boolean sharedKeys;
+    private int size;
+    // index after the last put, so processors putting in key order skip the search
+    private int cursor;
+    private int modCount;
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * @param keys sorted field names, shared and never modified
+     */
+    FieldMap(String[] keys) {
+        this.keys = keys;
+        this.values = new Object[keys.length];
+        this.sharedKeys = true;
+        Arrays.fill(values, ABSENT);
+    }
+
+    private int indexOf(Object key) {
+        if (cursor < keys.length && keys[cursor] == key) {
+            return cursor;
+        }
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        return Arrays.binarySearch(keys, (String) key);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int i = indexOf(key);
+        return i >= 0 && values[i] != ABSENT;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object value = values[i];
+        return value == ABSENT ? null : value;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (key == null) {
+            throw new NullPointerException("null key");
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            i = insert(-(i + 1), key);
+        }
+        cursor = i + 1;
+        Object old = values[i];
+        values[i] = value;
+        if (old == ABSENT) {
+            size++;
+            modCount++;
+            return null;
+        }
+        return old;
+    }
+
+    private int insert(int at, String key) {
+        String[] newKeys = new String[keys.length + 1];
+        Object[] newValues = new Object[values.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, at);
+        System.arraycopy(values, 0, newValues, 0, at);
+        newKeys[at] = key;
+        newValues[at] = ABSENT;
+        System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+        System.arraycopy(values, at, newValues, at + 1, values.length - at);
+        keys = newKeys;
+        values = newValues;
+        sharedKeys = false;
+        modCount++;
+        return at;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0 || values[i] == ABSENT) {
+            return null;
+        }
+        return removeAt(i);
+    }
+
+    private Object removeAt(int i) {
+        Object old = values[i];
+        values[i] = ABSENT;
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, ABSENT);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return a shallow copy; it shares the key array until either map adds a key
+     */
+    @Override
+    public FieldMap clone() {
+        FieldMap copy;
+        try {
+            copy = (FieldMap) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        copy.values = values.clone();
+        copy.entrySet = null;
+        copy.modCount = 0;
+        return copy;
+    }
+
+    private Object writeReplace() {
+        return new TreeMap<String, Object>(this);
+    }
+
+    /**
+     * @return whether this map still uses the key array of its projection
+     */
+    boolean hasSharedKeys() {
+        return sharedKeys;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    FieldMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == ABSENT) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new Entry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            expectedModCount = modCount;
+            last = -1;
+        }
+    }
+
+    private final class Entry implements Map.Entry<String, Object> {
+        private final String key;
+
+        Entry(int index) {
+            this.key = keys[index];
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return get(key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            int i = indexOf(key);
+            if (i < 0 || values[i] == ABSENT) {
+                throw new IllegalStateException("Entry was removed");
+            }
+            Object old = values[i];
+            values[i] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object value = getValue();
+            return key.equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.bsundsrud.serializers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * One resolved mapping of a serializer class: where a target field's value comes from and how it is set.
+ * Produced by scanning the serializer class, and turned into a {@link com.github.bsundsrud.serializers.processors.ValueProcessor}
+ * by {@link AnnotationSerializer}.
+ */
+final class FieldMapping {
+    enum Kind {
+        /** a getter copied to a setter or field */
+        VALUE,
+        /** a getter run through a nested serializer */
+        CHAINED,
+        /** a combinator on the target called with the values of several getters */
+        SYNTHESIZED
+    }
+
+    final Kind kind;
+    final String targetField;
+    /** getter on the source class, for VALUE and CHAINED */
+    final Method getter;
+    /** setter on the target class, or null */
+    final Method setter;
+    /** public field on the target class when there is no setter, or null */
+    final Field field;
+    /** combinator and its input getters, for SYNTHESIZED */
+    final Method combinator;
+    final List<Method> inputs;
+    /** nested serializer class and its fields, for CHAINED */
+    final Class<?> nested;
+    final String[] nestedFields;
+
+    private FieldMapping(Kind kind, String targetField, Method getter, Method setter, Field field, Method combinator,
+                         List<Method> inputs, Class<?> nested, String[] nestedFields) {
+        this.kind = kind;
+        this.targetField = targetField;
+        this.getter = getter;
+        this.setter = setter;
+        this.field = field;
+        this.combinator = combinator;
+        this.inputs = inputs;
+        this.nested = nested;
+        this.nestedFields = nestedFields;
+    }
+
+    static FieldMapping value(String targetField, Method getter, Method setter, Field field) {
+        return new FieldMapping(Kind.VALUE, targetField, getter, setter, field, null, null, null, null);
+    }
+
+    static FieldMapping chained(String targetField, Method getter, Method setter, Field field, Class<?> nested, String[] nestedFields) {
+        return new FieldMapping(Kind.CHAINED, targetField, getter, setter, field, null, null, nested, nestedFields);
+    }
+
+    static FieldMapping synthesized(String targetField, Method combinator, List<Method> inputs, Method setter, Field field) {
+        return new FieldMapping(Kind.SYNTHESIZED, targetField, null, setter, field, combinator, inputs, null, null);
+    }
+
+    /**
+     * @return declared type of the setter parameter or field the value is written to
+     */
+    Class<?> targetType() {
+        return setter != null ? setter.getParameterTypes()[0] : field.getType();
+    }
+}
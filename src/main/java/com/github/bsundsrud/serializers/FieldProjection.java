@@ -0,0 +1,295 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.ChainedCollectionProcessor;
+import com.github.bsundsrud.serializers.processors.ChainedProcessor;
+import com.github.bsundsrud.serializers.processors.ValueProcessor;
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.github.bsundsrud.serializers.util.SerializerUtils;
+import com.google.gson.stream.JsonWriter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A precompiled selection of fields for an {@link AnnotationSerializer}.
+ *
+ * Holds the {@link ValueProcessor}s of the selected fields in field name order, so serializing through a projection only
+ * touches the fields that are actually emitted.  Projections are immutable and can be kept and reused across threads.
+ *
+ * <pre>
+ * FieldProjection&lt;TestSerializer&gt; summary = sap.projection("docId", "date");
+ * TestSerializer out = summary.serialize(src);
+ * </pre>
+ *
+ * @param <T> The type of the serializer class
+ */
+public class FieldProjection<T> {
+    private final AnnotationSerializer<T> serializer;
+    private final String[] fields;
+    private final ValueProcessor[] processors;
+    private final boolean needsTarget;
+    private volatile Long fingerprint;
+
+    FieldProjection(AnnotationSerializer<T> serializer, String[] fields, ValueProcessor[] processors) {
+        this.serializer = serializer;
+        this.fields = fields;
+        this.processors = processors;
+        boolean needsTarget = false;
+        for (ValueProcessor processor : processors) {
+            needsTarget |= processor.needsTarget();
+        }
+        this.needsTarget = needsTarget;
+    }
+
+    /**
+     * @return the serializer this projection was compiled from
+     */
+    public AnnotationSerializer<T> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * @return names of the fields this projection emits, in the order they are processed
+     */
+    public List<String> getFields() {
+        return Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    String[] fieldNames() {
+        return fields;
+    }
+
+    ValueProcessor[] processors() {
+        return processors;
+    }
+
+    /**
+     * @return whether serializing to a map or JSON needs an instance of T, because a processor calls a method on it
+     */
+    boolean needsTarget() {
+        return needsTarget;
+    }
+
+    /**
+     * Serialize a source object to an instance of type T, setting only the fields of this projection
+     *
+     * @param source Source object to serialize
+     * @return an instance of the type parameter T
+     * @throws SerializerException on failures in mapping from source to T
+     */
+    public T serialize(Object source) throws SerializerException {
+        return serializer.serialize(source, this);
+    }
+
+    /**
+     * Serialize a source object to a {@link java.util.Map}, containing only the fields of this projection
+     *
+     * @param source source object to serialize
+     * @return {@link java.util.Map} of the serialization result
+     * @throws SerializerException on failures in mapping from source to type T
+     */
+    public Map<String, Object> serializeToMap(Object source) throws SerializerException {
+        return serializer.serializeToMap(source, this);
+    }
+
+    /**
+     * Serialize a source object to a lazy {@link java.util.Map}, containing only the fields of this projection
+     *
+     * @param source source object to serialize
+     * @return lazy {@link java.util.Map} of the serialization result
+     * @throws SerializerException if <code>source</code> is not of the serializer's source class, or the target cannot be created
+     * @see AnnotationSerializer#serializeToLazyMap(Object, String...)
+     */
+    public Map<String, Object> serializeToLazyMap(Object source) throws SerializerException {
+        return serializer.serializeToLazyMap(source, this);
+    }
+
+    /**
+     * Serialize a source object straight to JSON, containing only the fields of this projection
+     *
+     * @param source source object to serialize
+     * @param out destination of the JSON text.  It is flushed, but not closed.
+     * @throws SerializerException on failures in mapping from source to type T, or if writing to <code>out</code> fails
+     * @see AnnotationSerializer#serializeTo(Object, Appendable, String...)
+     */
+    public void serializeTo(Object source, Appendable out) throws SerializerException {
+        serializer.serializeTo(source, out, this);
+    }
+
+    /**
+     * Serialize a source object as the next value of an existing {@link JsonWriter}, containing only the fields of this projection
+     *
+     * @param source source object to serialize
+     * @param out JSON writer positioned where a value is expected
+     * @throws SerializerException on failures in mapping from source to type T, or if writing to <code>out</code> fails
+     * @see AnnotationSerializer#serializeTo(Object, JsonWriter, String...)
+     */
+    public void serializeTo(Object source, JsonWriter out) throws SerializerException {
+        serializer.serializeTo(source, out, this);
+    }
+
+    /**
+     * Serialize a batch of source objects into the given collection, setting only the fields of this projection
+     *
+     * @param sources source objects to serialize
+     * @param results collection to add the results to
+     * @param <C> type of the result collection
+     * @return <code>results</code>
+     * @throws SerializerException on failures in mapping from source to T
+     * @see AnnotationSerializer#serializeAll(Iterable, Collection, String...)
+     */
+    public <C extends Collection<? super T>> C serializeAll(Iterable<?> sources, C results) throws SerializerException {
+        return serializer.serializeAll(sources, results, this);
+    }
+
+    /**
+     * Serialize a batch of source objects to {@link java.util.Map}s, containing only the fields of this projection
+     *
+     * @param sources source objects to serialize
+     * @return a list of result maps in the order of <code>sources</code>
+     * @throws SerializerException on failures in mapping from source to type T
+     * @see AnnotationSerializer#serializeAllToMaps(Iterable, String...)
+     */
+    public List<Map<String, Object>> serializeAllToMaps(Iterable<?> sources) throws SerializerException {
+        return serializer.serializeAllToMaps(sources, this);
+    }
+
+    /**
+     * Serialize a source object to the compact binary format, preceded by the {@link #fingerprint()} of this projection
+     *
+     * @param source source object to serialize
+     * @param out encoder to append to
+     * @throws SerializerException on failures in mapping from source to type T, or if a value has no binary representation
+     * @see AnnotationSerializer#serializeToBinary(Object, BinaryEncoder, String...)
+     */
+    public void serializeToBinary(Object source, BinaryEncoder out) throws SerializerException {
+        out.writeFixed64(fingerprint());
+        writeBinary(source, out);
+    }
+
+    /**
+     * Read an instance of type T written by {@link #serializeToBinary(Object, BinaryEncoder)} with the same projection
+     *
+     * @param in buffer positioned at the start of the message; its position is advanced past it
+     * @return an instance of the type parameter T, or null if a null source was written
+     * @throws SerializerException if the message was written with a different projection or schema, or is malformed
+     * @see AnnotationSerializer#deserializeFromBinary(ByteBuffer, String...)
+     */
+    public T deserializeFromBinary(ByteBuffer in) throws SerializerException {
+        BinaryDecoder decoder = new BinaryDecoder(in);
+        long written = decoder.readFixed64();
+        if (written != fingerprint()) {
+            throw new SerializerException("Binary input of '" + serializer.getResultClass().getName() + "' was written with fingerprint "
+                    + Long.toHexString(written) + ", expected " + Long.toHexString(fingerprint()));
+        }
+        return readBinary(decoder);
+    }
+
+    /**
+     * Write a source object as a binary value, without a fingerprint.  Used by processors for sub-objects.
+     *
+     * @param source source object to serialize, or null
+     * @param out encoder positioned where a value is expected
+     * @throws SerializerException on failures in mapping from source to type T, or if a value has no binary representation
+     */
+    public void writeBinary(Object source, BinaryEncoder out) throws SerializerException {
+        serializer.writeBinary(source, out, this);
+    }
+
+    /**
+     * Read a binary value written by {@link #writeBinary(Object, BinaryEncoder)}.  Used by processors for sub-objects.
+     *
+     * @param in decoder positioned at the value
+     * @return an instance of the type parameter T, or null
+     * @throws SerializerException if the input is malformed, or creating the instance or setting a field fails
+     */
+    public T readBinary(BinaryDecoder in) throws SerializerException {
+        return serializer.readBinary(in, this);
+    }
+
+    /**
+     * A hash of the binary schema of this projection: the serializer class, and the name, declared type and kind of each
+     * field in order, including those of sub-serializers.  Binary output is only read back by projections with the same fingerprint.
+     *
+     * @return the 64-bit FNV-1a fingerprint
+     */
+    public long fingerprint() {
+        Long value = fingerprint;
+        if (value == null) {
+            value = fingerprint(Collections.newSetFromMap(new IdentityHashMap<FieldProjection<?>, Boolean>()));
+            fingerprint = value;
+        }
+        return value;
+    }
+
+    private long fingerprint(Set<FieldProjection<?>> visiting) {
+        long hash = fnv(0xcbf29ce484222325L, serializer.getResultClass().getName());
+        if (!visiting.add(this)) {
+            // a recursive serializer; its class name stands in for its fields
+            return hash;
+        }
+        for (int i = 0; i < processors.length; i++) {
+            hash = fnv(hash, fields[i]);
+            hash = fnv(hash, targetType(serializer.getResultClass(), fields[i]));
+            FieldProjection<?> nested = null;
+            ValueProcessor processor = processors[i];
+            if (processor instanceof NestedProjectionProcessor) {
+                nested = ((NestedProjectionProcessor) processor).nested();
+                processor = ((NestedProjectionProcessor) processor).delegate();
+            } else if (processor instanceof ChainedProcessor) {
+                nested = ((ChainedProcessor) processor).getSerializer().projection();
+            }
+            if (nested != null) {
+                hash = fnv(hash, processor instanceof ChainedCollectionProcessor ? "[" : "{");
+                hash = (hash ^ nested.fingerprint(visiting)) * 0x100000001b3L;
+            }
+        }
+        visiting.remove(this);
+        return hash;
+    }
+
+    /**
+     * The declared type a field's value is written to: the parameter of its setter, or else the field itself.  Resolved
+     * from the serializer class rather than the processor, so reflective and generated mappings agree.
+     */
+    private static String targetType(Class<?> resultClass, String name) {
+        String setter = SerializerUtils.fieldToSetter(name);
+        for (Class<?> cls = resultClass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            // sorted, so overloads give the same result in any declaration order
+            Set<String> types = new TreeSet<String>();
+            for (Method method : cls.getDeclaredMethods()) {
+                if (method.getName().equals(setter) && method.getParameterCount() == 1 && !method.isSynthetic()) {
+                    types.add(method.getGenericParameterTypes()[0].getTypeName());
+                }
+            }
+            if (!types.isEmpty()) {
+                return types.toString();
+            }
+            for (Field field : cls.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return field.getGenericType().getTypeName();
+                }
+            }
+        }
+        return "";
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        // separator, so "ab","c" and "a","bc" differ
+        return (hash ^ 0xFFFF) * 0x100000001b3L;
+    }
+}
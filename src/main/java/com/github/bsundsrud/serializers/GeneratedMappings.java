@@ -0,0 +1,39 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.ValueProcessor;
+import com.github.bsundsrud.serializers.util.SerializerException;
+
+import java.util.Map;
+
+/**
+ * Field mappings of a serializer class, generated at compile time for classes annotated with
+ * {@link com.github.bsundsrud.serializers.annotations.Precompiled}.
+ *
+ * The generated class lives in the package of the serializer class and is named after it: the nested class names joined
+ * with <code>_</code>, followed by {@link #SUFFIX} (<code>Outer.Inner</code> becomes <code>Outer_InnerMappings</code>).
+ * When {@link AnnotationSerializer} finds one it uses it instead of scanning the serializer class with reflection.
+ *
+ * @param <T> The type of the serializer class
+ */
+public interface GeneratedMappings<T> {
+    /**
+     * Suffix appended to the serializer's name to form the name of its generated mappings class
+     */
+    String SUFFIX = "Mappings";
+
+    /**
+     * @return a new, empty instance of the serializer class
+     * @throws Exception anything thrown by the constructor
+     */
+    T newInstance() throws Exception;
+
+    /**
+     * Create the processors of every mapped field, keyed by target field name.
+     *
+     * @param registry registry to resolve nested serializers through
+     * @param engine engine nested serializers are built with if they have no generated mappings of their own
+     * @return a new, mutable map of processors
+     * @throws SerializerException if a nested serializer cannot be built
+     */
+    Map<String, ValueProcessor> createProcessors(SerializerRegistry registry, AccessorEngine engine) throws SerializerException;
+}
@@ -0,0 +1,129 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Opt-in identity tracking for object graphs with shared or cyclic references.
+ *
+ * While a tracked call runs on the current thread, every serializer remembers the source objects it has already
+ * handled with a given field selection, and on seeing one again emits a reference instead of serializing it twice:
+ * <ul>
+ *     <li><code>serialize</code> returns the same target instance, so the result graph has the shape of the source graph</li>
+ *     <li><code>serializeToMap</code> returns the same map instance</li>
+ *     <li>JSON output writes <code>{"$ref": n}</code>; every tracked object is written with a leading <code>"$id": n</code> member</li>
+ * </ul>
+ * Without tracking, shared objects are serialized once per reference and cyclic graphs recurse until the stack overflows.
+ * Maps produced from a cyclic graph are cyclic themselves, so write them out with the streaming JSON methods rather than Gson.
+ *
+ * <pre>
+ * TreeNodeSerializer root = IdentityTracking.track(() -&gt; sap.serialize(node));
+ * </pre>
+ *
+ * Tracking is bound to the calling thread; work handed to other threads, as in
+ * {@link AnnotationSerializer#serializeAllParallel(java.util.List, java.util.concurrent.ExecutorService, String...)}, is not tracked.
+ */
+public final class IdentityTracking {
+    /**
+     * Name of the JSON member holding the id of a tracked object
+     */
+    public static final String ID = "$id";
+
+    /**
+     * Name of the JSON member referring back to a tracked object's id
+     */
+    public static final String REF = "$ref";
+
+    private static final ThreadLocal<IdentityTracking> CURRENT = new ThreadLocal<IdentityTracking>();
+
+    private final Map<FieldProjection<?>, IdentityHashMap<Object, Object>> targets = new HashMap<FieldProjection<?>, IdentityHashMap<Object, Object>>();
+    private final Map<FieldProjection<?>, IdentityHashMap<Object, Object>> maps = new HashMap<FieldProjection<?>, IdentityHashMap<Object, Object>>();
+    private final Map<FieldProjection<?>, IdentityHashMap<Object, Object>> jsonIds = new HashMap<FieldProjection<?>, IdentityHashMap<Object, Object>>();
+    private int nextId = 1;
+
+    private IdentityTracking() {
+    }
+
+    /**
+     * A serializer call that may throw {@link SerializerException}
+     *
+     * @param <R> result type
+     */
+    @FunctionalInterface
+    public interface Call<R> {
+        /**
+         * @return the result of the call
+         * @throws SerializerException on failures in serialization
+         */
+        R call() throws SerializerException;
+    }
+
+    /**
+     * Run a call with identity tracking.  Nested calls join the tracking scope of the outermost one.
+     *
+     * @param call serializer call to run
+     * @param <R> result type
+     * @return the result of <code>call</code>
+     * @throws SerializerException if <code>call</code> throws it
+     */
+    public static <R> R track(Call<R> call) throws SerializerException {
+        if (CURRENT.get() != null) {
+            return call.call();
+        }
+        CURRENT.set(new IdentityTracking());
+        try {
+            return call.call();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * @return whether the current thread is inside {@link #track(Call)}
+     */
+    public static boolean isTracking() {
+        return CURRENT.get() != null;
+    }
+
+    static IdentityTracking current() {
+        return CURRENT.get();
+    }
+
+    Object target(FieldProjection<?> projection, Object source) {
+        return table(targets, projection).get(source);
+    }
+
+    void rememberTarget(FieldProjection<?> projection, Object source, Object target) {
+        table(targets, projection).put(source, target);
+    }
+
+    Object map(FieldProjection<?> projection, Object source) {
+        return table(maps, projection).get(source);
+    }
+
+    void rememberMap(FieldProjection<?> projection, Object source, Map<String, Object> map) {
+        table(maps, projection).put(source, map);
+    }
+
+    Integer writtenId(FieldProjection<?> projection, Object source) {
+        return (Integer) table(jsonIds, projection).get(source);
+    }
+
+    int assignId(FieldProjection<?> projection, Object source) {
+        int id = nextId++;
+        table(jsonIds, projection).put(source, id);
+        return id;
+    }
+
+    private static IdentityHashMap<Object, Object> table(Map<FieldProjection<?>, IdentityHashMap<Object, Object>> tables, FieldProjection<?> projection) {
+        IdentityHashMap<Object, Object> table = tables.get(projection);
+        if (table == null) {
+            table = new IdentityHashMap<Object, Object>();
+            tables.put(projection, table);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.ValueProcessor;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.github.bsundsrud.serializers.util.UncheckedSerializerException;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The read-only {@link Map} returned by <code>serializeToLazyMap</code>.
+ *
+ * Every key of the projection is present from the start, but a field's processor only runs when its value is first
+ * read, by {@link #get(Object)}, by {@link Map.Entry#getValue()} of an entry, or by anything built on them
+ * (<code>equals</code>, <code>toString</code>, Gson).  Listing the keys, through {@link #keySet()} or the entries, runs
+ * nothing.  The value is then kept.  Processors put their values through
+ * {@link ValueProcessor#serializeToLazyMap(Object, Object, Map)}, so sub-serializers produce lazy maps as well.
+ *
+ * Failures surface as {@link UncheckedSerializerException} from the read that triggered them, and the field is tried
+ * again on the next read.  Like the maps of <code>serializeToMap</code>, these maps are not thread-safe.
+ */
+final class LazyFieldMap extends AbstractMap<String, Object> {
+    private final Object source;
+    private final Object target;
+    private final String[] keys;
+    private final ValueProcessor[] processors;
+    private final FieldMap values;
+    private final boolean[] evaluated;
+    private Set<String> keySet;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * @param source source object, read when a field is first needed
+     * @param target target instance for processors that need one, or null
+     * @param projection fields to serialize
+     */
+    LazyFieldMap(Object source, Object target, FieldProjection<?> projection) {
+        this.source = source;
+        this.target = target;
+        this.keys = projection.fieldNames();
+        this.processors = projection.processors();
+        this.values = new FieldMap(keys);
+        this.evaluated = new boolean[processors.length];
+    }
+
+    private Object valueAt(int i) {
+        if (!evaluated[i]) {
+            try {
+                processors[i].serializeToLazyMap(source, target, values);
+            } catch (SerializerException e) {
+                throw new UncheckedSerializerException(e);
+            }
+            evaluated[i] = true;
+        }
+        return values.get(keys[i]);
+    }
+
+    @Override
+    public int size() {
+        return processors.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && Arrays.binarySearch(keys, (String) key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int i = Arrays.binarySearch(keys, (String) key);
+        return i < 0 ? null : valueAt(i);
+    }
+
+    /**
+     * @param key field name
+     * @return whether the value of <code>key</code> has been computed
+     */
+    boolean isEvaluated(String key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 && evaluated[i];
+    }
+
+    @Override
+    public Set<String> keySet() {
+        if (keySet == null) {
+            // the keys are fixed, so listing them never runs a processor
+            keySet = new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return Collections.unmodifiableList(Arrays.asList(keys)).iterator();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+        return keySet;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<Map.Entry<String, Object>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < processors.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if (next >= processors.length) {
+                                throw new NoSuchElementException();
+                            }
+                            return new LazyEntry(next++);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return processors.length;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Entry whose value is computed when it is first read
+     */
+    private final class LazyEntry implements Map.Entry<String, Object> {
+        private final int index;
+
+        LazyEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return keys[index];
+        }
+
+        @Override
+        public Object getValue() {
+            return valueAt(index);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.bsundsrud.serializers;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link MetricsListener} installed on a registry, with its sampling rate
+ */
+final class Metrics {
+    final MetricsListener listener;
+    private final int sampleEvery;
+
+    Metrics(MetricsListener listener, int sampleEvery) {
+        this.listener = listener;
+        this.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * @return whether the current call should be timed
+     */
+    boolean sample() {
+        return sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0;
+    }
+}
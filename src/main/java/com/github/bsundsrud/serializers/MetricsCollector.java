@@ -0,0 +1,309 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsListener} that aggregates calls, latency percentiles, failures and output size per serializer class,
+ * and time and failures per field.
+ *
+ * <pre>
+ * MetricsCollector metrics = new MetricsCollector();
+ * SerializerRegistry.getDefault().setMetricsListener(metrics, 100);
+ * metrics.logPeriodically(scheduler, 1, TimeUnit.MINUTES);
+ * </pre>
+ *
+ * Percentiles come from a histogram with four buckets per power of two, so they are accurate to within 25%.
+ */
+public class MetricsCollector implements MetricsListener {
+    private static final Logger log = LoggerFactory.getLogger(MetricsCollector.class);
+
+    private final ConcurrentMap<Class<?>, Stats> stats = new ConcurrentHashMap<Class<?>, Stats>();
+
+    @Override
+    public void serialized(Class<?> serializer, Output output, long nanos) {
+        Stats s = statsFor(serializer);
+        s.calls.increment();
+        if (nanos != NOT_TIMED) {
+            s.timedCalls.increment();
+            s.totalNanos.add(nanos);
+            s.latency.record(nanos);
+        }
+    }
+
+    @Override
+    public void fieldSerialized(Class<?> serializer, String field, long nanos) {
+        statsFor(serializer).field(field).nanos.add(nanos);
+    }
+
+    @Override
+    public void failed(Class<?> serializer, String field, SerializerException e) {
+        Stats s = statsFor(serializer);
+        s.failures.increment();
+        s.field(field).failures.increment();
+    }
+
+    @Override
+    public void written(Class<?> serializer, long chars) {
+        statsFor(serializer).charsWritten.add(chars);
+    }
+
+    private Stats statsFor(Class<?> serializer) {
+        Stats s = stats.get(serializer);
+        if (s == null) {
+            Stats created = new Stats(serializer);
+            s = stats.putIfAbsent(serializer, created);
+            if (s == null) {
+                s = created;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * @param serializer serializer class
+     * @return the statistics of that serializer, or null if it has not reported anything
+     */
+    public Stats stats(Class<?> serializer) {
+        return stats.get(serializer);
+    }
+
+    /**
+     * @return statistics of all serializers that have reported, by descending total measured time
+     */
+    public List<Stats> allStats() {
+        List<Stats> all = new ArrayList<Stats>(stats.values());
+        Collections.sort(all, new Comparator<Stats>() {
+            @Override
+            public int compare(Stats a, Stats b) {
+                return Long.compare(b.getTotalNanos(), a.getTotalNanos());
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Forget everything collected so far
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * @return a human readable summary, one line per serializer and one per field
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder("Serializer metrics");
+        for (Stats s : allStats()) {
+            sb.append(String.format("%n  %s: calls=%d timed=%d total=%.3fms p50=%dns p90=%dns p99=%dns failures=%d chars=%d",
+                    s.getSerializer().getName(), s.getCalls(), s.getTimedCalls(), s.getTotalNanos() / 1e6,
+                    s.getPercentileNanos(50), s.getPercentileNanos(90), s.getPercentileNanos(99),
+                    s.getFailures(), s.getCharsWritten()));
+            for (String field : s.getFields()) {
+                sb.append(String.format("%n    %s: total=%.3fms failures=%d",
+                        field, s.getFieldNanos(field) / 1e6, s.getFieldFailures(field)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Log {@link #report()} at INFO level at a fixed rate
+     *
+     * @param scheduler executor to run the logging on
+     * @param period time between reports
+     * @param unit unit of <code>period</code>
+     * @return the scheduled task, to cancel the logging
+     */
+    public ScheduledFuture<?> logPeriodically(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        return scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                if (log.isInfoEnabled()) {
+                    log.info(report());
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Statistics of one serializer class.  Values are read live, so they may change between calls.
+     */
+    public static final class Stats {
+        private final Class<?> serializer;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder timedCalls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder charsWritten = new LongAdder();
+        private final Histogram latency = new Histogram();
+        private final ConcurrentMap<String, FieldStats> fields = new ConcurrentHashMap<String, FieldStats>();
+
+        private Stats(Class<?> serializer) {
+            this.serializer = serializer;
+        }
+
+        private FieldStats field(String name) {
+            FieldStats f = fields.get(name);
+            if (f == null) {
+                FieldStats created = new FieldStats();
+                f = fields.putIfAbsent(name, created);
+                if (f == null) {
+                    f = created;
+                }
+            }
+            return f;
+        }
+
+        /**
+         * @return the serializer class
+         */
+        public Class<?> getSerializer() {
+            return serializer;
+        }
+
+        /**
+         * @return number of source objects serialized
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * @return number of those calls that were timed
+         */
+        public long getTimedCalls() {
+            return timedCalls.sum();
+        }
+
+        /**
+         * @return total time of the timed calls
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @param percentile percentile between 0 and 100
+         * @return approximate duration of the timed calls at that percentile, or 0 if none were timed
+         */
+        public long getPercentileNanos(double percentile) {
+            return latency.percentile(percentile);
+        }
+
+        /**
+         * @return number of failed fields
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return characters of JSON text written by top-level calls
+         */
+        public long getCharsWritten() {
+            return charsWritten.sum();
+        }
+
+        /**
+         * @return names of the fields that have been timed or have failed, by descending total time
+         */
+        public List<String> getFields() {
+            List<String> names = new ArrayList<String>(fields.keySet());
+            Collections.sort(names, new Comparator<String>() {
+                @Override
+                public int compare(String a, String b) {
+                    return Long.compare(getFieldNanos(b), getFieldNanos(a));
+                }
+            });
+            return names;
+        }
+
+        /**
+         * @param field field name
+         * @return total time spent in the field during timed calls
+         */
+        public long getFieldNanos(String field) {
+            FieldStats f = fields.get(field);
+            return f == null ? 0 : f.nanos.sum();
+        }
+
+        /**
+         * @param field field name
+         * @return number of failures in the field
+         */
+        public long getFieldFailures(String field) {
+            FieldStats f = fields.get(field);
+            return f == null ? 0 : f.failures.sum();
+        }
+    }
+
+    private static final class FieldStats {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+    }
+
+    /**
+     * Log-linear histogram: values are bucketed by their highest set bit and the two bits below it
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 2;
+        private final AtomicLongArray counts = new AtomicLongArray(64 << SUB_BITS);
+
+        static int bucket(long value) {
+            if (value < (1 << SUB_BITS)) {
+                return (int) Math.max(value, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < (1 << SUB_BITS)) {
+                return bucket;
+            }
+            int exponent = (bucket >> SUB_BITS) + SUB_BITS - 1;
+            long sub = bucket & ((1 << SUB_BITS) - 1);
+            long lower = (1L << exponent) + (sub << (exponent - SUB_BITS));
+            return lower + (1L << (exponent - SUB_BITS)) - 1;
+        }
+
+        void record(long value) {
+            counts.incrementAndGet(bucket(value));
+        }
+
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length() - 1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+
+/**
+ * Receives measurements from the serializers of a {@link SerializerRegistry}.
+ *
+ * Metrics are off until a listener is installed with {@link SerializerRegistry#setMetricsListener(MetricsListener, int)}.
+ * Every source object serialized is reported, but only a sample of them is timed; untimed calls report
+ * {@link #NOT_TIMED}.  Nested serializers report their own calls, so the time of a field with a sub-serializer includes
+ * the time of the nested serializer.
+ *
+ * Listeners are called on the serializing threads and must be thread-safe.  {@link MetricsCollector} is a ready-made
+ * implementation.
+ */
+public interface MetricsListener {
+    /**
+     * Duration reported for calls that were not sampled
+     */
+    long NOT_TIMED = -1;
+
+    /**
+     * What a serializer produced
+     */
+    enum Output {
+        /** an instance of the serializer class */
+        OBJECT,
+        /** a {@link java.util.Map} */
+        MAP,
+        /** JSON text */
+        JSON
+    }
+
+    /**
+     * A source object was serialized.
+     *
+     * @param serializer serializer class
+     * @param output what was produced
+     * @param nanos time spent filling in the fields of the result, or {@link #NOT_TIMED}
+     */
+    void serialized(Class<?> serializer, Output output, long nanos);
+
+    /**
+     * A field of a timed call was serialized.
+     *
+     * @param serializer serializer class
+     * @param field field name on the serializer class
+     * @param nanos time spent in the field's getter, combinator or sub-serializer, and in setting or writing the value
+     */
+    void fieldSerialized(Class<?> serializer, String field, long nanos);
+
+    /**
+     * Serializing a field failed.  Failures in nested serializers are reported by each serializer they pass through.
+     *
+     * @param serializer serializer class
+     * @param field field name on the serializer class
+     * @param e the failure, which is rethrown to the caller after this returns
+     */
+    void failed(Class<?> serializer, String field, SerializerException e);
+
+    /**
+     * A call to one of the <code>serializeTo</code> methods writing to an {@link Appendable} or
+     * {@link java.io.OutputStream} finished.
+     *
+     * @param serializer serializer class
+     * @param chars number of characters of JSON text written
+     */
+    void written(Class<?> serializer, long chars);
+}
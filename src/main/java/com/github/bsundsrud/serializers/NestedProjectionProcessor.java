@@ -0,0 +1,85 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.ChainedProcessor;
+import com.github.bsundsrud.serializers.processors.ValueProcessor;
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The processor of a {@link FieldProjection} for a field selected by dotted paths, such as <code>"subthing.baz"</code>.
+ * Runs the field's {@link ChainedProcessor} with a projection of the sub-serializer compiled from the rest of the paths.
+ *
+ * The nested projection is compiled on first use, because the sub-serializer may still be under construction when a
+ * recursive serializer compiles its own projections.  It comes from the sub-serializer's projection cache, so compiling
+ * it twice from racing threads is harmless.
+ */
+final class NestedProjectionProcessor implements ValueProcessor {
+    private final ChainedProcessor delegate;
+    private final List<String> paths;
+    private volatile FieldProjection<?> nested;
+
+    /**
+     * @param delegate processor of the field
+     * @param paths selection of the sub-serializer's fields, with the field's own name removed
+     */
+    NestedProjectionProcessor(ChainedProcessor delegate, List<String> paths) {
+        this.delegate = delegate;
+        this.paths = new ArrayList<String>(paths);
+    }
+
+    ChainedProcessor delegate() {
+        return delegate;
+    }
+
+    FieldProjection<?> nested() {
+        FieldProjection<?> projection = nested;
+        if (projection == null) {
+            AnnotationSerializer<?> serializer = delegate.getSerializer();
+            projection = serializer.projection(paths);
+            nested = projection;
+        }
+        return projection;
+    }
+
+    @Override
+    public void serialize(Object source, Object target) throws SerializerException {
+        delegate.serialize(source, target, nested());
+    }
+
+    @Override
+    public void serializeToMap(Object source, Object target, Map<String, Object> map) throws SerializerException {
+        delegate.serializeToMap(source, target, map, nested());
+    }
+
+    @Override
+    public void serializeToLazyMap(Object source, Object target, Map<String, Object> map) throws SerializerException {
+        delegate.serializeToLazyMap(source, target, map, nested());
+    }
+
+    @Override
+    public void serializeToJson(Object source, Object target, JsonWriter out) throws SerializerException, IOException {
+        delegate.serializeToJson(source, target, out, nested());
+    }
+
+    @Override
+    public void serializeToBinary(Object source, Object target, BinaryEncoder out) throws SerializerException {
+        delegate.serializeToBinary(source, target, out, nested());
+    }
+
+    @Override
+    public void deserializeFromBinary(Object target, BinaryDecoder in) throws SerializerException {
+        delegate.deserializeFromBinary(target, in, nested());
+    }
+
+    @Override
+    public boolean needsTarget() {
+        return delegate.needsTarget();
+    }
+}
@@ -0,0 +1,212 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache of {@link AnnotationSerializer} instances, keyed by serializer class, {@link AccessorEngine} and the set of included fields.
+ *
+ * Serializers handed out by a registry are shared and must not be modified.  Nested serializers
+ * (members annotated with {@link com.github.bsundsrud.serializers.annotations.WithSerializer}) are
+ * resolved through the same registry, so a sub-serializer used by several parents is only built once.
+ *
+ * Recursive serializers (tree nodes, parent/child links) are supported: while a serializer is being built, lookups of
+ * the same class, engine and fields on the building thread return the instance under construction, so each serializer
+ * in a recursive group is built exactly once.  The whole group is only cached once its outermost build succeeds.
+ *
+ * <pre>
+ * SerializerRegistry registry = SerializerRegistry.getDefault();
+ * AnnotationSerializer&lt;TestSerializer&gt; sap = registry.serializerFor(TestSerializer.class, "docId", "date");
+ * </pre>
+ */
+public class SerializerRegistry {
+    private static final SerializerRegistry DEFAULT = new SerializerRegistry();
+
+    private final ConcurrentMap<Key, AnnotationSerializer<?>> serializers = new ConcurrentHashMap<Key, AnnotationSerializer<?>>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile Metrics metrics;
+    private final ThreadLocal<Build> building = new ThreadLocal<Build>() {
+        @Override
+        protected Build initialValue() {
+            return new Build();
+        }
+    };
+
+    /**
+     * @return the registry used by {@link AnnotationSerializer#serializerForClass(Class, String...)}
+     */
+    public static SerializerRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the shared serializer for the given class and included fields, building it on first use.
+     * The order of <code>includedFields</code> does not matter.
+     *
+     * If two threads miss on the same key at the same time both build a serializer, but only the first one
+     * to finish is kept and returned to both.
+     *
+     * @param target Class of serialization target
+     * @param includedFields varargs list of fields to include in serialization
+     * @param <T> The type of the serializer class
+     * @return a shared, fully initialized AnnotationSerializer
+     * @throws SerializerException on failure to initialize mapping for given serializer class
+     */
+    public <T> AnnotationSerializer<T> serializerFor(Class<T> target, String... includedFields) throws SerializerException {
+        return serializerFor(target, AccessorEngine.REFLECTION, includedFields);
+    }
+
+    /**
+     * Get the shared serializer for the given class, engine and included fields, building it on first use.
+     *
+     * @param target Class of serialization target
+     * @param engine how getters and setters are called
+     * @param includedFields varargs list of fields to include in serialization
+     * @param <T> The type of the serializer class
+     * @return a shared, fully initialized AnnotationSerializer
+     * @throws SerializerException on failure to initialize mapping for given serializer class
+     * @see #serializerFor(Class, String...)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> AnnotationSerializer<T> serializerFor(Class<T> target, AccessorEngine engine, String... includedFields) throws SerializerException {
+        Key key = new Key(target, engine, includedFields);
+        AnnotationSerializer<?> existing = serializers.get(key);
+        if (existing != null) {
+            hits.incrementAndGet();
+            return (AnnotationSerializer<T>) existing;
+        }
+        Build build = building.get();
+        existing = build.serializers.get(key);
+        if (existing != null) {
+            hits.incrementAndGet();
+            return (AnnotationSerializer<T>) existing;
+        }
+        misses.incrementAndGet();
+        build.depth++;
+        try {
+            AnnotationSerializer<T> built = AnnotationSerializer.build(this, engine, target, Arrays.asList(includedFields));
+            if (build.depth > 1) {
+                // may refer to serializers still under construction; published with the outermost one
+                return built;
+            }
+            for (Map.Entry<Key, AnnotationSerializer<?>> entry : build.serializers.entrySet()) {
+                serializers.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            existing = serializers.putIfAbsent(key, built);
+            return existing != null ? (AnnotationSerializer<T>) existing : built;
+        } finally {
+            if (--build.depth == 0) {
+                build.serializers.clear();
+            }
+        }
+    }
+
+    /**
+     * Called by a serializer's constructor before it resolves its nested serializers, so that lookups of itself
+     * on this thread find it instead of starting another build.
+     */
+    void building(Class<?> target, AccessorEngine engine, List<String> includedFields, AnnotationSerializer<?> serializer) {
+        building.get().serializers.put(new Key(target, engine, includedFields.toArray(new String[includedFields.size()])), serializer);
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long hitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups that had to build a serializer
+     */
+    public long missCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of serializers currently cached
+     */
+    public int size() {
+        return serializers.size();
+    }
+
+    /**
+     * Drop all cached serializers and reset the hit/miss counters.  Serializers already handed out stay usable.
+     */
+    public void clear() {
+        serializers.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Report every call of this registry's serializers to <code>listener</code>, timing all of them.
+     *
+     * @param listener listener to install, or null to turn metrics off
+     * @see #setMetricsListener(MetricsListener, int)
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        setMetricsListener(listener, 1);
+    }
+
+    /**
+     * Report every call of this registry's serializers to <code>listener</code>, timing about one in
+     * <code>sampleEvery</code> of them.  Takes effect for serializers already handed out.  Metrics are off by default,
+     * and then cost a single volatile read per serialized object.
+     *
+     * @param listener listener to install, or null to turn metrics off
+     * @param sampleEvery average number of calls per timed call, at least 1
+     */
+    public void setMetricsListener(MetricsListener listener, int sampleEvery) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("sampleEvery must be at least 1: " + sampleEvery);
+        }
+        metrics = listener == null ? null : new Metrics(listener, sampleEvery);
+    }
+
+    /**
+     * @return the installed metrics, or null if they are off
+     */
+    Metrics metrics() {
+        return metrics;
+    }
+
+    private static final class Build {
+        private final Map<Key, AnnotationSerializer<?>> serializers = new HashMap<Key, AnnotationSerializer<?>>();
+        private int depth;
+    }
+
+    private static final class Key {
+        private final Class<?> target;
+        private final AccessorEngine engine;
+        private final Set<String> includedFields;
+
+        private Key(Class<?> target, AccessorEngine engine, String[] includedFields) {
+            this.target = target;
+            this.engine = engine;
+            this.includedFields = new HashSet<String>(Arrays.asList(includedFields));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return target.equals(other.target) && engine == other.engine && includedFields.equals(other.includedFields);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * target.hashCode() + engine.hashCode()) + includedFields.hashCode();
+        }
+    }
+}
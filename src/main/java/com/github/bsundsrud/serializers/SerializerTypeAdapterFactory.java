@@ -0,0 +1,116 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.github.bsundsrud.serializers.util.UncheckedSerializerException;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lets Gson render source objects through an {@link AnnotationSerializer}, so <code>gson.toJson(source)</code> streams
+ * the serializer's output into Gson's {@link JsonWriter}, without Gson reflecting over a target object or building a
+ * result map or tree.
+ *
+ * <pre>
+ * Gson gson = new GsonBuilder()
+ *         .registerTypeAdapterFactory(SerializerTypeAdapterFactory.of(SerializerRegistry.getDefault(),
+ *                 TestSerializer.class, OtherSerializer.class))
+ *         .create();
+ * String json = gson.toJson(source);
+ * </pre>
+ *
+ * Each projection handles its source class and the subclasses of it, so only one serializer per source class can be
+ * registered with a factory.  Adapters hold nothing but their (shared) projection and Gson's own adapter for the type,
+ * so a factory and the Gson instances using it can be used from any number of threads.  The output is that of
+ * {@link FieldProjection#serializeTo(Object, JsonWriter)}, written with the settings of Gson's writer, such as its
+ * indentation; values are written as <code>serializeTo</code> writes them, not with Gson's other adapters.
+ *
+ * Only writing goes through the serializer: reading JSON into a source class is left to the adapter Gson would have
+ * used without this factory.  Serialization failures are thrown as {@link UncheckedSerializerException}.
+ */
+public class SerializerTypeAdapterFactory implements TypeAdapterFactory {
+    private final Map<Class<?>, FieldProjection<?>> projections = new LinkedHashMap<Class<?>, FieldProjection<?>>();
+    // projection handling each class, or null, found once per class
+    private final ClassValue<FieldProjection<?>> handlers = new ClassValue<FieldProjection<?>>() {
+        @Override
+        protected FieldProjection<?> computeValue(Class<?> type) {
+            for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+                FieldProjection<?> projection = projections.get(cls);
+                if (projection != null) {
+                    return projection;
+                }
+            }
+            return null;
+        }
+    };
+
+    /**
+     * @param projections selections of fields to render the source objects of their serializers with
+     * @throws IllegalArgumentException if two projections have the same source class
+     */
+    public SerializerTypeAdapterFactory(FieldProjection<?>... projections) {
+        for (FieldProjection<?> projection : projections) {
+            Class<?> source = projection.getSerializer().getSourceClass();
+            if (this.projections.put(source, projection) != null) {
+                throw new IllegalArgumentException("More than one serializer for source class '" + source.getName() + "'");
+            }
+        }
+    }
+
+    /**
+     * Create a factory for the given serializer classes, with all of their fields, built through <code>registry</code>
+     *
+     * @param registry registry to get the serializers from
+     * @param serializers classes annotated with {@link SerializedFrom}
+     * @return a new factory
+     * @throws SerializerException on failure to initialize mapping for one of the serializer classes
+     */
+    public static SerializerTypeAdapterFactory of(SerializerRegistry registry, Class<?>... serializers) throws SerializerException {
+        FieldProjection<?>[] projections = new FieldProjection<?>[serializers.length];
+        for (int i = 0; i < serializers.length; i++) {
+            projections[i] = registry.serializerFor(serializers[i]).projection();
+        }
+        return new SerializerTypeAdapterFactory(projections);
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        FieldProjection<?> projection = handlers.get(type.getRawType());
+        if (projection == null) {
+            return null;
+        }
+        return new ProjectionAdapter<T>(projection, gson.getDelegateAdapter(this, type)).nullSafe();
+    }
+
+    private static final class ProjectionAdapter<T> extends TypeAdapter<T> {
+        private final FieldProjection<?> projection;
+        private final TypeAdapter<T> reader;
+
+        ProjectionAdapter(FieldProjection<?> projection, TypeAdapter<T> reader) {
+            this.projection = projection;
+            this.reader = reader;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            try {
+                projection.serializeTo(value, out);
+            } catch (SerializerException e) {
+                throw new UncheckedSerializerException(e);
+            }
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            return reader.read(in);
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Builds the serializers of a set of {@link SerializedFrom} classes ahead of time, so the first requests after startup
+ * do not pay for scanning the classes and warming up their processors.
+ *
+ * <pre>
+ * SerializerWarmup.Report report = new SerializerWarmup(SerializerRegistry.getDefault())
+ *         .packages("com.example.dto")
+ *         .iterations(1000)
+ *         .run();
+ * report.throwOnFailure();
+ * </pre>
+ *
+ * Classes are found in the given packages, in the index files the annotation processor writes (see {@link #INDEX}),
+ * or are added directly.  Every serializer is built through the registry in parallel and cached there, so mapping
+ * errors surface at startup instead of on the first request.  With {@link #iterations(int)}, each serializer then
+ * serializes a sample source object to an object, a map and JSON that many times.
+ */
+public class SerializerWarmup {
+    /**
+     * Classpath resource listing the binary names of {@link SerializedFrom} classes, one per line.
+     * The annotation processor writes one for every compilation that contains such classes, if its
+     * {@link com.github.bsundsrud.serializers.apt.SerializerProcessor#INDEX_OPTION} option is set.
+     */
+    public static final String INDEX = "META-INF/annotation-serializer/serializers";
+
+    private static final Logger log = LoggerFactory.getLogger(SerializerWarmup.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final SerializerRegistry registry;
+    private final Set<String> packages = new LinkedHashSet<String>();
+    private final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+    private final Map<Class<?>, Object> samples = new HashMap<Class<?>, Object>();
+    private ClassLoader classLoader;
+    private boolean indexed;
+    private AccessorEngine engine = AccessorEngine.REFLECTION;
+    private int iterations;
+    private ExecutorService executor;
+
+    /**
+     * @param registry registry to build the serializers in
+     */
+    public SerializerWarmup(SerializerRegistry registry) {
+        this.registry = registry;
+        this.classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = SerializerWarmup.class.getClassLoader();
+        }
+    }
+
+    /**
+     * Include every {@link SerializedFrom} class in the given packages and their subpackages, in directories or jar
+     * files of the class loader.  Classes are loaded, but not initialized, to check for the annotation.
+     *
+     * @param packageNames package names, such as <code>com.example.dto</code>
+     * @return this warm-up
+     */
+    public SerializerWarmup packages(String... packageNames) {
+        packages.addAll(Arrays.asList(packageNames));
+        return this;
+    }
+
+    /**
+     * Include every class listed in the {@link #INDEX} resources of the class loader
+     *
+     * @return this warm-up
+     */
+    public SerializerWarmup indexed() {
+        indexed = true;
+        return this;
+    }
+
+    /**
+     * Include the given serializer classes
+     *
+     * @param serializers classes annotated with {@link SerializedFrom}
+     * @return this warm-up
+     */
+    public SerializerWarmup classes(Class<?>... serializers) {
+        classes.addAll(Arrays.asList(serializers));
+        return this;
+    }
+
+    /**
+     * @param loader class loader to scan and load classes with.  Defaults to the context class loader.
+     * @return this warm-up
+     */
+    public SerializerWarmup classLoader(ClassLoader loader) {
+        this.classLoader = loader;
+        return this;
+    }
+
+    /**
+     * @param engine engine to build the serializers with, as passed to {@link SerializerRegistry#serializerFor(Class, AccessorEngine, String...)}
+     * @return this warm-up
+     */
+    public SerializerWarmup engine(AccessorEngine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * Serialize a sample object this many times with every serializer after building it.  Defaults to 0.
+     *
+     * Without a {@link #sample(Class, Object)}, the sample is a new instance of the source class from its public
+     * no-argument constructor; serializers whose source class has none are built but not warmed up.  Warm-up calls
+     * are reported to the registry's {@link MetricsListener} like any other.
+     *
+     * @param iterations number of serializations of each kind per serializer
+     * @return this warm-up
+     */
+    public SerializerWarmup iterations(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("iterations must not be negative: " + iterations);
+        }
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * Warm up a serializer with the given source object instead of a default-constructed one
+     *
+     * @param serializer serializer class
+     * @param source instance of its source class
+     * @return this warm-up
+     */
+    public SerializerWarmup sample(Class<?> serializer, Object source) {
+        samples.put(serializer, source);
+        return this;
+    }
+
+    /**
+     * @param executor executor to build the serializers on.  Defaults to a pool with one thread per processor, shut
+     *                 down when {@link #run()} returns.
+     * @return this warm-up
+     */
+    public SerializerWarmup executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Find, build and warm up the serializers.  Failures to build a serializer do not stop the others; they are
+     * collected in the report.
+     *
+     * @return timings and failures per serializer class
+     * @throws SerializerException if scanning the packages or reading an index fails
+     */
+    public Report run() throws SerializerException {
+        long start = System.nanoTime();
+        Set<Class<?>> targets = new LinkedHashSet<Class<?>>(classes);
+        for (String pkg : packages) {
+            targets.addAll(scan(classLoader, pkg));
+        }
+        if (indexed) {
+            targets.addAll(readIndex(classLoader));
+        }
+
+        ExecutorService pool = executor;
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(Math.max(1, Math.min(targets.size(), Runtime.getRuntime().availableProcessors())),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "serializer-warmup");
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+        }
+        List<Result> results = new ArrayList<Result>(targets.size());
+        try {
+            List<Future<Result>> futures = new ArrayList<Future<Result>>(targets.size());
+            for (final Class<?> target : targets) {
+                futures.add(pool.submit(() -> warmUp(target)));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerializerException("Interrupted while building serializers", e);
+        } catch (ExecutionException e) {
+            throw new SerializerException("Failed to build serializers", e.getCause());
+        } finally {
+            if (executor == null) {
+                pool.shutdownNow();
+            }
+        }
+        Report report = new Report(results, System.nanoTime() - start);
+        if (log.isInfoEnabled()) {
+            log.info(report.toString());
+        }
+        return report;
+    }
+
+    private Result warmUp(Class<?> target) {
+        long start = System.nanoTime();
+        AnnotationSerializer<?> serializer;
+        try {
+            serializer = registry.serializerFor(target, engine);
+        } catch (SerializerException e) {
+            return new Result(target, System.nanoTime() - start, 0, 0, e);
+        } catch (RuntimeException | LinkageError e) {
+            // a broken class, such as one whose static initializer throws, fails only its own serializer
+            return new Result(target, System.nanoTime() - start, 0, 0,
+                    new SerializerException("Could not build serializer '" + target.getName() + "'", e));
+        }
+        long built = System.nanoTime();
+        int done = 0;
+        if (iterations > 0) {
+            Object sample = samples.containsKey(target) ? samples.get(target) : newSample(target);
+            if (sample != null) {
+                try {
+                    for (; done < iterations; done++) {
+                        serializer.serialize(sample);
+                        serializer.serializeToMap(sample);
+                        serializer.serializeTo(sample, DISCARD);
+                    }
+                } catch (SerializerException | RuntimeException | LinkageError e) {
+                    log.debug("Warm-up of {} stopped after {} iterations", target.getName(), done, e);
+                }
+            }
+        }
+        return new Result(target, built - start, System.nanoTime() - built, done, null);
+    }
+
+    private static Object newSample(Class<?> target) {
+        try {
+            return target.getAnnotation(SerializedFrom.class).value().getConstructor().newInstance();
+        } catch (Exception | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the {@link SerializedFrom} classes of a package and its subpackages
+     *
+     * @param loader class loader to search
+     * @param packageName package name, such as <code>com.example.dto</code>
+     * @return the classes found, by name
+     * @throws SerializerException if a directory or jar file cannot be read
+     */
+    public static List<Class<?>> scan(ClassLoader loader, String packageName) throws SerializerException {
+        String path = packageName.replace('.', '/');
+        Set<String> names = new TreeSet<String>();
+        try {
+            Enumeration<URL> roots = loader.getResources(path);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if ("file".equals(root.getProtocol())) {
+                    scanDirectory(new File(root.toURI()), packageName, names);
+                } else if ("jar".equals(root.getProtocol())) {
+                    scanJar(root, path + "/", names);
+                } else {
+                    log.debug("Cannot scan {}", root);
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new SerializerException("Could not scan package '" + packageName + "'", e);
+        }
+        List<Class<?>> found = new ArrayList<Class<?>>();
+        for (String name : names) {
+            Class<?> cls = load(loader, name);
+            if (cls != null && cls.isAnnotationPresent(SerializedFrom.class)) {
+                found.add(cls);
+            }
+        }
+        return found;
+    }
+
+    private static void scanDirectory(File dir, String packageName, Set<String> names) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                scanDirectory(file, packageName + "." + name, names);
+            } else if (isClassFile(name)) {
+                names.add(packageName + "." + name.substring(0, name.length() - ".class".length()));
+            }
+        }
+    }
+
+    private static void scanJar(URL root, String prefix, Set<String> names) throws IOException {
+        URLConnection connection = root.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return;
+        }
+        JarURLConnection jar = (JarURLConnection) connection;
+        jar.setUseCaches(false);
+        JarFile file = jar.getJarFile();
+        try {
+            for (Enumeration<JarEntry> entries = file.entries(); entries.hasMoreElements(); ) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(prefix) && isClassFile(name.substring(name.lastIndexOf('/') + 1))) {
+                    names.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    private static boolean isClassFile(String fileName) {
+        return fileName.endsWith(".class") && !fileName.equals("package-info.class") && !fileName.equals("module-info.class");
+    }
+
+    /**
+     * Read the classes listed in every {@link #INDEX} resource of a class loader.  Classes that cannot be loaded are
+     * skipped.
+     *
+     * @param loader class loader to search
+     * @return the listed classes, in the order of the index files
+     * @throws SerializerException if an index cannot be read
+     */
+    public static List<Class<?>> readIndex(ClassLoader loader) throws SerializerException {
+        Set<String> names = new LinkedHashSet<String>();
+        try {
+            Enumeration<URL> indexes = loader.getResources(INDEX);
+            while (indexes.hasMoreElements()) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(indexes.nextElement().openStream(), UTF8));
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty() && !line.startsWith("#")) {
+                            names.add(line);
+                        }
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializerException("Could not read " + INDEX, e);
+        }
+        List<Class<?>> found = new ArrayList<Class<?>>();
+        for (String name : names) {
+            Class<?> cls = load(loader, name);
+            if (cls != null) {
+                found.add(cls);
+            }
+        }
+        return found;
+    }
+
+    private static Class<?> load(ClassLoader loader, String name) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("Skipping class {}", name, e);
+            return null;
+        }
+    }
+
+    private static final Writer DISCARD = new Writer() {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Outcome of building and warming up one serializer
+     */
+    public static final class Result {
+        private final Class<?> serializer;
+        private final long buildNanos;
+        private final long warmupNanos;
+        private final int iterations;
+        private final SerializerException failure;
+
+        private Result(Class<?> serializer, long buildNanos, long warmupNanos, int iterations, SerializerException failure) {
+            this.serializer = serializer;
+            this.buildNanos = buildNanos;
+            this.warmupNanos = warmupNanos;
+            this.iterations = iterations;
+            this.failure = failure;
+        }
+
+        /**
+         * @return the serializer class
+         */
+        public Class<?> getSerializer() {
+            return serializer;
+        }
+
+        /**
+         * @return time spent getting the serializer from the registry, including nested serializers it built
+         */
+        public long getBuildNanos() {
+            return buildNanos;
+        }
+
+        /**
+         * @return time spent in the warm-up iterations
+         */
+        public long getWarmupNanos() {
+            return warmupNanos;
+        }
+
+        /**
+         * @return number of warm-up iterations completed.  Fewer than requested if there was no sample or it failed.
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return why the serializer could not be built, or null if it was
+         */
+        public SerializerException getFailure() {
+            return failure;
+        }
+    }
+
+    /**
+     * Results of {@link #run()}
+     */
+    public static final class Report {
+        private final List<Result> results;
+        private final long totalNanos;
+
+        private Report(List<Result> results, long totalNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.totalNanos = totalNanos;
+        }
+
+        /**
+         * @return the result of every serializer class, in the order they were found
+         */
+        public List<Result> getResults() {
+            return results;
+        }
+
+        /**
+         * @return wall-clock time of the whole run, including scanning
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the results of serializers that could not be built
+         */
+        public List<Result> getFailures() {
+            List<Result> failures = new ArrayList<Result>();
+            for (Result r : results) {
+                if (r.failure != null) {
+                    failures.add(r);
+                }
+            }
+            return failures;
+        }
+
+        /**
+         * Fail fast on mapping errors
+         *
+         * @throws SerializerException if any serializer could not be built, with the first failure as its cause
+         */
+        public void throwOnFailure() throws SerializerException {
+            List<Result> failures = getFailures();
+            if (!failures.isEmpty()) {
+                StringBuilder names = new StringBuilder();
+                for (Result r : failures) {
+                    names.append(names.length() == 0 ? "" : ", ").append(r.serializer.getName());
+                }
+                throw new SerializerException(failures.size() + " serializer(s) could not be built: " + names,
+                        failures.get(0).failure);
+            }
+        }
+
+        /**
+         * @return a human readable summary, one line per serializer by descending build time
+         */
+        @Override
+        public String toString() {
+            List<Result> sorted = new ArrayList<Result>(results);
+            Collections.sort(sorted, new Comparator<Result>() {
+                @Override
+                public int compare(Result a, Result b) {
+                    return Long.compare(b.buildNanos, a.buildNanos);
+                }
+            });
+            StringBuilder sb = new StringBuilder(String.format("Serializer warm-up: %d serializers in %.3fms, %d failed",
+                    results.size(), totalNanos / 1e6, getFailures().size()));
+            for (Result r : sorted) {
+                sb.append(String.format("%n  %s: build=%.3fms warmup=%.3fms iterations=%d%s", r.serializer.getName(),
+                        r.buildNanos / 1e6, r.warmupNanos / 1e6, r.iterations,
+                        r.failure == null ? "" : " failed: " + r.failure.getMessage()));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.bsundsrud.serializers.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the field mappings of a {@link SerializedFrom} class at compile time, with direct getter and setter calls
+ * instead of reflection.  Mapping errors are reported as compile errors.  Valid at type-level only.
+ *
+ * The annotation processor is picked up automatically when this library is on the compile classpath.
+ *
+ * @see com.github.bsundsrud.serializers.GeneratedMappings
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface Precompiled {
+}
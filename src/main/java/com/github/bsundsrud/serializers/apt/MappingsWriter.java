@@ -0,0 +1,187 @@
+package com.github.bsundsrud.serializers.apt;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes the source of a {@link com.github.bsundsrud.serializers.GeneratedMappings} class.
+ *
+ * Each mapping becomes an anonymous subclass of the processor the reflective serializer would use, with its
+ * getter, setter and combinator hooks replaced by direct calls.  Type names are written fully qualified and erased.
+ */
+class MappingsWriter {
+    private final String packageName;
+    private final String simpleName;
+    private final String targetType;
+    private final String sourceType;
+    private final Map<String, String> mappings = new LinkedHashMap<String, String>();
+
+    /**
+     * @param packageName package of the serializer class, and of the generated class
+     * @param simpleName simple name of the generated class
+     * @param targetType qualified name of the serializer class
+     * @param sourceType qualified name of the class it serializes from
+     */
+    MappingsWriter(String packageName, String simpleName, String targetType, String sourceType) {
+        this.packageName = packageName;
+        this.simpleName = simpleName;
+        this.targetType = targetType;
+        this.sourceType = sourceType;
+    }
+
+    String qualifiedName() {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    boolean isMapped(String targetField) {
+        return mappings.containsKey(targetField);
+    }
+
+    /**
+     * @param getterName getter on the source class
+     * @return an expression calling the getter on <code>source</code>
+     */
+    String read(String getterName) {
+        return "((" + sourceType + ") source)." + getterName + "()";
+    }
+
+    private String write(SerializerProcessor.TargetWrite write, String value) {
+        return "((" + targetType + ") target)" + write.prefix + value + write.suffix;
+    }
+
+    /**
+     * Map a getter straight to a setter or field.
+     *
+     * @param getterCast cast from the getter's return type to the target type, empty if none is needed
+     */
+    void addValue(String targetField, String getterName, String getterCast, SerializerProcessor.TargetWrite write) {
+        mappings.put(targetField, "new GeneratedValueProcessor(\"" + targetField + "\", null, null) {\n"
+                + "            @Override\n"
+                + "            protected void copy(Object source, Object target) {\n"
+                + "                " + write(write, getterCast + read(getterName)) + ";\n"
+                + "            }\n"
+                + "\n"
+                + "            @Override\n"
+                + "            protected Object read(Object source) {\n"
+                + "                return " + read(getterName) + ";\n"
+                + "            }\n"
+                + "\n"
+                + "            @Override\n"
+                + "            protected void write(Object target, Object value) {\n"
+                + "                " + write(write, write.objectCast + "value") + ";\n"
+                + "            }\n"
+                + "        }");
+    }
+
+    /**
+     * Map a getter through a nested serializer.
+     *
+     * @param containerType declared array, collection or map type whose elements are serialized, or null for a single value
+     */
+    void addChained(String targetField, String serializerType, String[] fields, String getterName, SerializerProcessor.TargetWrite write,
+                    String containerType) {
+        StringBuilder fieldList = new StringBuilder();
+        for (String field : fields) {
+            fieldList.append(fieldList.length() == 0 ? "" : ", ").append('"').append(field).append('"');
+        }
+        String processor = containerType == null ? "ChainedProcessor" : "ChainedCollectionProcessor";
+        String container = containerType == null ? "" : ", " + containerType + ".class";
+        mappings.put(targetField, "new " + processor + "(registry.serializerFor(" + serializerType + ".class, engine, new String[] {"
+                + fieldList + "}), \"" + targetField + "\", null, null" + container + ") {\n"
+                + "            @Override\n"
+                + "            protected Object readValue(Object source) throws SerializerException {\n"
+                + "                try {\n"
+                + "                    return " + read(getterName) + ";\n"
+                + "                } catch (Exception e) {\n"
+                + "                    throw new SerializerException(\"Could not invoke '" + getterName
+                + "' on object of type '\" + source.getClass().getName() + \"'\", e);\n"
+                + "                }\n"
+                + "            }\n"
+                + "\n"
+                + writeValue(targetField, write)
+                + "        }");
+    }
+
+    /**
+     * Map the result of a combinator on the target, called with the values of source getters.
+     *
+     * @param isStatic whether the combinator is static, so the target is not needed to compute the value
+     */
+    void addSynthesized(String targetField, String combinator, String[] args, SerializerProcessor.TargetWrite write, boolean isStatic) {
+        StringBuilder argList = new StringBuilder();
+        for (String arg : args) {
+            argList.append(argList.length() == 0 ? "" : ", ").append(arg);
+        }
+        String receiver = isStatic ? targetType : "((" + targetType + ") target)";
+        String needsTarget = !isStatic ? "" : "            @Override\n"
+                + "            public boolean needsTarget() {\n"
+                + "                return false;\n"
+                + "            }\n"
+                + "\n";
+        mappings.put(targetField, "new SyntheticFieldProcessor(\"" + targetField + "\", null, null, Collections.<Method>emptyList()) {\n"
+                + needsTarget
+                + "            @Override\n"
+                + "            protected Object computeValue(Object source, Object target) throws SerializerException {\n"
+                + "                try {\n"
+                + "                    return " + receiver + "." + combinator + "(" + argList + ");\n"
+                + "                } catch (Exception e) {\n"
+                + "                    throw new SerializerException(\"Could not invoke '" + combinator
+                + "' on type '" + targetType + "'\", e);\n"
+                + "                }\n"
+                + "            }\n"
+                + "\n"
+                + writeValue(targetField, write)
+                + "        }");
+    }
+
+    private String writeValue(String targetField, SerializerProcessor.TargetWrite write) {
+        return "            @Override\n"
+                + "            protected void writeValue(Object target, Object value) throws SerializerException {\n"
+                + "                try {\n"
+                + "                    " + write(write, write.objectCast + "value") + ";\n"
+                + "                } catch (Exception e) {\n"
+                + "                    throw new SerializerException(\"Could not set '" + targetField
+                + "' on object of type '\" + target.getClass().getName() + \"'\", e);\n"
+                + "                }\n"
+                + "            }\n";
+    }
+
+    void writeTo(Writer out) throws IOException {
+        out.write("// Generated by " + SerializerProcessor.class.getName() + " from " + targetType + ". Do not edit.\n");
+        if (!packageName.isEmpty()) {
+            out.write("package " + packageName + ";\n\n");
+        }
+        out.write("import com.github.bsundsrud.serializers.AccessorEngine;\n"
+                + "import com.github.bsundsrud.serializers.GeneratedMappings;\n"
+                + "import com.github.bsundsrud.serializers.SerializerRegistry;\n"
+                + "import com.github.bsundsrud.serializers.processors.ChainedCollectionProcessor;\n"
+                + "import com.github.bsundsrud.serializers.processors.ChainedProcessor;\n"
+                + "import com.github.bsundsrud.serializers.processors.GeneratedValueProcessor;\n"
+                + "import com.github.bsundsrud.serializers.processors.SyntheticFieldProcessor;\n"
+                + "import com.github.bsundsrud.serializers.processors.ValueProcessor;\n"
+                + "import com.github.bsundsrud.serializers.util.SerializerException;\n"
+                + "\n"
+                + "import java.lang.reflect.Method;\n"
+                + "import java.util.Collections;\n"
+                + "import java.util.HashMap;\n"
+                + "import java.util.Map;\n"
+                + "\n");
+        out.write("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        out.write("public final class " + simpleName + " implements GeneratedMappings<" + targetType + "> {\n\n");
+        out.write("    @Override\n"
+                + "    public " + targetType + " newInstance() {\n"
+                + "        return new " + targetType + "();\n"
+                + "    }\n\n");
+        out.write("    @Override\n"
+                + "    public Map<String, ValueProcessor> createProcessors(SerializerRegistry registry, AccessorEngine engine) throws SerializerException {\n"
+                + "        Map<String, ValueProcessor> processors = new HashMap<String, ValueProcessor>();\n");
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            out.write("        processors.put(\"" + mapping.getKey() + "\", " + mapping.getValue() + ");\n");
+        }
+        out.write("        return processors;\n"
+                + "    }\n"
+                + "}\n");
+    }
+}
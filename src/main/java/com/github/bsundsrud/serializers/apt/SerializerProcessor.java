@@ -0,0 +1,552 @@
+package com.github.bsundsrud.serializers.apt;
+
+import com.github.bsundsrud.serializers.GeneratedMappings;
+import com.github.bsundsrud.serializers.SerializerWarmup;
+import com.github.bsundsrud.serializers.annotations.FromField;
+import com.github.bsundsrud.serializers.annotations.Precompiled;
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.annotations.Synthesized;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+import com.github.bsundsrud.serializers.util.SerializerUtils;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generates {@link GeneratedMappings} for serializer classes annotated with {@link Precompiled}.
+ *
+ * Mappings are discovered with the same rules {@link com.github.bsundsrud.serializers.AnnotationSerializer} applies at
+ * runtime: annotated setters and {@link Synthesized} methods first, then public fields that are not mapped yet.
+ * Anything that would make building the serializer fail at runtime, or that the generated code could not call directly,
+ * is reported as a compile error on the offending element.
+ *
+ * With <code>-A{@value #INDEX_OPTION}=true</code>, every {@link SerializedFrom} class of the compilation, precompiled
+ * or not, is also listed in the {@link SerializerWarmup#INDEX} resource, so {@link SerializerWarmup#indexed()} can find
+ * them without scanning.  The index only holds the classes of one compilation, so it is off by default: an incremental
+ * compile would replace it with the few classes it recompiled.  Enable it for full builds only.
+ */
+@SupportedAnnotationTypes({"com.github.bsundsrud.serializers.annotations.Precompiled",
+        "com.github.bsundsrud.serializers.annotations.SerializedFrom"})
+@SupportedOptions(SerializerProcessor.INDEX_OPTION)
+public class SerializerProcessor extends AbstractProcessor {
+    /** Processor option that turns on writing the {@link SerializerWarmup#INDEX} resource */
+    public static final String INDEX_OPTION = "annotation.serializer.index";
+
+    private boolean writeIndex;
+    private Types types;
+    private Elements elements;
+    private final Set<String> indexed = new TreeSet<String>();
+    private final List<Element> indexedElements = new ArrayList<Element>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        types = processingEnv.getTypeUtils();
+        elements = processingEnv.getElementUtils();
+        writeIndex = Boolean.parseBoolean(processingEnv.getOptions().get(INDEX_OPTION));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (writeIndex) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(SerializedFrom.class)) {
+                if (element.getKind() == ElementKind.CLASS && indexed.add(elements.getBinaryName((TypeElement) element).toString())) {
+                    indexedElements.add(element);
+                }
+            }
+            if (roundEnv.processingOver() && !indexed.isEmpty()) {
+                writeIndex();
+            }
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(Precompiled.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@Precompiled is only valid on classes");
+                continue;
+            }
+            TypeElement serializer = (TypeElement) element;
+            MappingsWriter writer = analyze(serializer);
+            if (writer != null) {
+                write(serializer, writer);
+            }
+        }
+        // other processors may handle these annotations too
+        return false;
+    }
+
+    /**
+     * @return the writer for the serializer's mappings, or null if an error was reported
+     */
+    private MappingsWriter analyze(TypeElement target) {
+        SerializedFrom from = target.getAnnotation(SerializedFrom.class);
+        if (from == null) {
+            error(target, "Serializer '" + target.getQualifiedName() + "' not annotated with @SerializedFrom");
+            return null;
+        }
+        TypeMirror sourceType = classValue(from);
+        if (sourceType.getKind() != TypeKind.DECLARED) {
+            error(target, "@SerializedFrom on '" + target.getQualifiedName() + "' must name a class");
+            return null;
+        }
+        TypeElement source = (TypeElement) types.asElement(sourceType);
+        PackageElement pkg = elements.getPackageOf(target);
+
+        boolean ok = checkInstantiable(target, pkg);
+        if (!isAccessible(source, pkg)) {
+            error(target, "Source class '" + source.getQualifiedName() + "' is not accessible from package '" + pkg.getQualifiedName() + "'");
+            ok = false;
+        }
+        MappingsWriter writer = new MappingsWriter(pkg.getQualifiedName().toString(), generatedSimpleName(target),
+                typeName(target.asType()), typeName(source.asType()));
+
+        for (ExecutableElement m : ElementFilter.methodsIn(target.getEnclosedElements())) {
+            String name = m.getSimpleName().toString();
+            if (m.getAnnotation(Synthesized.class) != null) {
+                ok &= analyzeSynthesized(target, source, pkg, m, writer);
+            } else if (name.startsWith("set") && name.length() > 3 && m.getParameters().size() == 1) {
+                String srcFieldName = SerializerUtils.methodToField(name);
+                String tgtFieldName = SerializerUtils.methodToField(name);
+                if (m.getAnnotation(FromField.class) != null) {
+                    srcFieldName = m.getAnnotation(FromField.class).value();
+                }
+                ok &= analyzeSetter(source, pkg, m, srcFieldName, tgtFieldName, writer);
+            }
+        }
+        for (VariableElement f : ElementFilter.fieldsIn(target.getEnclosedElements())) {
+            Set<Modifier> modifiers = f.getModifiers();
+            String name = f.getSimpleName().toString();
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.TRANSIENT) && !writer.isMapped(name)) {
+                String srcFieldName = f.getAnnotation(FromField.class) != null ? f.getAnnotation(FromField.class).value() : name;
+                ok &= analyzeField(source, pkg, f, srcFieldName, writer);
+            }
+        }
+        return ok ? writer : null;
+    }
+
+    private boolean checkInstantiable(TypeElement target, PackageElement pkg) {
+        if (target.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(target, "Serializer '" + target.getQualifiedName() + "' must not be abstract");
+            return false;
+        }
+        if (target.getNestingKind().isNested() && !target.getModifiers().contains(Modifier.STATIC)) {
+            error(target, "Serializer '" + target.getQualifiedName() + "' must be a static class");
+            return false;
+        }
+        if (!isAccessible(target, pkg)) {
+            error(target, "Serializer '" + target.getQualifiedName() + "' must not be private");
+            return false;
+        }
+        for (ExecutableElement c : ElementFilter.constructorsIn(target.getEnclosedElements())) {
+            if (c.getParameters().isEmpty() && isAccessible(c, pkg)) {
+                return true;
+            }
+        }
+        error(target, "Serializer '" + target.getQualifiedName() + "' has no accessible no-argument constructor");
+        return false;
+    }
+
+    private boolean analyzeSynthesized(TypeElement target, TypeElement source, PackageElement pkg, ExecutableElement m, MappingsWriter writer) {
+        Synthesized synthesized = m.getAnnotation(Synthesized.class);
+        String targetField = synthesized.target();
+        String[] from = synthesized.from();
+        if (from.length != m.getParameters().size()) {
+            error(m, "Parameter count mismatch for synthesizer method '" + m.getSimpleName()
+                    + "'. Expected " + from.length + " but found " + m.getParameters().size());
+            return false;
+        }
+        if (!isAccessible(m, pkg)) {
+            error(m, "Synthesizer method '" + m.getSimpleName() + "' must not be private");
+            return false;
+        }
+        if (m.getReturnType().getKind() == TypeKind.VOID) {
+            error(m, "Synthesizer method '" + m.getSimpleName() + "' must return a value");
+            return false;
+        }
+        String[] args = new String[from.length];
+        for (int i = 0; i < from.length; i++) {
+            ExecutableElement getter = findGetter(source, from[i], pkg, m);
+            if (getter == null) {
+                return false;
+            }
+            TypeMirror paramType = m.getParameters().get(i).asType();
+            if (!types.isSameType(types.erasure(getter.getReturnType()), types.erasure(paramType))) {
+                error(m, "Type mismatch for parameter " + i + " on method '" + m.getSimpleName()
+                        + "': Method expected '" + paramType + "' but field is of type '" + getter.getReturnType() + "'");
+                return false;
+            }
+            args[i] = cast(getter.getReturnType(), paramType) + writer.read(getter.getSimpleName().toString());
+        }
+        TargetWrite write = findTargetWrite(target, targetField, m.getReturnType(), pkg, m);
+        if (write == null) {
+            return false;
+        }
+        writer.addSynthesized(targetField, m.getSimpleName().toString(), args, write, m.getModifiers().contains(Modifier.STATIC));
+        return true;
+    }
+
+    private boolean analyzeSetter(TypeElement source, PackageElement pkg, ExecutableElement m,
+                                  String srcFieldName, String tgtFieldName, MappingsWriter writer) {
+        if (!isAccessible(m, pkg)) {
+            error(m, "Setter '" + m.getSimpleName() + "' must not be private");
+            return false;
+        }
+        if (throwsChecked(m)) {
+            error(m, "Setter '" + m.getSimpleName() + "' must not declare checked exceptions");
+            return false;
+        }
+        TypeMirror paramType = m.getParameters().get(0).asType();
+        TargetWrite write = targetWrite(".set" + m.getSimpleName().toString().substring(3) + "(", ")", paramType);
+        ExecutableElement getter = findGetter(source, srcFieldName, pkg, m);
+        if (getter == null) {
+            return false;
+        }
+        WithSerializer ws = m.getAnnotation(WithSerializer.class);
+        if (ws != null) {
+            TypeMirror other = nestedSerializer(ws, paramType, m, "parameter type", "setter '" + m.getSimpleName() + "'");
+            if (other == null) {
+                return false;
+            }
+            writer.addChained(tgtFieldName, typeName(other), ws.fields(), getter.getSimpleName().toString(), write,
+                    isContainer(paramType) ? typeName(paramType) : null);
+            return true;
+        }
+        if (!isAssignableStrict(getter.getReturnType(), paramType)) {
+            error(m, "Return type of '" + getter.getSimpleName() + "' on class '" + source.getQualifiedName()
+                    + "' not assignable from setter '" + m.getSimpleName() + "': expected '" + paramType
+                    + "' but found '" + getter.getReturnType() + "'");
+            return false;
+        }
+        writer.addValue(tgtFieldName, getter.getSimpleName().toString(), cast(getter.getReturnType(), paramType), write);
+        return true;
+    }
+
+    private boolean analyzeField(TypeElement source, PackageElement pkg, VariableElement f, String srcFieldName, MappingsWriter writer) {
+        if (f.getModifiers().contains(Modifier.FINAL) || f.getModifiers().contains(Modifier.STATIC)) {
+            error(f, "Mapped field '" + f.getSimpleName() + "' must not be final or static");
+            return false;
+        }
+        TypeMirror fieldType = f.asType();
+        TargetWrite write = targetWrite("." + f.getSimpleName() + " = ", "", fieldType);
+        ExecutableElement getter = findGetter(source, srcFieldName, pkg, f);
+        if (getter == null) {
+            return false;
+        }
+        WithSerializer ws = f.getAnnotation(WithSerializer.class);
+        if (ws != null) {
+            TypeMirror other = nestedSerializer(ws, fieldType, f, "field type", "field '" + f.getSimpleName() + "'");
+            if (other == null) {
+                return false;
+            }
+            writer.addChained(f.getSimpleName().toString(), typeName(other), ws.fields(), getter.getSimpleName().toString(), write,
+                    isContainer(fieldType) ? typeName(fieldType) : null);
+            return true;
+        }
+        if (!types.isAssignable(types.erasure(getter.getReturnType()), types.erasure(fieldType))) {
+            error(f, "Return type of '" + getter.getSimpleName() + "' on class '" + source.getQualifiedName()
+                    + "' not assignable to field '" + f.getSimpleName() + "': expected '" + fieldType
+                    + "' but found '" + getter.getReturnType() + "'");
+            return false;
+        }
+        writer.addValue(f.getSimpleName().toString(), getter.getSimpleName().toString(), cast(getter.getReturnType(), fieldType), write);
+        return true;
+    }
+
+    private TypeMirror nestedSerializer(WithSerializer ws, TypeMirror declaredType, Element element, String typeDescription, String memberDescription) {
+        TypeMirror expected = declaredType;
+        if (isContainer(declaredType)) {
+            if (!isSupportedContainer(declaredType)) {
+                error(element, "Unsupported container type '" + declaredType + "' for " + memberDescription);
+                return null;
+            }
+            expected = elementType(declaredType);
+        }
+        TypeMirror other = classValue(ws);
+        if (other.getKind() == TypeKind.VOID) {
+            if (expected == null) {
+                error(element, "Cannot infer element serializer for " + memberDescription + " of type '" + declaredType
+                        + "'; name it in @WithSerializer");
+                return null;
+            }
+            other = expected;
+        } else if (expected != null && !types.isSameType(types.erasure(other), types.erasure(expected))) {
+            error(element, "Type of serializer '" + other + "' does not match " + typeDescription + " '" + types.erasure(expected)
+                    + "' for " + memberDescription);
+            return null;
+        }
+        Element otherElement = types.asElement(other);
+        if (otherElement == null || otherElement.getAnnotation(SerializedFrom.class) == null) {
+            error(element, "Serializer '" + other + "' not annotated with @SerializedFrom");
+            return null;
+        }
+        return types.erasure(other);
+    }
+
+    /**
+     * Same rule as {@link com.github.bsundsrud.serializers.processors.ChainedCollectionProcessor#isContainer(Class)}
+     */
+    private boolean isContainer(TypeMirror type) {
+        return type.getKind() == TypeKind.ARRAY || isAssignableTo(type, Collection.class) || isAssignableTo(type, Map.class);
+    }
+
+    private boolean isSupportedContainer(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return true;
+        }
+        for (Class<?> implementation : new Class<?>[] { ArrayList.class, LinkedHashSet.class, TreeSet.class, ArrayDeque.class, LinkedHashMap.class, TreeMap.class }) {
+            if (types.isAssignable(types.erasure(elements.getTypeElement(implementation.getName()).asType()), types.erasure(type))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same rule as {@link com.github.bsundsrud.serializers.processors.ChainedCollectionProcessor#elementType(Class, java.lang.reflect.Type)}
+     */
+    private TypeMirror elementType(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return ((ArrayType) type).getComponentType();
+        }
+        List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+        if (args.isEmpty()) {
+            return null;
+        }
+        TypeMirror element = isAssignableTo(type, Map.class) ? args.get(args.size() - 1) : args.get(0);
+        return element.getKind() == TypeKind.DECLARED ? element : null;
+    }
+
+    private boolean isAssignableTo(TypeMirror type, Class<?> cls) {
+        return type.getKind() == TypeKind.DECLARED
+                && types.isAssignable(types.erasure(type), types.erasure(elements.getTypeElement(cls.getName()).asType()));
+    }
+
+    private TargetWrite findTargetWrite(TypeElement target, String fieldName, TypeMirror valueType, PackageElement pkg, Element element) {
+        VariableElement field = null;
+        for (VariableElement f : ElementFilter.fieldsIn(target.getEnclosedElements())) {
+            if (f.getSimpleName().contentEquals(fieldName)) {
+                field = f;
+            }
+        }
+        if (field == null) {
+            error(element, "No field '" + fieldName + "' on type '" + target.getQualifiedName() + "'");
+            return null;
+        }
+        if (!types.isAssignable(types.erasure(valueType), types.erasure(field.asType()))) {
+            error(element, "Result of '" + element.getSimpleName() + "' is not assignable to field '" + fieldName + "'");
+            return null;
+        }
+        String setterName = SerializerUtils.fieldToSetter(fieldName);
+        for (ExecutableElement m : ElementFilter.methodsIn(target.getEnclosedElements())) {
+            if (m.getSimpleName().contentEquals(setterName) && m.getParameters().size() == 1
+                    && types.isSameType(types.erasure(m.getParameters().get(0).asType()), types.erasure(field.asType()))) {
+                if (!isAccessible(m, pkg) || throwsChecked(m)) {
+                    error(element, "Setter '" + setterName + "' must not be private or declare checked exceptions");
+                    return null;
+                }
+                return targetWrite("." + setterName + "(", ")", field.asType());
+            }
+        }
+        if (!isAccessible(field, pkg) || field.getModifiers().contains(Modifier.FINAL)) {
+            error(element, "Field '" + fieldName + "' has no setter and cannot be assigned directly");
+            return null;
+        }
+        return targetWrite("." + fieldName + " = ", "", field.asType());
+    }
+
+    private ExecutableElement findGetter(TypeElement source, String fieldName, PackageElement pkg, Element element) {
+        String getterName = SerializerUtils.fieldToGetter(fieldName);
+        // inherited getters count, as they do for SerializerUtils.findGetterForFieldName
+        for (ExecutableElement m : ElementFilter.methodsIn(elements.getAllMembers(source))) {
+            if (m.getSimpleName().contentEquals(getterName) && m.getParameters().isEmpty()) {
+                if (!isAccessible(m, pkg)) {
+                    error(element, "Method '" + getterName + "' on class '" + source.getQualifiedName()
+                            + "' is not accessible from package '" + pkg.getQualifiedName() + "'");
+                    return null;
+                }
+                if (m.getReturnType().getKind() == TypeKind.VOID) {
+                    error(element, "Method '" + getterName + "' on class '" + source.getQualifiedName() + "' does not return a value");
+                    return null;
+                }
+                if (throwsChecked(m)) {
+                    error(element, "Method '" + getterName + "' on class '" + source.getQualifiedName() + "' must not declare checked exceptions");
+                    return null;
+                }
+                return m;
+            }
+        }
+        error(element, "No method named '" + getterName + "' on class '" + source.getQualifiedName() + "'");
+        return null;
+    }
+
+    /**
+     * Same rule as {@link Class#isAssignableFrom(Class)}: primitives must match exactly, references by their erasure.
+     */
+    private boolean isAssignableStrict(TypeMirror from, TypeMirror to) {
+        if (from.getKind().isPrimitive() || to.getKind().isPrimitive()) {
+            return types.isSameType(from, to);
+        }
+        return types.isAssignable(types.erasure(from), types.erasure(to));
+    }
+
+    private boolean throwsChecked(ExecutableElement method) {
+        TypeMirror runtimeException = elements.getTypeElement(RuntimeException.class.getName()).asType();
+        TypeMirror error = elements.getTypeElement(Error.class.getName()).asType();
+        for (TypeMirror thrown : method.getThrownTypes()) {
+            if (!types.isSubtype(thrown, runtimeException) && !types.isSubtype(thrown, error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the generated class, which lives in <code>pkg</code>, can reference the element
+     */
+    private boolean isAccessible(Element element, PackageElement pkg) {
+        for (Element e = element; e != null && e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            Set<Modifier> modifiers = e.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(e).equals(pkg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TargetWrite targetWrite(String prefix, String suffix, TypeMirror type) {
+        String objectType = type.getKind().isPrimitive() ? types.boxedClass((PrimitiveType) type).getQualifiedName().toString() : typeName(type);
+        return new TargetWrite(prefix, suffix, "(" + objectType + ") ");
+    }
+
+    /**
+     * @return the cast needed to pass a <code>from</code> value where a <code>to</code> is expected, or nothing if it
+     * is already assignable, so the generated source compiles cleanly with <code>-Xlint:cast</code>
+     */
+    private String cast(TypeMirror from, TypeMirror to) {
+        return types.isAssignable(from, to) ? "" : "(" + typeName(to) + ") ";
+    }
+
+    private String typeName(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private String generatedSimpleName(TypeElement target) {
+        StringBuilder name = new StringBuilder(target.getSimpleName());
+        for (Element e = target.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            name.insert(0, e.getSimpleName() + "_");
+        }
+        return name.append(GeneratedMappings.SUFFIX).toString();
+    }
+
+    private static TypeMirror classValue(SerializedFrom from) {
+        try {
+            from.value();
+            throw new IllegalStateException("@SerializedFrom value was not mirrored");
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+    }
+
+    private static TypeMirror classValue(WithSerializer ws) {
+        try {
+            ws.value();
+            throw new IllegalStateException("@WithSerializer value was not mirrored");
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+    }
+
+    private void write(TypeElement target, MappingsWriter writer) {
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(writer.qualifiedName(), target);
+            Writer out = file.openWriter();
+            try {
+                writer.writeTo(out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            error(target, "Could not write '" + writer.qualifiedName() + "': " + e.getMessage());
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SerializerWarmup.INDEX,
+                    indexedElements.toArray(new Element[indexedElements.size()]));
+            Writer out = file.openWriter();
+            try {
+                for (String name : indexed) {
+                    out.write(name);
+                    out.write('\n');
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write " + SerializerWarmup.INDEX + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * How a value is stored on the target: <code>target{prefix}value{suffix}</code>, for a setter call or a field assignment
+     */
+    static class TargetWrite {
+        final String prefix;
+        final String suffix;
+        /** cast applied to a boxed <code>Object</code> value */
+        final String objectCast;
+
+        TargetWrite(String prefix, String suffix, String objectCast) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.objectCast = objectCast;
+        }
+    }
+}
@@ -1,19 +1,36 @@
 package com.github.bsundsrud.serializers.processors;
 
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.JsonUtils;
 import com.github.bsundsrud.serializers.util.SerializerException;
 import com.github.bsundsrud.serializers.util.SerializerUtils;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * Serializes a field.  If present, a setter will be used to set the resulting value in {@link #serialize(Object, Object)}.
  */
 public class BaseValueProcessor implements ValueProcessor {
 
-    protected String targetField;
-    protected Method valueSource;
-    protected Method valueTarget;
+    protected final String targetField;
+    protected final Method valueSource;
+    protected final Method valueTarget;
+    protected final Field fieldTarget;
+    // resolved on construction if asked for, so they are published with the processor; null means reflection
+    protected final MethodHandle getterHandle;
+    protected final MethodHandle setterHandle;
 
     /**
      * Set up a mapping from a getter on the source object to a field on the target object, set via a setter
@@ -23,9 +40,21 @@ public class BaseValueProcessor implements ValueProcessor {
      * @param valueTarget setter Method on target object.  If null, <code>targetField</code> will be assumed to be <code>public</code>.
      */
     public BaseValueProcessor(String targetField, Method valueSource, Method valueTarget) {
-        this.targetField = targetField;
-        this.valueSource = valueSource;
-        this.valueTarget = valueTarget;
+        this(targetField, valueSource, valueTarget, null, false);
+    }
+
+    /**
+     * Like {@link #BaseValueProcessor(String, Method, Method)}, optionally resolving the getter and setter into
+     * {@link MethodHandle}s so calls skip reflective access checks and argument array allocation.  Members that can't
+     * be resolved keep using reflection.
+     *
+     * @param targetField Field name on target object
+     * @param valueSource getter Method on source object
+     * @param valueTarget setter Method on target object.  If null, <code>targetField</code> will be assumed to be <code>public</code>.
+     * @param methodHandles whether to call the getter and setter through method handles
+     */
+    public BaseValueProcessor(String targetField, Method valueSource, Method valueTarget, boolean methodHandles) {
+        this(targetField, valueSource, valueTarget, null, methodHandles);
     }
 
     /**
@@ -38,6 +67,56 @@ public class BaseValueProcessor implements ValueProcessor {
         this(targetField, valueSource, null);
     }
 
+    /**
+     * Set up a mapping from a getter on the source object to a public field on the target object.
+     * The field is resolved up front instead of being looked up by name on every write.
+     *
+     * @param targetField Public field on target object
+     * @param valueSource getter Method on source object
+     */
+    public BaseValueProcessor(Field targetField, Method valueSource) {
+        this(targetField, valueSource, false);
+    }
+
+    /**
+     * Like {@link #BaseValueProcessor(Field, Method)}, optionally resolving the getter and the field into
+     * {@link MethodHandle}s
+     *
+     * @param targetField Public field on target object
+     * @param valueSource getter Method on source object
+     * @param methodHandles whether to call the getter and set the field through method handles
+     */
+    public BaseValueProcessor(Field targetField, Method valueSource, boolean methodHandles) {
+        this(targetField.getName(), valueSource, null, targetField, methodHandles);
+    }
+
+    private BaseValueProcessor(String targetField, Method valueSource, Method valueTarget, Field fieldTarget, boolean methodHandles) {
+        this.targetField = targetField;
+        this.valueSource = valueSource;
+        this.valueTarget = valueTarget;
+        this.fieldTarget = fieldTarget;
+        this.getterHandle = methodHandles && valueSource != null ? SerializerUtils.getterHandle(valueSource) : null;
+        if (!methodHandles) {
+            this.setterHandle = null;
+        } else if (valueTarget != null) {
+            this.setterHandle = SerializerUtils.setterHandle(valueTarget);
+        } else if (fieldTarget != null) {
+            this.setterHandle = SerializerUtils.fieldSetterHandle(fieldTarget);
+        } else {
+            this.setterHandle = null;
+        }
+    }
+
+    /**
+     * Values are read from the source only, so no target is needed outside {@link #serialize(Object, Object)}.
+     *
+     * @return false
+     */
+    @Override
+    public boolean needsTarget() {
+        return false;
+    }
+
     /**
      * Serialize a field from source to target.  Tries to use a setter if available, falls back to direct field access otherwise
      *
@@ -48,12 +127,7 @@ public class BaseValueProcessor implements ValueProcessor {
      */
     @Override
     public void serialize(Object source, Object target) throws SerializerException {
-        Object value = SerializerUtils.invokeGetter(source, valueSource);
-        if (valueTarget != null) {
-            SerializerUtils.setFieldWithSetter(target, valueTarget, value);
-        } else {
-            SerializerUtils.setFieldValue(target, targetField, value);
-        }
+        writeValue(target, readValue(source));
     }
 
     /**
@@ -68,7 +142,118 @@ public class BaseValueProcessor implements ValueProcessor {
      */
     @Override
     public void serializeToMap(Object source, Object target, Map<String, Object> map) throws SerializerException {
-        Object value = SerializerUtils.invokeGetter(source, valueSource);
+        Object value = readValue(source);
         map.put(targetField, value);
     }
+
+    /**
+     * Write the result of the getter as the JSON member <code>targetField</code>.  Null values are skipped.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out JSON writer positioned inside an object
+     * @throws SerializerException if calling the getter fails
+     * @throws IOException if writing to <code>out</code> fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToJson(Object source, Object target, JsonWriter out) throws SerializerException, IOException {
+        JsonUtils.writeMember(out, targetField, readValue(source));
+    }
+
+    /**
+     * Write the result of the getter to <code>out</code>
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out binary encoder positioned after the previous field of the object
+     * @throws SerializerException if calling the getter fails, or the value has no binary representation
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToBinary(Object source, Object target, BinaryEncoder out) throws SerializerException {
+        out.writeValue(readValue(source));
+    }
+
+    /**
+     * Read a value from <code>in</code> and set it on the target.  Lists are converted to arrays and sets when the
+     * setter or field is declared as one.
+     *
+     * @param target instance of the target class
+     * @param in binary decoder positioned at this field's value
+     * @throws SerializerException if the input is malformed or setting the value fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void deserializeFromBinary(Object target, BinaryDecoder in) throws SerializerException {
+        Object value = in.readValue();
+        if (value instanceof List) {
+            value = fromList((List<?>) value);
+        }
+        writeValue(target, value);
+    }
+
+    private Object fromList(List<?> values) {
+        Class<?> type = valueTarget != null && valueTarget.getParameterCount() == 1 ? valueTarget.getParameterTypes()[0]
+                : fieldTarget != null ? fieldTarget.getType() : null;
+        if (type == null || type.isAssignableFrom(values.getClass())) {
+            return values;
+        }
+        if (type.isArray() && !type.getComponentType().isPrimitive()) {
+            return values.toArray((Object[]) Array.newInstance(type.getComponentType(), values.size()));
+        }
+        if (type.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<Object>(values);
+        }
+        if (type.isAssignableFrom(TreeSet.class)) {
+            return new TreeSet<Object>(values);
+        }
+        if (type.isAssignableFrom(ArrayDeque.class)) {
+            return new ArrayDeque<Object>(values);
+        }
+        return values;
+    }
+
+    /**
+     * Read the value of this field from the source object by calling the getter
+     *
+     * @param source instance of the source class
+     * @return value returned by the getter
+     * @throws SerializerException if calling the getter fails
+     */
+    protected Object readValue(Object source) throws SerializerException {
+        if (getterHandle != null) {
+            try {
+                return (Object) getterHandle.invokeExact(source);
+            } catch (Throwable t) {
+                throw new SerializerException("Could not invoke '" + valueSource.getName()
+                        + "' on object of type '" + source.getClass().getName() + "'", t);
+            }
+        }
+        return SerializerUtils.invokeGetter(source, valueSource);
+    }
+
+    /**
+     * Set this field on the target object, using the setter if there is one and direct field access otherwise
+     *
+     * @param target instance of the target class
+     * @param value value to set
+     * @throws SerializerException if setting the value fails
+     */
+    protected void writeValue(Object target, Object value) throws SerializerException {
+        if (setterHandle != null) {
+            try {
+                setterHandle.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw new SerializerException("Could not set '" + targetField
+                        + "' on object of type '" + target.getClass().getName() + "'", t);
+            }
+        } else if (valueTarget != null) {
+            SerializerUtils.setFieldWithSetter(target, valueTarget, value);
+        } else if (fieldTarget != null) {
+            SerializerUtils.setFieldValue(target, fieldTarget, value);
+        } else {
+            SerializerUtils.setFieldValue(target, targetField, value);
+        }
+    }
 }
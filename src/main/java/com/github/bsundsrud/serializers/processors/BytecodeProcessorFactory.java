@@ -0,0 +1,251 @@
+package com.github.bsundsrud.serializers.processors;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.github.bsundsrud.serializers.util.SerializerUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.bsundsrud.serializers.processors.ClassFileBuilder.*;
+
+/**
+ * Builds {@link BaseValueProcessor}s whose getter and setter calls are compiled to bytecode instead of going through
+ * {@link Method#invoke(Object, Object...)}.
+ *
+ * One class is generated per mapping.  Its <code>copy</code> method is a plain
+ * <code>target.setFoo(source.getFoo())</code> (or <code>target.foo = source.getFoo()</code>), so primitives are not boxed
+ * and the JIT can inline the whole call.
+ *
+ * Generation needs the getter, setter/field and the classes involved to be public, and the types to line up exactly.
+ * Mappings that don't qualify get a regular reflective {@link BaseValueProcessor}.
+ */
+public class BytecodeProcessorFactory {
+    private static final String GENERATED_PACKAGE = "com/github/bsundsrud/serializers/generated/";
+    private static final String SUPER_NAME = internalName(GeneratedValueProcessor.class);
+    private static final String CONSTRUCTOR_DESC = "(Ljava/lang/String;Ljava/lang/reflect/Method;Ljava/lang/reflect/Method;)V";
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    private BytecodeProcessorFactory() {
+    }
+
+    /**
+     * Create a processor for the mapping, generating an accessor class if possible.
+     *
+     * @param targetClass class of the target object
+     * @param targetField field name on target object
+     * @param getter getter Method on source object
+     * @param setter setter Method on target object.  If null, <code>targetField</code> is assumed to be <code>public</code>
+     * @return a {@link GeneratedValueProcessor}, or a reflective {@link BaseValueProcessor} if the mapping can't be compiled
+     * @throws SerializerException if the generated class fails to load
+     */
+    public static BaseValueProcessor create(Class<?> targetClass, String targetField, Method getter, Method setter) throws SerializerException {
+        Field field = setter == null ? SerializerUtils.fieldForName(targetClass, targetField) : null;
+        if (!canGenerate(targetClass, getter, setter, field)) {
+            return field != null ? new BaseValueProcessor(field, getter) : new BaseValueProcessor(targetField, getter, setter);
+        }
+        String name = GENERATED_PACKAGE + "Accessor" + counter.incrementAndGet() + "_" + targetClass.getSimpleName() + "_" + targetField;
+        byte[] bytes = generate(name, targetClass, getter, setter, field);
+        try {
+            Class<?> cls = new AccessorClassLoader(targetClass.getClassLoader()).define(name.replace('/', '.'), bytes);
+            Constructor<?> ctor = cls.getConstructor(String.class, Method.class, Method.class);
+            return (BaseValueProcessor) ctor.newInstance(targetField, getter, setter);
+        } catch (LinkageError e) {
+            throw new SerializerException("Could not load generated accessor for '" + targetField
+                    + "' on type '" + targetClass.getName() + "'", e);
+        } catch (NoSuchMethodException e) {
+            throw new SerializerException("Generated accessor for '" + targetField + "' has no constructor", e);
+        } catch (InstantiationException e) {
+            throw new SerializerException("Could not instantiate generated accessor for '" + targetField + "'", e);
+        } catch (IllegalAccessException e) {
+            throw new SerializerException("Could not access generated accessor for '" + targetField + "'", e);
+        } catch (InvocationTargetException e) {
+            throw new SerializerException("Could not construct generated accessor for '" + targetField + "'", e);
+        }
+    }
+
+    private static boolean canGenerate(Class<?> targetClass, Method getter, Method setter, Field field) {
+        ClassLoader loader = targetClass.getClassLoader();
+        if (loader == null || getter == null || getter.getParameterCount() != 0 || getter.getReturnType() == void.class) {
+            return false;
+        }
+        if (!isAccessible(getter.getModifiers(), getter.getDeclaringClass()) || Modifier.isStatic(getter.getModifiers())) {
+            return false;
+        }
+        Class<?> targetType;
+        if (setter != null) {
+            if (setter.getParameterCount() != 1 || Modifier.isStatic(setter.getModifiers())
+                    || !isAccessible(setter.getModifiers(), setter.getDeclaringClass())) {
+                return false;
+            }
+            targetType = setter.getParameterTypes()[0];
+        } else {
+            if (field == null || Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())
+                    || !isAccessible(field.getModifiers(), field.getDeclaringClass())) {
+                return false;
+            }
+            targetType = field.getType();
+        }
+        if (!targetType.isPrimitive() && !isPublicType(targetType)) {
+            return false;
+        }
+        if (!targetType.isAssignableFrom(getter.getReturnType())) {
+            return false;
+        }
+        // The generated class is defined in a child of the target's loader, so everything it links against must be visible from there
+        Class<?> owner = setter != null ? setter.getDeclaringClass() : field.getDeclaringClass();
+        return isVisible(loader, getter.getDeclaringClass()) && isVisible(loader, owner)
+                && isVisible(loader, targetType) && isVisible(loader, GeneratedValueProcessor.class);
+    }
+
+    private static boolean isAccessible(int modifiers, Class<?> declaringClass) {
+        return Modifier.isPublic(modifiers) && isPublicType(declaringClass) && !declaringClass.isInterface();
+    }
+
+    private static boolean isPublicType(Class<?> cls) {
+        while (cls.isArray()) {
+            cls = cls.getComponentType();
+        }
+        for (Class<?> c = cls; c != null; c = c.getEnclosingClass()) {
+            if (!c.isPrimitive() && !Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(ClassLoader loader, Class<?> cls) {
+        while (cls.isArray()) {
+            cls = cls.getComponentType();
+        }
+        if (cls.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(cls.getName(), false, loader) == cls;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static byte[] generate(String name, Class<?> targetClass, Method getter, Method setter, Field field) {
+        ClassFileBuilder cf = new ClassFileBuilder(name, SUPER_NAME);
+        String sourceOwner = internalName(getter.getDeclaringClass());
+        Class<?> valueType = getter.getReturnType();
+        int getterRef = cf.methodRef(sourceOwner, getter.getName(), "()" + descriptor(valueType));
+        String targetOwner;
+        Class<?> targetType;
+        int targetRef;
+        int targetOp;
+        if (setter != null) {
+            targetOwner = internalName(setter.getDeclaringClass());
+            targetType = setter.getParameterTypes()[0];
+            targetRef = cf.methodRef(targetOwner, setter.getName(),
+                    "(" + descriptor(targetType) + ")" + descriptor(setter.getReturnType()));
+            targetOp = INVOKEVIRTUAL;
+        } else {
+            targetOwner = internalName(field.getDeclaringClass());
+            targetType = field.getType();
+            targetRef = cf.fieldRef(targetOwner, field.getName(), descriptor(targetType));
+            targetOp = PUTFIELD;
+        }
+        int valueSlots = slots(valueType);
+
+        // public <init>(String, Method, Method) { super(...); }
+        cf.addMethod("<init>", CONSTRUCTOR_DESC, new Code(4, 4)
+                .op(ALOAD_0).op(ALOAD_1).op(ALOAD_2).op(ALOAD_3)
+                .op(INVOKESPECIAL, cf.methodRef(SUPER_NAME, "<init>", CONSTRUCTOR_DESC))
+                .op(RETURN));
+
+        // public void copy(Object source, Object target) { ((Target) target).setX(((Source) source).getX()); }
+        Code copy = new Code(2 + valueSlots, 3)
+                .op(ALOAD_2).op(CHECKCAST, cf.classRef(targetOwner))
+                .op(ALOAD_1).op(CHECKCAST, cf.classRef(sourceOwner))
+                .op(INVOKEVIRTUAL, getterRef)
+                .op(targetOp, targetRef);
+        discardResult(copy, setter);
+        cf.addMethod("copy", "(Ljava/lang/Object;Ljava/lang/Object;)V", copy.op(RETURN));
+
+        // public Object read(Object source) { return box(((Source) source).getX()); }
+        Code read = new Code(Math.max(1, valueSlots), 2)
+                .op(ALOAD_1).op(CHECKCAST, cf.classRef(sourceOwner))
+                .op(INVOKEVIRTUAL, getterRef);
+        if (valueType.isPrimitive()) {
+            Class<?> boxed = boxedType(valueType);
+            read.op(INVOKESTATIC, cf.methodRef(internalName(boxed), "valueOf",
+                    "(" + descriptor(valueType) + ")" + descriptor(boxed)));
+        }
+        cf.addMethod("read", "(Ljava/lang/Object;)Ljava/lang/Object;", read.op(ARETURN));
+
+        // public void write(Object target, Object value) { ((Target) target).setX(unbox((Boxed) value)); }
+        Code write = new Code(1 + Math.max(1, slots(targetType)), 3)
+                .op(ALOAD_1).op(CHECKCAST, cf.classRef(targetOwner))
+                .op(ALOAD_2);
+        if (targetType.isPrimitive()) {
+            Class<?> boxed = boxedType(targetType);
+            write.op(CHECKCAST, cf.classRef(internalName(boxed)))
+                    .op(INVOKEVIRTUAL, cf.methodRef(internalName(boxed), targetType.getName() + "Value",
+                            "()" + descriptor(targetType)));
+        } else if (targetType != Object.class) {
+            write.op(CHECKCAST, cf.classRef(internalName(targetType)));
+        }
+        write.op(targetOp, targetRef);
+        discardResult(write, setter);
+        cf.addMethod("write", "(Ljava/lang/Object;Ljava/lang/Object;)V", write.op(RETURN));
+
+        return cf.toByteArray();
+    }
+
+    private static void discardResult(Code code, Method setter) {
+        // fluent setters return a value that has to be popped
+        if (setter != null && setter.getReturnType() != void.class) {
+            code.op(slots(setter.getReturnType()) == 2 ? POP2 : POP);
+        }
+    }
+
+    private static int slots(Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static String internalName(Class<?> cls) {
+        return cls.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> cls) {
+        if (cls == void.class) return "V";
+        if (cls == int.class) return "I";
+        if (cls == long.class) return "J";
+        if (cls == double.class) return "D";
+        if (cls == float.class) return "F";
+        if (cls == boolean.class) return "Z";
+        if (cls == byte.class) return "B";
+        if (cls == short.class) return "S";
+        if (cls == char.class) return "C";
+        if (cls.isArray()) return internalName(cls);
+        return "L" + internalName(cls) + ";";
+    }
+
+    private static Class<?> boxedType(Class<?> primitive) {
+        if (primitive == int.class) return Integer.class;
+        if (primitive == long.class) return Long.class;
+        if (primitive == double.class) return Double.class;
+        if (primitive == float.class) return Float.class;
+        if (primitive == boolean.class) return Boolean.class;
+        if (primitive == byte.class) return Byte.class;
+        if (primitive == short.class) return Short.class;
+        return Character.class;
+    }
+
+    private static class AccessorClassLoader extends ClassLoader {
+        AccessorClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
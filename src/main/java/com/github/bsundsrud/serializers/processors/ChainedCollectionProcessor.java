@@ -0,0 +1,414 @@
+package com.github.bsundsrud.serializers.processors;
+
+import com.github.bsundsrud.serializers.AnnotationSerializer;
+import com.github.bsundsrud.serializers.FieldProjection;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Handles {@link WithSerializer} fields and setters whose type is an array, a {@link Collection} or a {@link Map}.
+ * Every element (or map value) is serialized with the same sub-serializer; map keys are copied as they are.
+ *
+ * Results are built in a container of the declared type, presized from the source: arrays of the component type,
+ * {@link ArrayList} for lists and plain collections, {@link LinkedHashSet} for sets, {@link TreeSet} for sorted sets,
+ * {@link ArrayDeque} for queues, and {@link LinkedHashMap} or {@link TreeMap} for maps.
+ * Map targets need a {@link Map} source value; other targets take any array or {@link Iterable}, or the values of a {@link Map}.
+ */
+public class ChainedCollectionProcessor extends ChainedProcessor {
+    private final Class<?> containerType;
+    private final boolean mapTarget;
+
+    /**
+     * Construct a new instance of a ChainedCollectionProcessor.
+     *
+     * @param serializer serializer instance to use for each element
+     * @param targetField field on target object to set the result to
+     * @param getter getter on source object
+     * @param setter setter on target object.  If null, <code>targetField</code> is assumed to be <code>public</code>
+     * @param containerType declared type of the target field or setter parameter
+     * @throws SerializerException if <code>containerType</code> is not a supported array, collection or map type
+     */
+    public ChainedCollectionProcessor(AnnotationSerializer serializer, String targetField, Method getter, Method setter,
+                                      Class<?> containerType) throws SerializerException {
+        this(serializer, targetField, getter, setter, containerType, false);
+    }
+
+    /**
+     * Construct a new instance of a ChainedCollectionProcessor, optionally calling the getter and setter through method handles.
+     *
+     * @param serializer serializer instance to use for each element
+     * @param targetField field on target object to set the result to
+     * @param getter getter on source object
+     * @param setter setter on target object.  If null, <code>targetField</code> is assumed to be <code>public</code>
+     * @param containerType declared type of the target field or setter parameter
+     * @param methodHandles whether to call the getter and setter through method handles
+     * @throws SerializerException if <code>containerType</code> is not a supported array, collection or map type
+     */
+    public ChainedCollectionProcessor(AnnotationSerializer serializer, String targetField, Method getter, Method setter,
+                                      Class<?> containerType, boolean methodHandles) throws SerializerException {
+        super(serializer, targetField, getter, setter, methodHandles);
+        this.containerType = checkContainerType(containerType, targetField);
+        this.mapTarget = Map.class.isAssignableFrom(containerType);
+    }
+
+    /**
+     * Construct a new instance of a ChainedCollectionProcessor that sets its result on a public field.
+     *
+     * @param serializer serializer instance to use for each element
+     * @param targetField public field on target object to set the result to
+     * @param getter getter on source object
+     * @throws SerializerException if the field's type is not a supported array, collection or map type
+     */
+    public ChainedCollectionProcessor(AnnotationSerializer serializer, Field targetField, Method getter) throws SerializerException {
+        this(serializer, targetField, getter, false);
+    }
+
+    /**
+     * Construct a new instance of a ChainedCollectionProcessor that sets its result on a public field, optionally
+     * calling the getter and setting the field through method handles.
+     *
+     * @param serializer serializer instance to use for each element
+     * @param targetField public field on target object to set the result to
+     * @param getter getter on source object
+     * @param methodHandles whether to call the getter and set the field through method handles
+     * @throws SerializerException if the field's type is not a supported array, collection or map type
+     */
+    public ChainedCollectionProcessor(AnnotationSerializer serializer, Field targetField, Method getter, boolean methodHandles) throws SerializerException {
+        super(serializer, targetField, getter, methodHandles);
+        this.containerType = checkContainerType(targetField.getType(), targetField.getName());
+        this.mapTarget = Map.class.isAssignableFrom(containerType);
+    }
+
+    /**
+     * @param type declared type of a field or setter parameter
+     * @return whether values of that type are handled by this processor rather than {@link ChainedProcessor}
+     */
+    public static boolean isContainer(Class<?> type) {
+        return type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Find the type serialized for each element: the component type of an array, the type argument of a collection,
+     * or the value type argument of a map.
+     *
+     * @param type declared type of a field or setter parameter
+     * @param genericType generic declared type of the same field or parameter
+     * @return the element class, or null if it is not declared (raw types, wildcards, type variables)
+     */
+    public static Class<?> elementType(Class<?> type, Type genericType) {
+        if (type.isArray()) {
+            return type.getComponentType();
+        }
+        if (!(genericType instanceof ParameterizedType)) {
+            return null;
+        }
+        Type[] args = ((ParameterizedType) genericType).getActualTypeArguments();
+        Type element = Map.class.isAssignableFrom(type) ? args[args.length - 1] : args[0];
+        if (element instanceof Class) {
+            return (Class<?>) element;
+        }
+        if (element instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) element).getRawType();
+        }
+        return null;
+    }
+
+    private static Class<?> checkContainerType(Class<?> type, String targetField) throws SerializerException {
+        if (type.isArray() || type.isAssignableFrom(ArrayList.class) || type.isAssignableFrom(LinkedHashSet.class)
+                || type.isAssignableFrom(TreeSet.class) || type.isAssignableFrom(ArrayDeque.class)
+                || type.isAssignableFrom(LinkedHashMap.class) || type.isAssignableFrom(TreeMap.class)) {
+            return type;
+        }
+        throw new SerializerException("Unsupported container type '" + type.getName() + "' for '" + targetField + "'");
+    }
+
+    /**
+     * Serialize every element of the source container into a new container of the target type.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class
+     * @param projection fields of each element, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter, serialization of an element, or setting the value fails
+     * @see ValueProcessor
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void serialize(Object source, Object target, FieldProjection<?> projection) throws SerializerException {
+        Object value = readValue(source);
+        Object result = null;
+        if (value != null && mapTarget) {
+            Map<?, ?> values = asMap(value);
+            Map<Object, Object> map = newMap(values.size());
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                map.put(entry.getKey(), projection.serialize(entry.getValue()));
+            }
+            result = map;
+        } else if (value != null) {
+            Iterable<?> elements = elements(value);
+            if (containerType.isArray()) {
+                List<?> list = projection.serializeAll(elements, new ArrayList<Object>(size(value)));
+                result = list.toArray((Object[]) Array.newInstance(containerType.getComponentType(), list.size()));
+            } else {
+                try {
+                    result = projection.serializeAll(elements, newCollection(size(value)));
+                } catch (NullPointerException e) {
+                    throw new SerializerException("Collection type '" + containerType.getName() + "' of '" + targetField
+                            + "' does not permit null elements", e);
+                } catch (ClassCastException e) {
+                    throw new SerializerException("Elements of '" + targetField + "' cannot be sorted", e);
+                }
+            }
+        }
+        writeValue(target, result);
+    }
+
+    /**
+     * Serialize every element of the source container to a {@link Map}, and put them into the result map as a
+     * {@link List} (arrays and collections) or a {@link Map} keyed like the source.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param map Map to insert results into
+     * @param projection fields of each element, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter or serialization of an element fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToMap(Object source, Object target, Map<String, Object> map, FieldProjection<?> projection) throws SerializerException {
+        map.put(targetField, toMaps(readValue(source), projection, false));
+    }
+
+    /**
+     * Like {@link #serializeToMap(Object, Object, Map, FieldProjection)}, but every element becomes a lazy map whose fields are only
+     * serialized when they are read.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param map Map to insert results into
+     * @param projection fields of each element, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToLazyMap(Object source, Object target, Map<String, Object> map, FieldProjection<?> projection) throws SerializerException {
+        map.put(targetField, toMaps(readValue(source), projection, true));
+    }
+
+    private Object toMaps(Object value, FieldProjection<?> projection, boolean lazy) throws SerializerException {
+        if (value == null) {
+            return null;
+        }
+        if (mapTarget) {
+            Map<?, ?> values = asMap(value);
+            Map<Object, Object> results = newMap(values.size());
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                results.put(entry.getKey(), toMap(entry.getValue(), projection, lazy));
+            }
+            return results;
+        }
+        if (!lazy) {
+            return projection.serializeAllToMaps(elements(value));
+        }
+        List<Object> results = new ArrayList<Object>(size(value));
+        for (Object element : elements(value)) {
+            results.add(toMap(element, projection, true));
+        }
+        return results;
+    }
+
+    private Object toMap(Object element, FieldProjection<?> projection, boolean lazy) throws SerializerException {
+        return lazy ? projection.serializeToLazyMap(element) : projection.serializeToMap(element);
+    }
+
+    /**
+     * Write the source container as a JSON array (or object, for maps) of serialized elements.
+     * Null containers are skipped.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out JSON writer positioned inside an object
+     * @param projection fields of each element, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter or serialization of an element fails
+     * @throws IOException if writing to <code>out</code> fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToJson(Object source, Object target, JsonWriter out, FieldProjection<?> projection) throws SerializerException, IOException {
+        Object value = readValue(source);
+        if (value == null) {
+            return;
+        }
+        out.name(targetField);
+        if (mapTarget) {
+            out.beginObject();
+            for (Map.Entry<?, ?> entry : asMap(value).entrySet()) {
+                if (entry.getValue() != null) {
+                    out.name(String.valueOf(entry.getKey()));
+                    projection.serializeTo(entry.getValue(), out);
+                }
+            }
+            out.endObject();
+        } else {
+            out.beginArray();
+            for (Object element : elements(value)) {
+                // null elements are written as {}, like the empty maps serializeToMap produces for them
+                projection.serializeTo(element, out);
+            }
+            out.endArray();
+        }
+    }
+
+    /**
+     * Write the source container as a binary list (or map, for maps) of serialized elements.  Map keys are written as
+     * plain values.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out binary encoder positioned after the previous field of the object
+     * @param projection fields of each element, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter or serialization of an element fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToBinary(Object source, Object target, BinaryEncoder out, FieldProjection<?> projection) throws SerializerException {
+        Object value = readValue(source);
+        if (value == null) {
+            out.writeNull();
+        } else if (mapTarget) {
+            Map<?, ?> values = asMap(value);
+            out.beginMap(values.size());
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                out.writeValue(entry.getKey());
+                projection.writeBinary(entry.getValue(), out);
+            }
+        } else {
+            Iterable<?> elements = elements(value);
+            if (!(elements instanceof Collection)) {
+                // the count comes first, so plain iterables are collected
+                List<Object> list = new ArrayList<Object>();
+                for (Object element : elements) {
+                    list.add(element);
+                }
+                elements = list;
+            }
+            out.beginList(((Collection<?>) elements).size());
+            for (Object element : elements) {
+                projection.writeBinary(element, out);
+            }
+        }
+    }
+
+    /**
+     * Read a binary list or map of serialized elements into a new container of the target type
+     *
+     * @param target instance of the target class
+     * @param in binary decoder positioned at this field's value
+     * @param projection fields of each element, compiled from this processor's serializer
+     * @throws SerializerException if the input is malformed, or creating an element or setting the value fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void deserializeFromBinary(Object target, BinaryDecoder in, FieldProjection<?> projection) throws SerializerException {
+        int size = in.beginContainer(mapTarget);
+        Object result = null;
+        if (size >= 0 && mapTarget) {
+            Map<Object, Object> map = newMap(size);
+            for (int i = 0; i < size; i++) {
+                map.put(in.readValue(), projection.readBinary(in));
+            }
+            result = map;
+        } else if (size >= 0 && containerType.isArray()) {
+            Object[] array = (Object[]) Array.newInstance(containerType.getComponentType(), size);
+            for (int i = 0; i < size; i++) {
+                array[i] = projection.readBinary(in);
+            }
+            result = array;
+        } else if (size >= 0) {
+            Collection<Object> collection = newCollection(size);
+            try {
+                for (int i = 0; i < size; i++) {
+                    collection.add(projection.readBinary(in));
+                }
+            } catch (NullPointerException e) {
+                throw new SerializerException("Collection type '" + containerType.getName() + "' of '" + targetField
+                        + "' does not permit null elements", e);
+            } catch (ClassCastException e) {
+                throw new SerializerException("Elements of '" + targetField + "' cannot be sorted", e);
+            }
+            result = collection;
+        }
+        writeValue(target, result);
+    }
+
+    private Map<?, ?> asMap(Object value) throws SerializerException {
+        if (value instanceof Map) {
+            return (Map<?, ?>) value;
+        }
+        throw new SerializerException("Value of '" + targetField + "' is not a map: " + value.getClass().getName());
+    }
+
+    private Iterable<?> elements(Object value) throws SerializerException {
+        if (value instanceof Iterable) {
+            return (Iterable<?>) value;
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).values();
+        }
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        }
+        throw new SerializerException("Value of '" + targetField + "' is not an array or collection: " + value.getClass().getName());
+    }
+
+    private static int size(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        return value instanceof Object[] ? ((Object[]) value).length : 10;
+    }
+
+    private static int capacity(int size) {
+        return Math.max(16, (int) (size / 0.75f) + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> newCollection(int size) throws SerializerException {
+        if (containerType.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<Object>(size);
+        }
+        if (containerType.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<Object>(capacity(size));
+        }
+        if (containerType.isAssignableFrom(TreeSet.class)) {
+            return new TreeSet<Object>();
+        }
+        if (containerType.isAssignableFrom(ArrayDeque.class)) {
+            return new ArrayDeque<Object>(size);
+        }
+        throw new SerializerException("Cannot set a collection on '" + targetField + "' of type '" + containerType.getName() + "'");
+    }
+
+    private Map<Object, Object> newMap(int size) throws SerializerException {
+        if (containerType.isAssignableFrom(LinkedHashMap.class)) {
+            return new LinkedHashMap<Object, Object>(capacity(size));
+        }
+        if (containerType.isAssignableFrom(TreeMap.class)) {
+            return new TreeMap<Object, Object>();
+        }
+        throw new SerializerException("Cannot set a map on '" + targetField + "' of type '" + containerType.getName() + "'");
+    }
+}
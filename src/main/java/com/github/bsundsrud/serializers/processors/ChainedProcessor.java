@@ -1,10 +1,15 @@
 package com.github.bsundsrud.serializers.processors;
 
 import com.github.bsundsrud.serializers.annotations.WithSerializer;
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
 import com.github.bsundsrud.serializers.util.SerializerException;
-import com.github.bsundsrud.serializers.util.SerializerUtils;
 import com.github.bsundsrud.serializers.AnnotationSerializer;
+import com.github.bsundsrud.serializers.FieldProjection;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Map;
 
@@ -13,7 +18,7 @@ import java.util.Map;
  */
 public class ChainedProcessor extends BaseValueProcessor {
 
-    private AnnotationSerializer serializer;
+    private final AnnotationSerializer serializer;
 
     /**
      * Construct a new instance of a ChainedProcessor.
@@ -24,7 +29,45 @@ public class ChainedProcessor extends BaseValueProcessor {
      * @param setter setter on target object.  If null, <code>targetField</code> is assumed to be <code>public</code>
      */
     public ChainedProcessor(AnnotationSerializer serializer, String targetField, Method getter, Method setter) {
-        super(targetField, getter, setter);
+        this(serializer, targetField, getter, setter, false);
+    }
+
+    /**
+     * Construct a new instance of a ChainedProcessor, optionally calling the getter and setter through method handles.
+     *
+     * @param serializer serializer instance to use for source field
+     * @param targetField field on target object to set the result to
+     * @param getter getter on source object
+     * @param setter setter on target object.  If null, <code>targetField</code> is assumed to be <code>public</code>
+     * @param methodHandles whether to call the getter and setter through method handles
+     */
+    public ChainedProcessor(AnnotationSerializer serializer, String targetField, Method getter, Method setter, boolean methodHandles) {
+        super(targetField, getter, setter, methodHandles);
+        this.serializer = serializer;
+    }
+
+    /**
+     * Construct a new instance of a ChainedProcessor that sets its result on a public field.
+     *
+     * @param serializer serializer instance to use for source field
+     * @param targetField public field on target object to set the result to
+     * @param getter getter on source object
+     */
+    public ChainedProcessor(AnnotationSerializer serializer, Field targetField, Method getter) {
+        this(serializer, targetField, getter, false);
+    }
+
+    /**
+     * Construct a new instance of a ChainedProcessor that sets its result on a public field, optionally calling the
+     * getter and setting the field through method handles.
+     *
+     * @param serializer serializer instance to use for source field
+     * @param targetField public field on target object to set the result to
+     * @param getter getter on source object
+     * @param methodHandles whether to call the getter and set the field through method handles
+     */
+    public ChainedProcessor(AnnotationSerializer serializer, Field targetField, Method getter, boolean methodHandles) {
+        super(targetField, getter, methodHandles);
         this.serializer = serializer;
     }
 
@@ -45,13 +88,21 @@ public class ChainedProcessor extends BaseValueProcessor {
      */
     @Override
     public void serialize(Object source, Object target) throws SerializerException {
-        Object value = SerializerUtils.invokeGetter(source, valueSource);
-        Object serialized = getSerializer().serialize(value);
-        if (valueTarget != null) {
-            SerializerUtils.setFieldWithSetter(target, valueTarget, serialized);
-        } else {
-            SerializerUtils.setFieldValue(target, targetField, serialized);
-        }
+        serialize(source, target, getSerializer().projection());
+    }
+
+    /**
+     * Like {@link #serialize(Object, Object)}, serializing the sub-object with only the fields of <code>projection</code>
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class
+     * @param projection fields of the sub-object, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter, serialization of the sub-object, or setting the value fails
+     */
+    public void serialize(Object source, Object target, FieldProjection<?> projection) throws SerializerException {
+        Object value = readValue(source);
+        Object serialized = projection.serialize(value);
+        writeValue(target, serialized);
     }
 
     /**
@@ -66,9 +117,136 @@ public class ChainedProcessor extends BaseValueProcessor {
      */
     @Override
     public void serializeToMap(Object source, Object target, Map<String, Object> map) throws SerializerException {
-        Object value = SerializerUtils.invokeGetter(source, valueSource);
+        serializeToMap(source, target, map, getSerializer().projection());
+    }
+
+    /**
+     * Like {@link #serializeToMap(Object, Object, Map)}, serializing the sub-object with only the fields of <code>projection</code>
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param map Map to insert results into
+     * @param projection fields of the sub-object, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter or serialization of the sub-object fails
+     */
+    public void serializeToMap(Object source, Object target, Map<String, Object> map, FieldProjection<?> projection) throws SerializerException {
+        Object value = readValue(source);
 
-        Object serialized = getSerializer().serializeToMap(value);
+        Object serialized = projection.serializeToMap(value);
         map.put(targetField, serialized);
     }
+
+    /**
+     * Put the result of the getter into the map as a lazy map from the serializer instance, so the sub-object's fields
+     * are only serialized when they are read.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param map Map to insert results into
+     * @throws SerializerException if calling the getter fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToLazyMap(Object source, Object target, Map<String, Object> map) throws SerializerException {
+        serializeToLazyMap(source, target, map, getSerializer().projection());
+    }
+
+    /**
+     * Like {@link #serializeToLazyMap(Object, Object, Map)}, with only the fields of <code>projection</code> in the lazy map
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param map Map to insert results into
+     * @param projection fields of the sub-object, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter fails
+     */
+    public void serializeToLazyMap(Object source, Object target, Map<String, Object> map, FieldProjection<?> projection) throws SerializerException {
+        Object value = readValue(source);
+        map.put(targetField, projection.serializeToLazyMap(value));
+    }
+
+    /**
+     * Write the result of the getter, run through the serializer instance, inline as the JSON member <code>targetField</code>.
+     * No intermediate object or map is built for the sub-object.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out JSON writer positioned inside an object
+     * @throws SerializerException if calling the getter or serialization of the sub-object fails
+     * @throws IOException if writing to <code>out</code> fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToJson(Object source, Object target, JsonWriter out) throws SerializerException, IOException {
+        serializeToJson(source, target, out, getSerializer().projection());
+    }
+
+    /**
+     * Like {@link #serializeToJson(Object, Object, JsonWriter)}, writing only the fields of <code>projection</code> for the sub-object
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out JSON writer positioned inside an object
+     * @param projection fields of the sub-object, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter or serialization of the sub-object fails
+     * @throws IOException if writing to <code>out</code> fails
+     */
+    public void serializeToJson(Object source, Object target, JsonWriter out, FieldProjection<?> projection) throws SerializerException, IOException {
+        Object value = readValue(source);
+        out.name(targetField);
+        projection.serializeTo(value, out);
+    }
+
+    /**
+     * Write the result of the getter, run through the serializer instance, as a nested binary object
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out binary encoder positioned after the previous field of the object
+     * @throws SerializerException if calling the getter or serialization of the sub-object fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToBinary(Object source, Object target, BinaryEncoder out) throws SerializerException {
+        serializeToBinary(source, target, out, getSerializer().projection());
+    }
+
+    /**
+     * Like {@link #serializeToBinary(Object, Object, BinaryEncoder)}, writing only the fields of <code>projection</code> for the sub-object
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out binary encoder positioned after the previous field of the object
+     * @param projection fields of the sub-object, compiled from this processor's serializer
+     * @throws SerializerException if calling the getter or serialization of the sub-object fails
+     */
+    public void serializeToBinary(Object source, Object target, BinaryEncoder out, FieldProjection<?> projection) throws SerializerException {
+        Object value = readValue(source);
+        projection.writeBinary(value, out);
+    }
+
+    /**
+     * Read a nested binary object into an instance of the sub-serializer's class and set it on the target
+     *
+     * @param target instance of the target class
+     * @param in binary decoder positioned at this field's value
+     * @throws SerializerException if the input is malformed, or creating the sub-object or setting the value fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void deserializeFromBinary(Object target, BinaryDecoder in) throws SerializerException {
+        deserializeFromBinary(target, in, getSerializer().projection());
+    }
+
+    /**
+     * Like {@link #deserializeFromBinary(Object, BinaryDecoder)}, for a sub-object written with the fields of <code>projection</code>
+     *
+     * @param target instance of the target class
+     * @param in binary decoder positioned at this field's value
+     * @param projection fields of the sub-object, compiled from this processor's serializer
+     * @throws SerializerException if the input is malformed, or creating the sub-object or setting the value fails
+     */
+    public void deserializeFromBinary(Object target, BinaryDecoder in, FieldProjection<?> projection) throws SerializerException {
+        writeValue(target, projection.readBinary(in));
+    }
 }
@@ -0,0 +1,216 @@
+package com.github.bsundsrud.serializers.processors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal class file writer used by {@link BytecodeProcessorFactory}.
+ * Only supports what the generated accessors need: a constant pool, and methods made of straight-line code.
+ * Classes are written as version 49 so no stack map frames are required.
+ */
+class ClassFileBuilder {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    static final int ALOAD_0 = 0x2a;
+    static final int ALOAD_1 = 0x2b;
+    static final int ALOAD_2 = 0x2c;
+    static final int ALOAD_3 = 0x2d;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int PUTFIELD = 0xb5;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int CHECKCAST = 0xc0;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolIndex = new HashMap<String, Integer>();
+    private int poolCount = 1;
+
+    private final List<byte[]> methods = new ArrayList<byte[]>();
+    private final int thisClass;
+    private final int superClass;
+
+    /**
+     * @param internalName internal name (slash-separated) of the class to generate
+     * @param superInternalName internal name of its superclass
+     */
+    ClassFileBuilder(String internalName, String superInternalName) {
+        this.thisClass = classRef(internalName);
+        this.superClass = classRef(superInternalName);
+    }
+
+    int utf8(String value) {
+        Integer existing = poolIndex.get("U" + value);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            poolOut.writeByte(CONSTANT_UTF8);
+            poolOut.writeUTF(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return register("U" + value, 1);
+    }
+
+    int classRef(String internalName) {
+        Integer existing = poolIndex.get("C" + internalName);
+        if (existing != null) {
+            return existing;
+        }
+        int name = utf8(internalName);
+        writeEntry(CONSTANT_CLASS, name);
+        return register("C" + internalName, 1);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        String key = tag + owner + "." + name + descriptor;
+        Integer existing = poolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        writeEntry(tag, ownerIndex, nameAndType);
+        return register(key, 1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+        Integer existing = poolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int nameIndex = utf8(name);
+        int descIndex = utf8(descriptor);
+        writeEntry(CONSTANT_NAME_AND_TYPE, nameIndex, descIndex);
+        return register(key, 1);
+    }
+
+    private void writeEntry(int tag, int... indexes) {
+        try {
+            poolOut.writeByte(tag);
+            for (int i : indexes) {
+                poolOut.writeShort(i);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int register(String key, int slots) {
+        int index = poolCount;
+        poolIndex.put(key, index);
+        poolCount += slots;
+        return index;
+    }
+
+    /**
+     * Add a public method to the class.
+     *
+     * @param name method name
+     * @param descriptor method descriptor
+     * @param code bytecode of the method body, built with {@link Code}
+     */
+    void addMethod(String name, String descriptor, Code code) {
+        int nameIndex = utf8(name);
+        int descIndex = utf8(descriptor);
+        int codeAttr = utf8("Code");
+        byte[] body = code.bytes.toByteArray();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(nameIndex);
+            out.writeShort(descIndex);
+            out.writeShort(1); // attributes_count
+            out.writeShort(codeAttr);
+            out.writeInt(12 + body.length);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(body.length);
+            out.write(body);
+            out.writeShort(0); // exception_table_length
+            out.writeShort(0); // attributes_count
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // minor
+            out.writeShort(49); // major
+            out.writeShort(poolCount);
+            out.write(pool.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] m : methods) {
+                out.write(m);
+            }
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Straight-line method body.  Stack and local sizes are supplied by the caller.
+     */
+    static class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int maxStack;
+        private final int maxLocals;
+
+        Code(int maxStack, int maxLocals) {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code op(int opcode, int index) {
+            bytes.write(opcode);
+            bytes.write((index >> 8) & 0xff);
+            bytes.write(index & 0xff);
+            return this;
+        }
+    }
+}
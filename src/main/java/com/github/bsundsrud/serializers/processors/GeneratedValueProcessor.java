@@ -0,0 +1,72 @@
+package com.github.bsundsrud.serializers.processors;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+
+import java.lang.reflect.Method;
+
+/**
+ * Base class of the accessors generated by {@link BytecodeProcessorFactory} and of the plain field mappings in
+ * {@link com.github.bsundsrud.serializers.GeneratedMappings}.
+ * Subclasses call the getter and setter directly; this class turns anything they throw into a {@link SerializerException}.
+ */
+public abstract class GeneratedValueProcessor extends BaseValueProcessor {
+
+    /**
+     * @param targetField Field name on target object
+     * @param valueSource getter Method on source object, or null if not known
+     * @param valueTarget setter Method on target object, or null for a public field or if not known
+     */
+    protected GeneratedValueProcessor(String targetField, Method valueSource, Method valueTarget) {
+        super(targetField, valueSource, valueTarget);
+    }
+
+    /**
+     * Copy the value straight from the getter into the setter or field, without boxing.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class
+     */
+    protected abstract void copy(Object source, Object target);
+
+    /**
+     * @param source instance of the source class
+     * @return the getter's result, boxed if primitive
+     */
+    protected abstract Object read(Object source);
+
+    /**
+     * @param target instance of the target class
+     * @param value value to set, unboxed if the target is primitive
+     */
+    protected abstract void write(Object target, Object value);
+
+    @Override
+    public void serialize(Object source, Object target) throws SerializerException {
+        try {
+            copy(source, target);
+        } catch (Exception e) {
+            throw new SerializerException("Could not copy '" + targetField
+                    + "' from object of type '" + source.getClass().getName() + "'", e);
+        }
+    }
+
+    @Override
+    protected Object readValue(Object source) throws SerializerException {
+        try {
+            return read(source);
+        } catch (Exception e) {
+            throw new SerializerException("Could not invoke '" + (valueSource != null ? valueSource.getName() : "getter of " + targetField)
+                    + "' on object of type '" + source.getClass().getName() + "'", e);
+        }
+    }
+
+    @Override
+    protected void writeValue(Object target, Object value) throws SerializerException {
+        try {
+            write(target, value);
+        } catch (Exception e) {
+            throw new SerializerException("Could not set '" + targetField
+                    + "' on object of type '" + target.getClass().getName() + "'", e);
+        }
+    }
+}
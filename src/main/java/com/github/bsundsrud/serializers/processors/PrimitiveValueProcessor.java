@@ -0,0 +1,259 @@
+package com.github.bsundsrud.serializers.processors;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Serializes an <code>int</code>, <code>long</code>, <code>double</code> or <code>boolean</code> getter into a setter or
+ * public field of the same primitive type.
+ *
+ * The getter and setter are resolved into {@link MethodHandle}s typed with the primitive itself, so
+ * {@link #serialize(Object, Object)} and {@link #serializeToJson(Object, Object, JsonWriter)} never box the value.
+ * {@link #serializeToMap(Object, Object, java.util.Map)} still has to put a boxed value into the map.
+ */
+public abstract class PrimitiveValueProcessor extends BaseValueProcessor {
+    protected final MethodHandle getter;
+    protected final MethodHandle setter;
+
+    private PrimitiveValueProcessor(String targetField, Method valueSource, Method valueTarget, MethodHandle getter, MethodHandle setter) {
+        super(targetField, valueSource, valueTarget);
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Create a primitive processor for the mapping, if it qualifies.
+     *
+     * @param targetField field name on target object
+     * @param valueSource getter Method on source object
+     * @param valueTarget setter Method on target object, or null to write <code>field</code>
+     * @param field public field on target object, used if <code>valueTarget</code> is null
+     * @return the processor, or null if the getter does not return a supported primitive, the setter or field has a
+     * different type, or either is not accessible from this library
+     */
+    public static PrimitiveValueProcessor forMapping(String targetField, Method valueSource, Method valueTarget, Field field) {
+        Class<?> type = valueSource.getReturnType();
+        if (valueSource.getParameterCount() != 0) {
+            return null;
+        }
+        if (type != int.class && type != long.class && type != double.class && type != boolean.class) {
+            return null;
+        }
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            getter = lookup.unreflect(valueSource).asType(MethodType.methodType(type, Object.class));
+            if (valueTarget != null) {
+                if (valueTarget.getParameterCount() != 1 || valueTarget.getParameterTypes()[0] != type) {
+                    return null;
+                }
+                setter = lookup.unreflect(valueTarget);
+            } else if (field != null) {
+                if (field.getType() != type) {
+                    return null;
+                }
+                setter = lookup.unreflectSetter(field);
+            } else {
+                return null;
+            }
+            setter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+        if (type == int.class) {
+            return new IntProcessor(targetField, valueSource, valueTarget, getter, setter);
+        }
+        if (type == long.class) {
+            return new LongProcessor(targetField, valueSource, valueTarget, getter, setter);
+        }
+        if (type == double.class) {
+            return new DoubleProcessor(targetField, valueSource, valueTarget, getter, setter);
+        }
+        return new BooleanProcessor(targetField, valueSource, valueTarget, getter, setter);
+    }
+
+    @Override
+    public void serialize(Object source, Object target) throws SerializerException {
+        try {
+            copy(source, target);
+        } catch (Throwable t) {
+            throw new SerializerException("Could not copy '" + targetField
+                    + "' from object of type '" + source.getClass().getName() + "'", t);
+        }
+    }
+
+    @Override
+    public void serializeToJson(Object source, Object target, JsonWriter out) throws SerializerException, IOException {
+        out.name(targetField);
+        try {
+            writeJson(source, out);
+        } catch (IOException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new SerializerException("Could not write '" + targetField + "' as JSON", e);
+        } catch (Throwable t) {
+            throw new SerializerException("Could not invoke '" + valueSource.getName()
+                    + "' on object of type '" + source.getClass().getName() + "'", t);
+        }
+    }
+
+    @Override
+    protected Object readValue(Object source) throws SerializerException {
+        try {
+            return read(source);
+        } catch (Throwable t) {
+            throw new SerializerException("Could not invoke '" + valueSource.getName()
+                    + "' on object of type '" + source.getClass().getName() + "'", t);
+        }
+    }
+
+    @Override
+    protected void writeValue(Object target, Object value) throws SerializerException {
+        try {
+            write(target, value);
+        } catch (Throwable t) {
+            throw new SerializerException("Could not set '" + targetField
+                    + "' on object of type '" + target.getClass().getName() + "'", t);
+        }
+    }
+
+    /**
+     * Copy the primitive from the getter into the setter or field.
+     */
+    protected abstract void copy(Object source, Object target) throws Throwable;
+
+    /**
+     * Write the primitive as the JSON value of the member already named on <code>out</code>.
+     */
+    protected abstract void writeJson(Object source, JsonWriter out) throws Throwable;
+
+    /**
+     * @return the getter's result, boxed
+     */
+    protected abstract Object read(Object source) throws Throwable;
+
+    /**
+     * Unbox <code>value</code> and set it on the target.
+     */
+    protected abstract void write(Object target, Object value) throws Throwable;
+
+    private static final class IntProcessor extends PrimitiveValueProcessor {
+        IntProcessor(String targetField, Method valueSource, Method valueTarget, MethodHandle getter, MethodHandle setter) {
+            super(targetField, valueSource, valueTarget, getter, setter);
+        }
+
+        @Override
+        protected void copy(Object source, Object target) throws Throwable {
+            int value = (int) getter.invokeExact(source);
+            setter.invokeExact(target, value);
+        }
+
+        @Override
+        protected void writeJson(Object source, JsonWriter out) throws Throwable {
+            int value = (int) getter.invokeExact(source);
+            out.value((long) value);
+        }
+
+        @Override
+        protected Object read(Object source) throws Throwable {
+            return (int) getter.invokeExact(source);
+        }
+
+        @Override
+        protected void write(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, ((Integer) value).intValue());
+        }
+    }
+
+    private static final class LongProcessor extends PrimitiveValueProcessor {
+        LongProcessor(String targetField, Method valueSource, Method valueTarget, MethodHandle getter, MethodHandle setter) {
+            super(targetField, valueSource, valueTarget, getter, setter);
+        }
+
+        @Override
+        protected void copy(Object source, Object target) throws Throwable {
+            long value = (long) getter.invokeExact(source);
+            setter.invokeExact(target, value);
+        }
+
+        @Override
+        protected void writeJson(Object source, JsonWriter out) throws Throwable {
+            long value = (long) getter.invokeExact(source);
+            out.value(value);
+        }
+
+        @Override
+        protected Object read(Object source) throws Throwable {
+            return (long) getter.invokeExact(source);
+        }
+
+        @Override
+        protected void write(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, ((Long) value).longValue());
+        }
+    }
+
+    private static final class DoubleProcessor extends PrimitiveValueProcessor {
+        DoubleProcessor(String targetField, Method valueSource, Method valueTarget, MethodHandle getter, MethodHandle setter) {
+            super(targetField, valueSource, valueTarget, getter, setter);
+        }
+
+        @Override
+        protected void copy(Object source, Object target) throws Throwable {
+            double value = (double) getter.invokeExact(source);
+            setter.invokeExact(target, value);
+        }
+
+        @Override
+        protected void writeJson(Object source, JsonWriter out) throws Throwable {
+            double value = (double) getter.invokeExact(source);
+            out.value(value);
+        }
+
+        @Override
+        protected Object read(Object source) throws Throwable {
+            return (double) getter.invokeExact(source);
+        }
+
+        @Override
+        protected void write(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, ((Double) value).doubleValue());
+        }
+    }
+
+    private static final class BooleanProcessor extends PrimitiveValueProcessor {
+        BooleanProcessor(String targetField, Method valueSource, Method valueTarget, MethodHandle getter, MethodHandle setter) {
+            super(targetField, valueSource, valueTarget, getter, setter);
+        }
+
+        @Override
+        protected void copy(Object source, Object target) throws Throwable {
+            boolean value = (boolean) getter.invokeExact(source);
+            setter.invokeExact(target, value);
+        }
+
+        @Override
+        protected void writeJson(Object source, JsonWriter out) throws Throwable {
+            boolean value = (boolean) getter.invokeExact(source);
+            out.value(value);
+        }
+
+        @Override
+        protected Object read(Object source) throws Throwable {
+            return (boolean) getter.invokeExact(source);
+        }
+
+        @Override
+        protected void write(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, ((Boolean) value).booleanValue());
+        }
+    }
+}
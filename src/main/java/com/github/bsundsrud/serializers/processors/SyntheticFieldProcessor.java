@@ -1,33 +1,175 @@
 package com.github.bsundsrud.serializers.processors;
 
 import com.github.bsundsrud.serializers.annotations.Synthesized;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.JsonUtils;
 import com.github.bsundsrud.serializers.util.SerializerException;
-import com.github.bsundsrud.serializers.util.SerializerUtils;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Serializes methods annotated with {@link Synthesized}
+ * Serializes methods annotated with {@link Synthesized}.
+ * An instance combinator is called on the target object; a static one needs no target.
  */
 public class SyntheticFieldProcessor extends BaseValueProcessor implements ValueProcessor {
-    private List<Method> inputFieldGetters;
-    private Method combinator;
+    private final List<Method> inputFieldGetters;
+    private final Method combinator;
+    private final MethodHandle combinatorHandle;
 
     /**
      * Construct a new instance of this serializer
      *
      * @param targetField field on target object to set the result to
-     * @param combinator method used to compute result value
+     * @param combinator method used to compute result value, static or declared on the target class
      * @param setter setter on target object.  If null, <code>targetField</code> is assumed to be <code>public</code>
      * @param inputGetters List of {@link java.lang.reflect.Method}s used to retrieve arguments to pass to the <code>combinator</code>
      */
     public SyntheticFieldProcessor(String targetField, Method combinator, Method setter, List<Method> inputGetters) {
-        super(targetField, null, setter);
+        this(targetField, combinator, setter, inputGetters, false);
+    }
+
+    /**
+     * Like {@link #SyntheticFieldProcessor(String, Method, Method, List)}, optionally resolving the setter, and folding
+     * the input getters and the <code>combinator</code> into a single <code>(target, source)</code> {@link MethodHandle},
+     * so computing the value needs no argument array.  Falls back to reflection if any of the methods is not accessible.
+     *
+     * @param targetField field on target object to set the result to
+     * @param combinator method used to compute result value, static or declared on the target class
+     * @param setter setter on target object.  If null, <code>targetField</code> is assumed to be <code>public</code>
+     * @param inputGetters List of {@link java.lang.reflect.Method}s used to retrieve arguments to pass to the <code>combinator</code>
+     * @param methodHandles whether to call the methods through method handles
+     */
+    public SyntheticFieldProcessor(String targetField, Method combinator, Method setter, List<Method> inputGetters, boolean methodHandles) {
+        super(targetField, null, setter, methodHandles);
+        this.combinator = combinator;
+        this.inputFieldGetters = Collections.unmodifiableList(new ArrayList<Method>(inputGetters));
+        this.combinatorHandle = methodHandles ? combinatorHandle(combinator, inputFieldGetters) : null;
+    }
+
+    /**
+     * Construct a new instance of this serializer that sets its result on a public field
+     *
+     * @param targetField public field on target object to set the result to
+     * @param combinator method used to compute result value, static or declared on the target class
+     * @param inputGetters List of {@link java.lang.reflect.Method}s used to retrieve arguments to pass to the <code>combinator</code>
+     */
+    public SyntheticFieldProcessor(Field targetField, Method combinator, List<Method> inputGetters) {
+        this(targetField, combinator, inputGetters, false);
+    }
+
+    /**
+     * Like {@link #SyntheticFieldProcessor(Field, Method, List)}, optionally calling the methods and setting the field
+     * through method handles
+     *
+     * @param targetField public field on target object to set the result to
+     * @param combinator method used to compute result value, static or declared on the target class
+     * @param inputGetters List of {@link java.lang.reflect.Method}s used to retrieve arguments to pass to the <code>combinator</code>
+     * @param methodHandles whether to call the methods through method handles
+     * @see #SyntheticFieldProcessor(String, Method, Method, List, boolean)
+     */
+    public SyntheticFieldProcessor(Field targetField, Method combinator, List<Method> inputGetters, boolean methodHandles) {
+        super(targetField, null, methodHandles);
         this.combinator = combinator;
-        this.inputFieldGetters = inputGetters;
+        this.inputFieldGetters = Collections.unmodifiableList(new ArrayList<Method>(inputGetters));
+        this.combinatorHandle = methodHandles ? combinatorHandle(combinator, inputFieldGetters) : null;
+    }
+
+    /**
+     * Instance combinators are called on the target.  Generated mappings, which pass no <code>combinator</code>,
+     * override this if theirs is static.
+     *
+     * @return false if the combinator is static
+     */
+    @Override
+    public boolean needsTarget() {
+        return combinator == null || !Modifier.isStatic(combinator.getModifiers());
+    }
+
+    /**
+     * @return the input getters and <code>combinator</code> as one <code>(target, source)</code> handle, or null if
+     * any of them is not accessible
+     */
+    private static MethodHandle combinatorHandle(Method combinator, List<Method> inputFieldGetters) {
+        if (combinator == null) {
+            return null;
+        }
+        try {
+            int count = inputFieldGetters.size();
+            MethodHandle[] getters = new MethodHandle[count];
+            Class<?>[] argTypes = new Class<?>[count];
+            for (int i = 0; i < count; i++) {
+                Method m = inputFieldGetters.get(i);
+                argTypes[i] = m.getReturnType();
+                getters[i] = MethodHandles.lookup().unreflect(m)
+                        .asType(MethodType.methodType(argTypes[i], Object.class));
+            }
+            // (target, arg0..argN) -> result, then (target, source0..sourceN) -> result
+            MethodHandle mh = MethodHandles.lookup().unreflect(combinator);
+            if (Modifier.isStatic(combinator.getModifiers())) {
+                // ignore the target: (arg0..argN) -> (target, arg0..argN)
+                mh = MethodHandles.dropArguments(mh.asType(MethodType.methodType(Object.class, argTypes)), 0, Object.class);
+            } else {
+                mh = mh.asType(MethodType.methodType(Object.class, Object.class, argTypes));
+            }
+            mh = MethodHandles.filterArguments(mh, 1, getters);
+            // collapse all source parameters into one: (target, source) -> result
+            int[] reorder = new int[count + 1];
+            for (int i = 1; i <= count; i++) {
+                reorder[i] = 1;
+            }
+            MethodType combined = MethodType.methodType(Object.class, Object.class, Object.class);
+            if (count == 0) {
+                mh = MethodHandles.dropArguments(mh, 1, Object.class);
+            } else {
+                mh = MethodHandles.permuteArguments(mh, combined, reorder);
+            }
+            return mh;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compute the value by calling the <code>combinator</code> on the target (unless it is static) with the values of the input getters.
+     * Generated mappings override this with a direct call.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class, or null if {@link #needsTarget()} is false
+     * @return the combinator's result
+     * @throws SerializerException if calling a getter or the combinator fails
+     */
+    protected Object computeValue(Object source, Object target) throws SerializerException {
+        if (combinatorHandle != null) {
+            try {
+                return (Object) combinatorHandle.invokeExact(target, source);
+            } catch (Throwable t) {
+                throw new SerializerException("Could not invoke '" + combinator.getName()
+                        + "' on type '" + combinator.getDeclaringClass().getName() + "'", t);
+            }
+        }
+        Object[] args = getArgumentValues(source);
+        try {
+            return combinator.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new SerializerException("Could not access '" + combinator.getName()
+                    + "' on type '" + combinator.getDeclaringClass().getName() + "'", e);
+        } catch (InvocationTargetException e) {
+            throw new SerializerException("Could not invoke '" + combinator.getName()
+                    + "' on type '" + combinator.getDeclaringClass().getName() + "'", e);
+        }
     }
 
     private Object[] getArgumentValues(Object source) throws SerializerException {
@@ -58,23 +200,8 @@ public class SyntheticFieldProcessor extends BaseValueProcessor implements Value
      */
     @Override
     public void serialize(Object source, Object target) throws SerializerException {
-        Object[] args = getArgumentValues(source);
-        Object result;
-        try {
-            result = combinator.invoke(target, args);
-
-        } catch (IllegalAccessException e) {
-            throw new SerializerException("Could not access '" + combinator.getName()
-                    + "' on type '" + target.getClass().getName() + "'", e);
-        } catch (InvocationTargetException e) {
-            throw new SerializerException("Could not invoke '" + combinator.getName()
-                    + "' on type '" + target.getClass().getName() + "'", e);
-        }
-        if (valueTarget != null) {
-            SerializerUtils.setFieldWithSetter(target, valueTarget, result);
-        } else {
-            SerializerUtils.setFieldValue(target, targetField, result);
-        }
+        Object result = computeValue(source, target);
+        writeValue(target, result);
     }
 
     /**
@@ -89,16 +216,38 @@ public class SyntheticFieldProcessor extends BaseValueProcessor implements Value
      */
     @Override
     public void serializeToMap(Object source, Object target, Map<String, Object> map) throws SerializerException {
-        Object[] args = getArgumentValues(source);
-        try {
-            Object result = combinator.invoke(target, args);
-            map.put(targetField, result);
-        } catch (IllegalAccessException e) {
-            throw new SerializerException("Could not access '" + combinator.getName()
-                    + "' on type '" + target.getClass().getName() + "'", e);
-        } catch (InvocationTargetException e) {
-            throw new SerializerException("Could not invoke '" + combinator.getName()
-                    + "' on type '" + target.getClass().getName() + "'", e);
-        }
+        Object result = computeValue(source, target);
+        map.put(targetField, result);
+    }
+
+    /**
+     * Calls all passed getters to construct an argument list, which is then passed to the <code>combinator</code> and invoked.
+     * The result is written as the JSON member <code>targetField</code>, unless it is null.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out JSON writer positioned inside an object
+     * @throws SerializerException if calling the combinator fails
+     * @throws IOException if writing to <code>out</code> fails
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToJson(Object source, Object target, JsonWriter out) throws SerializerException, IOException {
+        JsonUtils.writeMember(out, targetField, computeValue(source, target));
+    }
+
+    /**
+     * Calls all passed getters to construct an argument list, which is then passed to the <code>combinator</code> and invoked.
+     * The result is written to <code>out</code>.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out binary encoder positioned after the previous field of the object
+     * @throws SerializerException if calling the combinator fails, or the result has no binary representation
+     * @see ValueProcessor
+     */
+    @Override
+    public void serializeToBinary(Object source, Object target, BinaryEncoder out) throws SerializerException {
+        out.writeValue(computeValue(source, target));
     }
 }
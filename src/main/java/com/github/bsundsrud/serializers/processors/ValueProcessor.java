@@ -1,8 +1,14 @@
 package com.github.bsundsrud.serializers.processors;
 
 
+import com.github.bsundsrud.serializers.util.BinaryDecoder;
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.JsonUtils;
 import com.github.bsundsrud.serializers.util.SerializerException;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -27,4 +33,74 @@ public interface ValueProcessor {
      * @throws SerializerException on any error in serialization
      */
     void serializeToMap(Object source, Object target, Map<String, Object> map) throws SerializerException;
+
+    /**
+     * Put this field into a map returned by <code>serializeToLazyMap</code>, when the field is first read.
+     * The default implementation is {@link #serializeToMap(Object, Object, Map)}; processors with sub-serializers
+     * override it to put lazy maps, so nested objects are only serialized when they are read.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param map Map to insert results into
+     * @throws SerializerException on any error in serialization
+     */
+    default void serializeToLazyMap(Object source, Object target, Map<String, Object> map) throws SerializerException {
+        serializeToMap(source, target, map);
+    }
+
+    /**
+     * Whether {@link #serializeToMap(Object, Object, Map)} and {@link #serializeToJson(Object, Object, JsonWriter)} use
+     * the target instance.  If no processor of a projection needs it, no target is created and <code>null</code> is passed.
+     *
+     * @return true unless the processor is known to ignore the target
+     */
+    default boolean needsTarget() {
+        return true;
+    }
+
+    /**
+     * Write this field as a member of the JSON object currently open on <code>out</code>.
+     * The default implementation goes through {@link #serializeToMap(Object, Object, Map)}; processors override it to
+     * write straight from the source.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out JSON writer positioned inside an object
+     * @throws SerializerException on any error in serialization
+     * @throws IOException if writing to <code>out</code> fails
+     */
+    default void serializeToJson(Object source, Object target, JsonWriter out) throws SerializerException, IOException {
+        Map<String, Object> map = new HashMap<String, Object>(2);
+        serializeToMap(source, target, map);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            JsonUtils.writeMember(out, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Write the value of this field to <code>out</code>, without its name.
+     * The default implementation goes through {@link #serializeToMap(Object, Object, Map)}.
+     *
+     * @param source instance of the source class
+     * @param target instance of the target class (used if methods on the target class need to be called)
+     * @param out binary encoder positioned after the previous field of the object
+     * @throws SerializerException on any error in serialization, or if the value has no binary representation
+     */
+    default void serializeToBinary(Object source, Object target, BinaryEncoder out) throws SerializerException {
+        Map<String, Object> map = new HashMap<String, Object>(2);
+        serializeToMap(source, target, map);
+        out.writeValue(map.isEmpty() ? null : map.values().iterator().next());
+    }
+
+    /**
+     * Read the value written by {@link #serializeToBinary(Object, Object, BinaryEncoder)} and set it on the target.
+     * The default implementation does not know where to set the value and fails.
+     *
+     * @param target instance of the target class
+     * @param in binary decoder positioned at this field's value
+     * @throws SerializerException if the input is malformed or setting the value fails
+     */
+    default void deserializeFromBinary(Object target, BinaryDecoder in) throws SerializerException {
+        throw new SerializerException("Processor '" + getClass().getName() + "' does not support binary input");
+    }
 }
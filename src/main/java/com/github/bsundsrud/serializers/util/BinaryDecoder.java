@@ -0,0 +1,178 @@
+package com.github.bsundsrud.serializers.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.bsundsrud.serializers.util.BinaryEncoder.*;
+
+/**
+ * Reads the binary format written by {@link BinaryEncoder}, from the position of a {@link ByteBuffer} on.
+ * Truncated or malformed input is reported as a {@link SerializerException}.
+ */
+public class BinaryDecoder {
+    private final ByteBuffer buffer;
+
+    /**
+     * @param buffer buffer to read from; its position is advanced past everything read
+     */
+    public BinaryDecoder(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    private byte get() throws SerializerException {
+        try {
+            return buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw new SerializerException("Unexpected end of binary input at " + buffer.position(), e);
+        }
+    }
+
+    /**
+     * Read an unsigned varint, without a tag
+     *
+     * @return the value
+     * @throws SerializerException if the input ends or the varint is too long
+     */
+    public long readVarint() throws SerializerException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new SerializerException("Malformed varint at " + buffer.position());
+    }
+
+    /**
+     * Read a fixed eight byte value, without a tag
+     *
+     * @return the value
+     * @throws SerializerException if the input ends
+     */
+    public long readFixed64() throws SerializerException {
+        try {
+            return buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new SerializerException("Unexpected end of binary input at " + buffer.position(), e);
+        }
+    }
+
+    private long readZigzag() throws SerializerException {
+        long raw = readVarint();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private int readSize() throws SerializerException {
+        long size = readVarint();
+        // negative if the varint has its top bit set; otherwise every element takes at least one byte
+        if (size < 0 || size > buffer.remaining()) {
+            throw new SerializerException("Invalid size " + size + " at " + buffer.position());
+        }
+        return (int) size;
+    }
+
+    /**
+     * Read the tag of the next value if it is null or an object
+     *
+     * @return true if an object follows, false if the value is null
+     * @throws SerializerException if the next value is neither
+     */
+    public boolean beginObject() throws SerializerException {
+        byte tag = get();
+        if (tag == NULL) {
+            return false;
+        }
+        if (tag != OBJECT) {
+            throw unexpected(tag, "an object");
+        }
+        return true;
+    }
+
+    /**
+     * Read the tag and size of the next value if it is null, a list or a map
+     *
+     * @param map whether a map is expected rather than a list
+     * @return the number of elements or entries that follow, or -1 if the value is null
+     * @throws SerializerException if the next value is something else
+     */
+    public int beginContainer(boolean map) throws SerializerException {
+        byte tag = get();
+        if (tag == NULL) {
+            return -1;
+        }
+        if (tag != (map ? MAP : LIST)) {
+            throw unexpected(tag, map ? "a map" : "a list");
+        }
+        return readSize();
+    }
+
+    /**
+     * Read a value written by {@link BinaryEncoder#writeValue(Object)}.  Lists are read as {@link ArrayList}s and maps as
+     * {@link LinkedHashMap}s.
+     *
+     * @return the value, boxed
+     * @throws SerializerException if the input is truncated or holds an object, which needs a serializer to be read
+     */
+    public Object readValue() throws SerializerException {
+        byte tag = get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case BYTE:
+                return get();
+            case SHORT:
+                return (short) readZigzag();
+            case CHAR:
+                return (char) readVarint();
+            case INT:
+                return (int) readZigzag();
+            case LONG:
+                return readZigzag();
+            case FLOAT:
+                try {
+                    return Float.intBitsToFloat(buffer.getInt());
+                } catch (BufferUnderflowException e) {
+                    throw new SerializerException("Unexpected end of binary input at " + buffer.position(), e);
+                }
+            case DOUBLE:
+                return Double.longBitsToDouble(readFixed64());
+            case STRING:
+                byte[] bytes = new byte[readSize()];
+                buffer.get(bytes);
+                return new String(bytes, UTF8);
+            case DATE:
+                return new Date(readZigzag());
+            case LIST:
+                int size = readSize();
+                List<Object> list = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            case MAP:
+                int entries = readSize();
+                Map<Object, Object> map = new LinkedHashMap<Object, Object>(Math.max(16, (int) (entries / 0.75f) + 1));
+                for (int i = 0; i < entries; i++) {
+                    map.put(readValue(), readValue());
+                }
+                return map;
+            default:
+                throw unexpected(tag, "a value");
+        }
+    }
+
+    private SerializerException unexpected(byte tag, String expected) {
+        return new SerializerException("Expected " + expected + " but found tag " + tag + " at " + (buffer.position() - 1));
+    }
+}
@@ -0,0 +1,264 @@
+package com.github.bsundsrud.serializers.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Writes serializer output in the compact binary format read by {@link BinaryDecoder}.
+ *
+ * Every value starts with a one-byte tag.  Integers are zigzag varints, floating point numbers are written as their IEEE
+ * bits, strings as a varint length and UTF-8 bytes, and objects as the values of their fields in the order of the
+ * serializer's projection, without names.  Lists and maps carry a varint element count.
+ *
+ * An encoder appends to a buffer that grows as needed.  It can be reused for any number of messages with
+ * {@link #reset()}, and is not thread-safe.
+ */
+public class BinaryEncoder {
+    /** Tags of the value types, shared with {@link BinaryDecoder} */
+    static final byte NULL = 0, FALSE = 1, TRUE = 2, BYTE = 3, SHORT = 4, CHAR = 5, INT = 6, LONG = 7, FLOAT = 8,
+            DOUBLE = 9, STRING = 10, DATE = 11, OBJECT = 12, LIST = 13, MAP = 14;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ByteBuffer buffer;
+
+    /**
+     * @param initialCapacity initial size of the heap buffer, in bytes
+     */
+    public BinaryEncoder(int initialCapacity) {
+        this(ByteBuffer.allocate(Math.max(16, initialCapacity)));
+    }
+
+    /**
+     * @param buffer buffer to write into, from its position on.  It is replaced by a larger one of the same kind
+     *               (heap or direct) when it is full.
+     */
+    public BinaryEncoder(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return a read-only view of the bytes written since the last {@link #reset()}, from position 0 to the current position
+     */
+    public ByteBuffer toByteBuffer() {
+        ByteBuffer view = buffer.duplicate();
+        view.flip();
+        return view.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return number of bytes written since the last {@link #reset()}
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Discard everything written, keeping the buffer for the next message
+     */
+    public void reset() {
+        buffer.clear();
+    }
+
+    /**
+     * Discard everything written, and continue in <code>buffer</code> instead of the current buffer, such as to go
+     * back to a pooled buffer after a message grew it
+     *
+     * @param buffer buffer to write the next message into, from position 0
+     */
+    public void reset(ByteBuffer buffer) {
+        buffer.clear();
+        this.buffer = buffer;
+    }
+
+    /**
+     * Discard everything written after the first <code>size</code> bytes, such as a partly written message
+     *
+     * @param size number of bytes to keep, at most {@link #size()}
+     */
+    public void truncate(int size) {
+        buffer.position(size);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            ByteBuffer larger = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private void tag(byte tag) {
+        ensure(1);
+        buffer.put(tag);
+    }
+
+    /**
+     * Write an unsigned varint, without a tag
+     *
+     * @param value value to write, treated as unsigned
+     */
+    public void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Write a fixed eight byte value, without a tag
+     *
+     * @param value value to write
+     */
+    public void writeFixed64(long value) {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    private void writeZigzag(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Write a null value
+     */
+    public void writeNull() {
+        tag(NULL);
+    }
+
+    /**
+     * @param value boolean to write
+     */
+    public void writeBoolean(boolean value) {
+        tag(value ? TRUE : FALSE);
+    }
+
+    /**
+     * @param value int to write, as a zigzag varint
+     */
+    public void writeInt(int value) {
+        tag(INT);
+        writeZigzag(value);
+    }
+
+    /**
+     * @param value long to write, as a zigzag varint
+     */
+    public void writeLong(long value) {
+        tag(LONG);
+        writeZigzag(value);
+    }
+
+    /**
+     * @param value double to write
+     */
+    public void writeDouble(double value) {
+        tag(DOUBLE);
+        writeFixed64(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @param value non-null string to write, as UTF-8
+     */
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(UTF8);
+        tag(STRING);
+        writeVarint(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Start an object.  The values of its fields follow, in the order of the projection it is written with.
+     */
+    public void beginObject() {
+        tag(OBJECT);
+    }
+
+    /**
+     * Start a list of <code>size</code> values
+     *
+     * @param size number of values that follow
+     */
+    public void beginList(int size) {
+        tag(LIST);
+        writeVarint(size);
+    }
+
+    /**
+     * Start a map of <code>size</code> entries, each written as a key followed by its value
+     *
+     * @param size number of entries that follow
+     */
+    public void beginMap(int size) {
+        tag(MAP);
+        writeVarint(size);
+    }
+
+    /**
+     * Write a value of a supported type: null, strings, boxed primitives, {@link Date}s, and collections, object arrays
+     * and maps of them.  Collections and arrays are written as lists.
+     *
+     * @param value value to write
+     * @throws SerializerException if the value, or an element of it, has no binary representation
+     */
+    public void writeValue(Object value) throws SerializerException {
+        if (value == null) {
+            writeNull();
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            tag(FLOAT);
+            ensure(4);
+            buffer.putInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Short) {
+            tag(SHORT);
+            writeZigzag((Short) value);
+        } else if (value instanceof Byte) {
+            tag(BYTE);
+            ensure(1);
+            buffer.put((Byte) value);
+        } else if (value instanceof Character) {
+            tag(CHAR);
+            writeVarint((Character) value);
+        } else if (value instanceof Date) {
+            tag(DATE);
+            writeZigzag(((Date) value).getTime());
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            beginMap(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            beginList(values.size());
+            for (Object element : values) {
+                writeValue(element);
+            }
+        } else if (value instanceof Object[]) {
+            Object[] values = (Object[]) value;
+            beginList(values.length);
+            for (Object element : values) {
+                writeValue(element);
+            }
+        } else {
+            throw new SerializerException("Cannot write value of type '" + value.getClass().getName() + "' as binary");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.bsundsrud.serializers.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of direct {@link ByteBuffer}s of one size.
+ *
+ * Direct buffers live outside the heap and are expensive to allocate and only freed when collected, so encoders that
+ * write to channels borrow them from a pool instead of allocating one per export.  The pool is thread-safe.
+ */
+public class DirectBufferPool {
+    /** Size of the buffers of the {@link #getDefault() default pool}, in bytes */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final DirectBufferPool DEFAULT = new DirectBufferPool(DEFAULT_BUFFER_SIZE, 8);
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * @param bufferSize capacity of each buffer, in bytes
+     * @param maxPooled maximum number of idle buffers kept; buffers released beyond that are left to the garbage collector
+     */
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0 || maxPooled < 0) {
+            throw new IllegalArgumentException("Invalid pool size " + maxPooled + " x " + bufferSize + " bytes");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return the shared pool of {@link #DEFAULT_BUFFER_SIZE} buffers
+     */
+    public static DirectBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return capacity of the buffers of this pool, in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Take an idle buffer, or allocate one if there is none
+     *
+     * @return a cleared direct buffer of {@link #getBufferSize()} bytes
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer taken with {@link #acquire()}.  It must not be used afterwards.
+     *
+     * @param buffer buffer to return; buffers of another size or kind are ignored
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.isReadOnly() || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() <= maxPooled) {
+            free.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+}
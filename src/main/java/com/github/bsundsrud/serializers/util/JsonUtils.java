@@ -0,0 +1,109 @@
+package com.github.bsundsrud.serializers.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Helpers for writing serializer output as JSON with Gson's streaming {@link JsonWriter}.
+ * Values are written the same way <code>new Gson().toJson(map)</code> writes the values of a {@link java.util.Map}
+ * produced by <code>serializeToMap</code>.
+ */
+public class JsonUtils {
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Write a value.  Strings, numbers, booleans and characters are written directly; anything else
+     * (dates, collections, arbitrary objects) is handed to Gson.
+     *
+     * @param out writer positioned after a name or inside an array
+     * @param value value to write, may be null
+     * @throws IOException if writing fails
+     * @throws SerializerException if the value cannot be represented as JSON (for example NaN)
+     */
+    public static void writeValue(JsonWriter out, Object value) throws IOException, SerializerException {
+        try {
+            if (value == null) {
+                out.nullValue();
+            } else if (value instanceof String) {
+                out.value((String) value);
+            } else if (value instanceof Number) {
+                out.value((Number) value);
+            } else if (value instanceof Boolean) {
+                out.value((Boolean) value);
+            } else if (value instanceof Character) {
+                out.value(value.toString());
+            } else {
+                GSON.toJson(value, value.getClass(), out);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SerializerException("Could not write value of type '" + value.getClass().getName() + "' as JSON", e);
+        } catch (JsonIOException e) {
+            throw new SerializerException("Could not write value of type '" + value.getClass().getName() + "' as JSON", e);
+        }
+    }
+
+    /**
+     * Write a named member of the current object, skipping it if the value is null (as Gson does by default).
+     *
+     * @param out writer positioned inside an object
+     * @param name member name
+     * @param value value to write
+     * @throws IOException if writing fails
+     * @throws SerializerException if the value cannot be represented as JSON
+     */
+    public static void writeMember(JsonWriter out, String name, Object value) throws IOException, SerializerException {
+        if (value != null) {
+            out.name(name);
+            writeValue(out, value);
+        }
+    }
+
+    /**
+     * Create a {@link JsonWriter} configured like the one Gson uses for <code>toJson</code>.
+     *
+     * @param out destination; a {@link Writer} is used as is, any other {@link Appendable} is adapted
+     * @return a new JsonWriter
+     */
+    public static JsonWriter newJsonWriter(Appendable out) {
+        Writer writer = out instanceof Writer ? (Writer) out : new AppendableWriter(out);
+        JsonWriter json = new JsonWriter(writer);
+        json.setHtmlSafe(true);
+        return json;
+    }
+
+    private static class AppendableWriter extends Writer {
+        private final Appendable out;
+
+        AppendableWriter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.append(CharBuffer.wrap(cbuf, off, len));
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.append((char) c);
+        }
+
+        @Override
+        public void flush() throws IOException {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.github.bsundsrud.serializers.util;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -58,15 +61,8 @@ public class SerializerUtils {
      * @return String field name
      */
     public static String methodToField(String method) {
-        String fieldName;
-        if (method.startsWith("get")) {
-            fieldName = method.replaceFirst("get", "");
-        } else if (method.startsWith("set")) {
-            fieldName = method.replaceFirst("set", "");
-        } else {
-            fieldName = method;
-        }
-        return Character.toLowerCase(fieldName.charAt(0)) + fieldName.substring(1);
+        int start = method.startsWith("get") || method.startsWith("set") ? 3 : 0;
+        return Character.toLowerCase(method.charAt(start)) + method.substring(start + 1);
     }
 
     /**
@@ -107,6 +103,7 @@ public class SerializerUtils {
 
     /**
      * Returns a getter {@link Method} on the given class for a given field name.
+     * Public getters are found on the class, its superclasses and its interfaces; other getters on the class and its superclasses.
      *
      * @param srcClass class to search for the getter
      * @param srcFieldName field name to find a getter for
@@ -114,10 +111,29 @@ public class SerializerUtils {
      * @throws SerializerException if there is no such method
      */
     public static Method findGetterForFieldName(Class<?> srcClass, String srcFieldName) throws SerializerException {
-        String getterName = fieldToGetter(srcFieldName);
+        return findGetter(srcClass, fieldToGetter(srcFieldName));
+    }
+
+    /**
+     * Returns the getter {@link Method} with the given name on the given class, looked up like
+     * {@link #findGetterForFieldName(Class, String)}.
+     *
+     * @param srcClass class to search for the getter
+     * @param getterName name of the getter
+     * @return getter {@link Method}
+     * @throws SerializerException if there is no such method
+     */
+    public static Method findGetter(Class<?> srcClass, String getterName) throws SerializerException {
         try {
-            return srcClass.getDeclaredMethod(getterName);
+            return srcClass.getMethod(getterName);
         } catch (NoSuchMethodException e) {
+            for (Class<?> cls = srcClass; cls != null; cls = cls.getSuperclass()) {
+                try {
+                    return cls.getDeclaredMethod(getterName);
+                } catch (NoSuchMethodException ignored) {
+                    // keep looking in the superclass
+                }
+            }
             throw new SerializerException("No method named '" + getterName +
                     "' on class '" + srcClass.getName()
                     + "'", e);
@@ -214,4 +230,72 @@ public class SerializerUtils {
                     + "' on object of type '" + target.getClass().getName() + "'", e);
         }
     }
+
+    /**
+     * Sets a field value directly using an already resolved {@link Field}
+     *
+     * @param target instance object to set the value of the field on
+     * @param field field to set, resolved once when the serializer was built
+     * @param value value to be set
+     * @throws SerializerException if the field cannot be accessed or the value has the wrong type
+     */
+    public static void setFieldValue(Object target, Field field, Object value) throws SerializerException {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new SerializerException("Could not access field '" + field.getName()
+                    + "' on object of type '" + target.getClass().getName() + "'", e);
+        } catch (IllegalArgumentException e) {
+            throw new SerializerException("Could not set field '" + field.getName()
+                    + "' on object of type '" + target.getClass().getName() + "'", e);
+        }
+    }
+
+    /**
+     * Resolve a getter into a {@link MethodHandle} of type <code>(Object)Object</code>.
+     * Primitive return values are boxed by the handle.
+     *
+     * @param getter getter Method (0 arguments are assumed)
+     * @return the handle, or <code>null</code> if the getter is not accessible from this library
+     */
+    public static MethodHandle getterHandle(Method getter) {
+        try {
+            MethodHandle mh = MethodHandles.lookup().unreflect(getter);
+            return mh.asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolve a setter into a {@link MethodHandle} of type <code>(Object, Object)void</code>.
+     * Primitive parameters are unboxed by the handle, and any return value is dropped.
+     *
+     * @param setter setter Method (1 argument is assumed)
+     * @return the handle, or <code>null</code> if the setter is not accessible from this library
+     */
+    public static MethodHandle setterHandle(Method setter) {
+        try {
+            MethodHandle mh = MethodHandles.lookup().unreflect(setter);
+            return mh.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolve a field write into a {@link MethodHandle} of type <code>(Object, Object)void</code>.
+     * Primitive fields are unboxed by the handle.
+     *
+     * @param field field to write
+     * @return the handle, or <code>null</code> if the field is not accessible from this library
+     */
+    public static MethodHandle fieldSetterHandle(Field field) {
+        try {
+            MethodHandle mh = MethodHandles.lookup().unreflectSetter(field);
+            return mh.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package com.github.bsundsrud.serializers.util;
+
+/**
+ * Wraps a {@link SerializerException} where a checked exception can't be thrown, such as inside a
+ * {@link java.util.stream.Collector}.
+ */
+public class UncheckedSerializerException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSerializerException(SerializerException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SerializerException getCause() {
+        return (SerializerException) super.getCause();
+    }
+}
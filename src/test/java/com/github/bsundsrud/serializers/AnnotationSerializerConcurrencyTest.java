@@ -0,0 +1,183 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Source;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Target;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AnnotationSerializerConcurrencyTest {
+
+    private static List<Source> sources(int count) {
+        List<Source> sources = new ArrayList<Source>(count);
+        for (int i = 0; i < count; i++) {
+            sources.add(i % 97 == 0 ? null : new Source(i, new SubSource("extra" + i, "required" + i), "name" + i));
+        }
+        return sources;
+    }
+
+    private static void assertSerialized(List<Source> sources, List<Target> results) {
+        assertEquals(sources.size(), results.size());
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i) == null) {
+                assertNull(results.get(i));
+            } else {
+                assertEquals(i, results.get(i).id);
+                assertEquals("required" + i, results.get(i).sub.required);
+            }
+        }
+    }
+
+    @Test
+    public void testSerializeAllParallelForkJoin() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        List<Source> sources = sources(10000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertSerialized(sources, as.serializeAllParallel(sources, pool, 100));
+            assertSerialized(sources, as.serializeAllParallel(sources, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSerializeAllParallelExecutor() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        List<Source> sources = sources(5000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Target> results = as.serializeAllParallel(sources, executor, 64, "id", "sub");
+            assertSerialized(sources, results);
+            assertNull(results.get(1).getName());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSerializeAllParallelBelowThreshold() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        List<Source> sources = sources(10);
+        assertSerialized(sources, as.serializeAllParallel(sources, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testSerializeAllParallelFailureCancelsBatches() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        final List<Source> valid = sources(1000);
+        final AtomicInteger read = new AtomicInteger();
+        List<Object> sources = new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                read.incrementAndGet();
+                if (index == 0) {
+                    return "not a source";
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return valid.get(index);
+            }
+
+            @Override
+            public int size() {
+                return valid.size();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            as.serializeAllParallel(sources, executor, 10);
+            fail("Expected SerializerException");
+        } catch (SerializerException e) {
+            // expected
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        assertTrue("read " + read.get() + " sources", read.get() < 500);
+    }
+
+    @Test
+    public void testSerializeAllParallelFailure() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        List<Object> sources = new ArrayList<Object>(sources(1000));
+        sources.set(500, "not a source");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            as.serializeAllParallel(sources, executor, 10);
+            fail("Expected SerializerException");
+        } catch (SerializerException e) {
+            // expected
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            as.serializeAllParallel(sources, ForkJoinPool.commonPool(), 10);
+            fail("Expected SerializerException");
+        } catch (SerializerException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSharedSerializerStress() throws Exception {
+        final AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        final List<List<String>> selections = Arrays.asList(
+                Arrays.<String>asList(), Arrays.asList("id"), Arrays.asList("id", "sub"), Arrays.asList("name", "combined"));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        int id = seed * 100000 + i;
+                        Source s = new Source(id, new SubSource("extra", "required" + id), "name" + id);
+                        List<String> fields = selections.get((seed + i) % selections.size());
+                        // also churn the projection cache with selections it has never seen
+                        as.projection("id", "extra" + (i % (AnnotationSerializer.PROJECTION_CACHE_SIZE * 2)));
+                        Target target = as.serialize(s, fields);
+                        Map<String, Object> map = as.serializeToMap(s, fields);
+                        if (fields.isEmpty() || fields.contains("id")) {
+                            assertEquals(id, target.id);
+                            assertEquals(id, map.get("id"));
+                        }
+                        if (fields.isEmpty() || fields.contains("sub")) {
+                            assertEquals("required" + id, target.sub.required);
+                        }
+                        if (fields.contains("combined")) {
+                            assertEquals(id + "-name" + id, target.combined);
+                            assertNull(map.get("id"));
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
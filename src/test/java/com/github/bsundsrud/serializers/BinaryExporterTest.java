@@ -0,0 +1,189 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Source;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Target;
+import com.github.bsundsrud.serializers.util.DirectBufferPool;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryExporterTest {
+    private File file;
+
+    @Before
+    public void createFile() throws Exception {
+        file = File.createTempFile("export", ".bin");
+    }
+
+    @After
+    public void deleteFile() {
+        assertTrue(file.delete());
+    }
+
+    private static List<Source> sources(int count) {
+        List<Source> sources = new ArrayList<Source>();
+        for (int i = 0; i < count; i++) {
+            sources.add(i % 10 == 9 ? null : new Source(i, new SubSource("extra-" + i, "required-" + i), "name-" + i));
+        }
+        return sources;
+    }
+
+    private List<Target> readBack(FieldProjection<Target> projection) throws Exception {
+        final List<Target> targets = new ArrayList<Target>();
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            BinaryExporter.read(projection, channel, targets::add);
+        } finally {
+            channel.close();
+        }
+        return targets;
+    }
+
+    private static void assertTargets(int count, List<Target> targets) {
+        assertEquals(count, targets.size());
+        for (int i = 0; i < count; i++) {
+            Target t = targets.get(i);
+            if (i % 10 == 9) {
+                assertNull(t);
+            } else {
+                assertEquals(i, t.id);
+                assertEquals("name-" + i, t.getName());
+                assertEquals("extra-" + i, t.sub.extra);
+            }
+        }
+    }
+
+    @Test
+    public void testChannelExport() throws Exception {
+        FieldProjection<Target> projection = AnnotationSerializer.serializerForClass(Target.class).projection();
+        // small buffers, so the export is flushed many times
+        DirectBufferPool pool = new DirectBufferPool(256, 1);
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        BinaryExporter<Target> export = BinaryExporter.toChannel(projection, channel, pool);
+        try {
+            assertEquals(1000, export.writeAll(sources(1000)));
+        } finally {
+            export.close();
+            channel.close();
+        }
+        assertEquals(1000, export.getCount());
+        assertEquals(file.length(), export.getSize());
+        assertTargets(1000, readBack(projection));
+    }
+
+    @Test
+    public void testMappedExport() throws Exception {
+        FieldProjection<Target> projection = AnnotationSerializer.serializerForClass(Target.class).projection("id", "name", "sub");
+        // regions smaller than a buffer, so flushes straddle them
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        BinaryExporter<Target> export = BinaryExporter.toMappedFile(projection, channel, 100, new DirectBufferPool(256, 1));
+        try {
+            export.writeAll(sources(500));
+        } finally {
+            export.close();
+            channel.close();
+        }
+        assertEquals(export.getSize(), file.length());
+        assertTargets(500, readBack(projection));
+
+        try {
+            readBack(AnnotationSerializer.serializerForClass(Target.class).projection("id"));
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+
+    @Test
+    public void testFailedRecordIsNotWritten() throws Exception {
+        FieldProjection<Target> projection = AnnotationSerializer.serializerForClass(Target.class).projection("id");
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        BinaryExporter<Target> export = BinaryExporter.toChannel(projection, channel);
+        try {
+            export.write(new Source(1, null, "a"));
+            try {
+                export.write("not a source");
+                assertTrue(false);
+            } catch (SerializerException e) {}
+            export.write(new Source(2, null, "b"));
+        } finally {
+            export.close();
+            channel.close();
+        }
+        List<Target> targets = readBack(projection);
+        assertEquals(2, targets.size());
+        assertEquals(2, targets.get(1).id);
+    }
+
+    @Test
+    public void testUnclosedExportIsRejected() throws Exception {
+        FieldProjection<Target> projection = AnnotationSerializer.serializerForClass(Target.class).projection("id", "name", "sub");
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        BinaryExporter<Target> export = BinaryExporter.toMappedFile(projection, channel, 4096, new DirectBufferPool(256, 1));
+        try {
+            export.writeAll(sources(50));
+            // the mapped region is zero past the flushed records, which would otherwise read as nulls
+            assertTrue(file.length() > export.getSize());
+            try {
+                readBack(projection);
+                assertTrue(false);
+            } catch (SerializerException e) {}
+        } finally {
+            export.close();
+            channel.close();
+        }
+        assertTargets(50, readBack(projection));
+    }
+
+    @Test
+    public void testLargeRecordReturnsToPooledBuffer() throws Exception {
+        FieldProjection<Target> projection = AnnotationSerializer.serializerForClass(Target.class).projection("id", "name");
+        DirectBufferPool pool = new DirectBufferPool(64, 1);
+        ByteBuffer pooled = pool.acquire();
+        pool.release(pooled);
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            name.append('x');
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        BinaryExporter<Target> export = BinaryExporter.toChannel(projection, channel, pool);
+        try {
+            export.write(new Source(1, null, name.toString()));
+            long size = export.getSize();
+            export.write(new Source(2, null, "b"));
+            // the large record was written out, and the next one is encoded into the pooled buffer again
+            assertEquals(export.getSize() - size, pooled.position());
+        } finally {
+            export.close();
+            channel.close();
+        }
+        assertSame(pooled, pool.acquire());
+        List<Target> targets = readBack(projection);
+        assertEquals(2, targets.size());
+        assertEquals(name.toString(), targets.get(0).getName());
+        assertEquals("b", targets.get(1).getName());
+    }
+
+    @Test
+    public void testBuffersArePooled() {
+        DirectBufferPool pool = new DirectBufferPool(64, 1);
+        ByteBuffer first = pool.acquire();
+        assertTrue(first.isDirect());
+        ByteBuffer second = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        assertSame(first, pool.acquire());
+        assertNotSame(second, pool.acquire());
+        pool.release(ByteBuffer.allocate(64));
+        assertTrue(pool.acquire().isDirect());
+    }
+}
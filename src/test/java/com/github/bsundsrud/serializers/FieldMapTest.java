@@ -0,0 +1,110 @@
+package com.github.bsundsrud.serializers;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class FieldMapTest {
+    private static final String[] KEYS = { "a", "b", "d" };
+
+    private static FieldMap filled() {
+        FieldMap map = new FieldMap(KEYS);
+        map.put("d", 4);
+        map.put("a", 1);
+        map.put("b", null);
+        return map;
+    }
+
+    @Test
+    public void testBehavesLikeTreeMap() {
+        FieldMap map = filled();
+        TreeMap<String, Object> expected = new TreeMap<String, Object>();
+        expected.put("a", 1);
+        expected.put("b", null);
+        expected.put("d", 4);
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected.toString(), map.toString());
+        assertEquals(Arrays.asList("a", "b", "d"), new ArrayList<String>(map.keySet()));
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey("b"));
+        assertNull(map.get("b"));
+        assertFalse(map.containsKey("c"));
+        assertFalse(map.containsKey(null));
+        assertNull(map.get(1));
+        assertEquals("{\"a\":1,\"d\":4}", new Gson().toJson(map));
+    }
+
+    @Test
+    public void testMutation() {
+        FieldMap map = filled();
+        assertEquals(1, map.put("a", 2));
+        assertEquals(4, map.remove("d"));
+        assertNull(map.remove("d"));
+        assertEquals(2, map.size());
+        assertTrue(map.hasSharedKeys());
+
+        map.put("c", 3);
+        assertFalse(map.hasSharedKeys());
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<String>(map.keySet()));
+        assertArrayEquals(new String[] { "a", "b", "d" }, KEYS);
+
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getKey().equals("a")) {
+                entry.setValue(5);
+            }
+        }
+        assertEquals(5, map.get("a"));
+
+        Iterator<String> it = map.keySet().iterator();
+        it.next();
+        it.remove();
+        assertEquals(Arrays.asList("b", "c"), new ArrayList<String>(map.keySet()));
+
+        it = map.keySet().iterator();
+        it.next();
+        map.put("e", 6);
+        try {
+            it.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+        }
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testCloneAndSerialize() throws Exception {
+        FieldMap map = filled();
+        FieldMap copy = map.clone();
+        copy.put("a", 2);
+        copy.put("c", 3);
+        assertEquals(1, map.get("a"));
+        assertFalse(map.containsKey("c"));
+        assertTrue(map.hasSharedKeys());
+        assertEquals(Arrays.asList("a", "b", "c", "d"), new ArrayList<String>(copy.keySet()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(map);
+        out.close();
+        Object read = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertTrue(read instanceof TreeMap);
+        assertEquals(map, read);
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.CollectionSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.CollectionTarget;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Source;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Target;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FieldProjectionTest {
+
+    @Test
+    public void testProjectionFields() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        FieldProjection<Target> p = as.projection("sub", "id", "doesNotExist");
+        assertEquals(Arrays.asList("id", "sub"), p.getFields());
+        assertSame(as, p.getSerializer());
+
+        FieldProjection<Target> all = as.projection();
+        assertEquals(Arrays.asList("combined", "excludedSub", "extraSub", "id", "idCopy", "name", "otherSubField", "sub"),
+                all.getFields());
+    }
+
+    @Test
+    public void testSerializeThroughProjection() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        FieldProjection<Target> p = as.projection("id", "sub");
+        Source s = new Source(1, new SubSource("extra", "required"), "foo");
+        Target t = p.serialize(s);
+        assertEquals(t.id, 1);
+        assertEquals(t.sub.required, "required");
+        assertNull(t.getName());
+        assertNull(t.combined);
+
+        Map<String, Object> m = p.serializeToMap(s);
+        assertEquals(2, m.size());
+        assertEquals(m.get("id"), 1);
+        assertNull(p.serialize(null));
+    }
+
+    @Test
+    public void testProjectionsAreCached() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        assertSame(as.projection("id", "name"), as.projection(Arrays.asList("id", "name")));
+        assertSame(as.projection(), as.projection(Arrays.<String>asList()));
+        // keyed by field set, not by the order or repetition of the names
+        assertSame(as.projection("id", "name"), as.projection("name", "id", "name"));
+
+        FieldProjection<Target> kept = as.projection("id", "sub");
+        for (int i = 0; i < AnnotationSerializer.PROJECTION_CACHE_SIZE * 4; i++) {
+            as.projection("id", "extra" + i);
+            as.projection("sub", "id");
+        }
+        assertSame(kept, as.projection("id", "sub"));
+    }
+
+    @Test
+    public void testSerializerFieldsAreTheDefault() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class, "name");
+        assertEquals(Arrays.asList("name"), as.projection().getFields());
+        Map<String, Object> m = as.serializeToMap(new Source(1, null, "foo"));
+        assertEquals(1, m.size());
+        // per-call fields replace the serializer's fields
+        m = as.serializeToMap(new Source(1, null, "foo"), "id");
+        assertEquals(1, m.size());
+        assertEquals(m.get("id"), 1);
+    }
+
+    @Test
+    public void testNestedPaths() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        FieldProjection<Target> p = as.projection("id", "sub.required");
+        assertEquals(Arrays.asList("id", "sub"), p.getFields());
+        assertSame(p, as.projection("id", "sub.required"));
+
+        Source s = new Source(1, new SubSource("extra", "required"), "foo");
+        Target t = p.serialize(s);
+        assertEquals(t.sub.required, "required");
+        assertNull(t.sub.extra);
+        assertNull(t.otherSubField);
+
+        Map<?, ?> sub = (Map<?, ?>) p.serializeToMap(s).get("sub");
+        assertEquals(1, sub.size());
+        assertEquals(sub.get("required"), "required");
+        sub = (Map<?, ?>) p.serializeToLazyMap(s).get("sub");
+        assertEquals(1, sub.size());
+
+        StringBuilder json = new StringBuilder();
+        p.serializeTo(s, json);
+        assertEquals("{\"id\":1,\"sub\":{\"required\":\"required\"}}", json.toString());
+
+        // a path into a field without a sub-serializer selects the field
+        assertEquals(Arrays.asList("name"), as.projection("name.length").getFields());
+    }
+
+    @Test
+    public void testNestedWildcard() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        Source s = new Source(1, new SubSource("extra", "required"), "foo");
+        // excludedSub is configured with fields = "required"
+        Map<?, ?> sub = (Map<?, ?>) as.serializeToMap(s, "excludedSub.*").get("excludedSub");
+        assertEquals(1, sub.size());
+        assertEquals(sub.get("required"), "required");
+        sub = (Map<?, ?>) as.serializeToMap(s, "excludedSub").get("excludedSub");
+        assertEquals(1, sub.size());
+        // like top-level fields, a nested selection replaces the configured fields
+        sub = (Map<?, ?>) as.serializeToMap(s, "excludedSub.extra").get("excludedSub");
+        assertEquals(1, sub.size());
+        assertEquals(sub.get("extra"), "extra");
+        // a whole field wins over paths into it
+        sub = (Map<?, ?>) as.serializeToMap(s, "sub.extra", "sub").get("sub");
+        assertEquals(2, sub.size());
+    }
+
+    @Test
+    public void testExcludedSubtreesAreNotRead() throws Exception {
+        final AtomicInteger subReads = new AtomicInteger();
+        final AtomicInteger extraReads = new AtomicInteger();
+        final SubSource child = new SubSource("extra", "required") {
+            @Override
+            public String getExtra() {
+                extraReads.incrementAndGet();
+                return super.getExtra();
+            }
+        };
+        Source s = new Source(1, null, "foo") {
+            @Override
+            public SubSource getSub() {
+                subReads.incrementAndGet();
+                return child;
+            }
+        };
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        as.serializeToMap(s, "name", "otherSubField.required");
+        as.serialize(s, "otherSubField.required");
+        assertEquals(2, subReads.get());
+        assertEquals(0, extraReads.get());
+    }
+
+    @Test
+    public void testNestedPathsInCollections() throws Exception {
+        AnnotationSerializer<CollectionTarget> as = AnnotationSerializer.serializerForClass(CollectionTarget.class);
+        CollectionSource s = new CollectionSource(Arrays.asList(new SubSource("a", "b"), new SubSource("c", "d")), null);
+        Map<String, Object> m = as.serializeToMap(s, "children.extra", "childArray.required");
+        List<?> children = (List<?>) m.get("children");
+        assertEquals(2, children.size());
+        assertEquals(1, ((Map<?, ?>) children.get(1)).size());
+        assertEquals(((Map<?, ?>) children.get(1)).get("extra"), "c");
+
+        CollectionTarget t = as.serialize(s, "childArray.required");
+        assertEquals(t.childArray[0].required, "b");
+        assertNull(t.childArray[0].extra);
+        assertNull(t.children);
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class IdentityTrackingTest {
+
+    public static class Node {
+        private final String name;
+        private final List<Node> children = new ArrayList<Node>();
+        private Node parent;
+
+        public Node(String name) {
+            this.name = name;
+        }
+
+        public Node add(Node child) {
+            children.add(child);
+            child.parent = this;
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        public Node getParent() {
+            return parent;
+        }
+    }
+
+    @SerializedFrom(Node.class)
+    public static class TreeTarget {
+        public String name;
+        @WithSerializer
+        public List<TreeTarget> children;
+    }
+
+    @SerializedFrom(Node.class)
+    public static class LinkedTarget {
+        public String name;
+        @WithSerializer
+        public List<LinkedTarget> children;
+        @WithSerializer
+        public LinkedTarget parent;
+    }
+
+    @Test
+    public void testRecursiveSerializerBuildsOnce() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        AnnotationSerializer<LinkedTarget> as = registry.serializerFor(LinkedTarget.class);
+        assertEquals(1, registry.size());
+        assertEquals(1, registry.missCount());
+        assertSame(as, registry.serializerFor(LinkedTarget.class));
+
+        AnnotationSerializer<TreeTarget> tree = registry.serializerFor(TreeTarget.class);
+        Node root = new Node("root").add(new Node("a").add(new Node("a1"))).add(new Node("b"));
+        TreeTarget t = tree.serialize(root);
+        assertEquals("root", t.name);
+        assertEquals(2, t.children.size());
+        assertEquals("a1", t.children.get(0).children.get(0).name);
+        assertTrue(t.children.get(1).children.isEmpty());
+    }
+
+    @Test
+    public void testSharedReferences() throws Exception {
+        final AnnotationSerializer<TreeTarget> as = AnnotationSerializer.serializerForClass(TreeTarget.class);
+        Node shared = new Node("shared");
+        final Node root = new Node("root");
+        root.getChildren().add(shared);
+        root.getChildren().add(shared);
+
+        TreeTarget untracked = as.serialize(root);
+        assertNotSame(untracked.children.get(0), untracked.children.get(1));
+
+        TreeTarget tracked = IdentityTracking.track(() -> as.serialize(root));
+        assertSame(tracked.children.get(0), tracked.children.get(1));
+        assertFalse(IdentityTracking.isTracking());
+
+        String json = IdentityTracking.track(() -> {
+            StringBuilder out = new StringBuilder();
+            as.serializeTo(root, out);
+            return out.toString();
+        });
+        assertEquals("{\"$id\":1,\"children\":[{\"$id\":2,\"children\":[],\"name\":\"shared\"},{\"$ref\":2}],\"name\":\"root\"}", json);
+    }
+
+    @Test
+    public void testCycles() throws Exception {
+        final AnnotationSerializer<LinkedTarget> as = AnnotationSerializer.serializerForClass(LinkedTarget.class);
+        final Node root = new Node("root").add(new Node("child"));
+
+        LinkedTarget t = IdentityTracking.track(() -> as.serialize(root));
+        assertNull(t.parent);
+        assertSame(t, t.children.get(0).parent);
+
+        Map<String, Object> m = IdentityTracking.track(() -> as.serializeToMap(root));
+        Map<?, ?> child = (Map<?, ?>) ((List<?>) m.get("children")).get(0);
+        assertSame(m, child.get("parent"));
+    }
+}
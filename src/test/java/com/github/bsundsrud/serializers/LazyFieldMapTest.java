@@ -0,0 +1,153 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.annotations.Synthesized;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+import com.github.bsundsrud.serializers.util.UncheckedSerializerException;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LazyFieldMapTest {
+
+    public static class Source {
+        final List<String> calls = new ArrayList<String>();
+        private final int id;
+        private boolean fail;
+
+        public Source(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            calls.add("id");
+            return id;
+        }
+
+        public String getName() {
+            calls.add("name");
+            if (fail) {
+                throw new IllegalStateException("not loaded");
+            }
+            return "n" + id;
+        }
+
+        public Source getChild() {
+            calls.add("child");
+            return new Source(id * 10);
+        }
+
+        public List<Source> getChildren() {
+            calls.add("children");
+            return Arrays.asList(new Source(id + 1), new Source(id + 2));
+        }
+    }
+
+    @SerializedFrom(Source.class)
+    public static class Target {
+        public int id;
+        public String name;
+        public String label;
+        @WithSerializer
+        public Leaf child;
+        @WithSerializer
+        public List<Leaf> children;
+
+        @Synthesized(target = "label", from = { "id", "name" })
+        public String label(int id, String name) {
+            return name + "#" + id;
+        }
+    }
+
+    @SerializedFrom(Source.class)
+    public static class Leaf {
+        public int id;
+        public String name;
+    }
+
+    @Test
+    public void testFieldsAreComputedOnRead() throws Exception {
+        AnnotationSerializer<Target> as = new SerializerRegistry().serializerFor(Target.class);
+        Source s = new Source(1);
+        LazyFieldMap map = (LazyFieldMap) as.serializeToLazyMap(s);
+        assertTrue(s.calls.isEmpty());
+        assertEquals(5, map.size());
+        assertTrue(map.containsKey("child"));
+        assertFalse(map.containsKey("missing"));
+        assertTrue(s.calls.isEmpty());
+
+        assertEquals(1, map.get("id"));
+        assertEquals(1, map.get("id"));
+        assertEquals(Arrays.asList("id"), s.calls);
+        assertTrue(map.isEvaluated("id"));
+        assertFalse(map.isEvaluated("name"));
+
+        Map<?, ?> child = (Map<?, ?>) map.get("child");
+        assertTrue(child instanceof LazyFieldMap);
+        assertEquals(Arrays.asList("id", "child"), s.calls);
+        assertEquals("n10", child.get("name"));
+
+        List<?> children = (List<?>) map.get("children");
+        assertEquals(2, children.size());
+        assertTrue(children.get(0) instanceof LazyFieldMap);
+        assertEquals(3, ((Map<?, ?>) children.get(1)).get("id"));
+        assertFalse(map.isEvaluated("label"));
+    }
+
+    @Test
+    public void testKeysAreListedWithoutComputing() throws Exception {
+        AnnotationSerializer<Target> as = new SerializerRegistry().serializerFor(Target.class);
+        Source s = new Source(1);
+        LazyFieldMap map = (LazyFieldMap) as.serializeToLazyMap(s);
+        assertEquals(Arrays.asList("child", "children", "id", "label", "name"), new ArrayList<String>(map.keySet()));
+        assertTrue(map.keySet().contains("label"));
+        Map.Entry<String, Object> first = map.entrySet().iterator().next();
+        assertEquals("child", first.getKey());
+        assertTrue(s.calls.isEmpty());
+        assertFalse(map.isEvaluated("child"));
+
+        assertTrue(first.getValue() instanceof LazyFieldMap);
+        assertTrue(map.isEvaluated("child"));
+        assertEquals(Arrays.asList("child"), s.calls);
+    }
+
+    @Test
+    public void testSameAsEagerMap() throws Exception {
+        AnnotationSerializer<Target> as = new SerializerRegistry().serializerFor(Target.class);
+        Map<String, Object> lazy = as.serializeToLazyMap(new Source(2));
+        Map<String, Object> eager = as.serializeToMap(new Source(2));
+        assertEquals(eager, lazy);
+        assertEquals(new ArrayList<String>(eager.keySet()), new ArrayList<String>(lazy.keySet()));
+        assertEquals(new Gson().toJson(eager), new Gson().toJson(as.serializeToLazyMap(new Source(2))));
+        assertEquals(eager.toString(), as.projection().serializeToLazyMap(new Source(2)).toString());
+        assertTrue(as.serializeToLazyMap(null).isEmpty());
+        try {
+            lazy.put("id", 3);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testFailuresAreRetried() throws Exception {
+        AnnotationSerializer<Target> as = new SerializerRegistry().serializerFor(Target.class, "id", "name");
+        Source s = new Source(1);
+        s.fail = true;
+        Map<String, Object> map = as.serializeToLazyMap(s);
+        assertEquals(1, map.get("id"));
+        try {
+            map.get("name");
+            fail();
+        } catch (UncheckedSerializerException e) {
+            assertTrue(e.getCause().getMessage().contains("getName"));
+        }
+        s.fail = false;
+        assertEquals("n1", map.get("name"));
+    }
+}
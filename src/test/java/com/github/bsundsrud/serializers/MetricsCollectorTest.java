@@ -0,0 +1,170 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.FromField;
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsCollectorTest {
+
+    public static class Source {
+        private final int id;
+
+        public Source(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Source getChild() {
+            return id > 0 ? new Source(id - 1) : null;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("lazy load failed");
+        }
+    }
+
+    @SerializedFrom(Source.class)
+    public static class Target {
+        public int id;
+        @WithSerializer
+        public Child child;
+        @FromField("broken")
+        public String broken;
+    }
+
+    @SerializedFrom(Source.class)
+    public static class Child {
+        public int id;
+    }
+
+    private static class RecordingListener implements MetricsListener {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void serialized(Class<?> serializer, Output output, long nanos) {
+            events.add(serializer.getSimpleName() + " " + output + (nanos == NOT_TIMED ? "" : " timed"));
+        }
+
+        @Override
+        public void fieldSerialized(Class<?> serializer, String field, long nanos) {
+            assertTrue(nanos >= 0);
+            events.add(serializer.getSimpleName() + "." + field);
+        }
+
+        @Override
+        public void failed(Class<?> serializer, String field, SerializerException e) {
+            events.add(serializer.getSimpleName() + "." + field + " failed");
+        }
+
+        @Override
+        public void written(Class<?> serializer, long chars) {
+            events.add(serializer.getSimpleName() + " wrote " + chars);
+        }
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        AnnotationSerializer<Target> as = registry.serializerFor(Target.class, "id", "child");
+        RecordingListener listener = new RecordingListener();
+        as.serialize(new Source(1));
+        registry.setMetricsListener(listener);
+
+        as.serialize(new Source(1));
+        // the nested serializer reports before the field holding it
+        assertEquals(Arrays.asList("Child.id", "Child OBJECT timed", "Target.child", "Target.id", "Target OBJECT timed"),
+                listener.events);
+        listener.events.clear();
+
+        StringBuilder json = new StringBuilder();
+        as.serializeTo(new Source(0), json);
+        assertEquals(Arrays.asList("Target.child", "Target.id", "Target JSON timed", "Target wrote " + json.length()), listener.events);
+        listener.events.clear();
+
+        registry.setMetricsListener(listener, 1000000);
+        as.serializeToMap(new Source(0));
+        assertEquals(Collections.singletonList("Target MAP"), listener.events);
+        listener.events.clear();
+
+        AnnotationSerializer<Target> broken = registry.serializerFor(Target.class);
+        try {
+            broken.serialize(new Source(0));
+            fail();
+        } catch (SerializerException e) {
+            assertEquals(Collections.singletonList("Target.broken failed"), listener.events);
+        }
+
+        registry.setMetricsListener(null);
+        listener.events.clear();
+        as.serialize(new Source(1));
+        assertTrue(listener.events.isEmpty());
+        try {
+            registry.setMetricsListener(listener, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testCollector() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        MetricsCollector collector = new MetricsCollector();
+        registry.setMetricsListener(collector);
+        AnnotationSerializer<Target> as = registry.serializerFor(Target.class, "id", "child");
+        for (int i = 0; i < 10; i++) {
+            as.serialize(new Source(1));
+        }
+        as.serializeTo(new Source(1), new StringBuilder());
+        try {
+            registry.serializerFor(Target.class).serializeToMap(new Source(1));
+            fail();
+        } catch (SerializerException e) {
+        }
+
+        MetricsCollector.Stats stats = collector.stats(Target.class);
+        assertEquals(11, stats.getCalls());
+        assertEquals(11, stats.getTimedCalls());
+        assertTrue(stats.getTotalNanos() > 0);
+        assertTrue(stats.getPercentileNanos(50) <= stats.getPercentileNanos(99));
+        assertEquals(1, stats.getFailures());
+        assertEquals(1, stats.getFieldFailures("broken"));
+        assertEquals("{\"child\":{\"id\":0},\"id\":1}".length(), stats.getCharsWritten());
+        assertTrue(stats.getFields().containsAll(Arrays.asList("id", "child", "broken")));
+        assertEquals(11, collector.stats(Child.class).getCalls());
+        assertEquals(Target.class, collector.allStats().get(0).getSerializer());
+        assertTrue(collector.report().contains(Target.class.getName() + ": calls=11"));
+
+        collector.reset();
+        assertNull(collector.stats(Target.class));
+    }
+
+    @Test
+    public void testHistogram() {
+        MetricsCollector.Histogram h = new MetricsCollector.Histogram();
+        assertEquals(0, h.percentile(50));
+        for (long v = 0; v < 100000; v += 7) {
+            int bucket = MetricsCollector.Histogram.bucket(v);
+            long upper = MetricsCollector.Histogram.upperBound(bucket);
+            assertTrue(v + " <= " + upper, v <= upper);
+            assertTrue(v + " within 25% of " + upper, upper - v <= v / 4);
+        }
+        for (int i = 1; i <= 100; i++) {
+            h.record(i * 1000);
+        }
+        long p50 = h.percentile(50);
+        assertTrue(String.valueOf(p50), p50 >= 50000 && p50 <= 62500);
+        assertTrue(h.percentile(100) >= 100000);
+    }
+}
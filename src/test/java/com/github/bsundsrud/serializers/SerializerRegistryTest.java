@@ -0,0 +1,87 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Source;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubTarget;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SerializerRegistryTest {
+
+    @SerializedFrom(Source.class)
+    public static class Parent {
+        public int id;
+
+        @WithSerializer
+        public SubTarget sub;
+    }
+
+    @SerializedFrom(Source.class)
+    public static class OtherParent {
+        public String name;
+
+        @WithSerializer
+        public SubTarget sub;
+    }
+
+    public static class NotASerializer {}
+
+    @Test
+    public void testCachesPerClassAndFields() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        AnnotationSerializer<SubTarget> first = registry.serializerFor(SubTarget.class);
+        AnnotationSerializer<SubTarget> second = registry.serializerFor(SubTarget.class);
+        assertSame(first, second);
+        assertEquals(1, registry.missCount());
+        assertEquals(1, registry.hitCount());
+
+        AnnotationSerializer<SubTarget> filtered = registry.serializerFor(SubTarget.class, "extra", "required");
+        assertNotSame(first, filtered);
+        assertSame(filtered, registry.serializerFor(SubTarget.class, "required", "extra"));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testNestedSerializersAreShared() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        registry.serializerFor(Parent.class);
+        registry.serializerFor(OtherParent.class);
+        // Parent, OtherParent and a single SubTarget
+        assertEquals(3, registry.size());
+        assertEquals(3, registry.missCount());
+        assertEquals(1, registry.hitCount());
+
+        Parent p = registry.serializerFor(Parent.class).serialize(new Source(1, new SubSource("extra", "required"), "foo"));
+        assertEquals(p.sub.extra, "extra");
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        try {
+            registry.serializerFor(NotASerializer.class);
+            assertTrue(false);
+        } catch (SerializerException e) {}
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        registry.serializerFor(SubTarget.class);
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.hitCount());
+        assertEquals(0, registry.missCount());
+    }
+
+    @Test
+    public void testDefaultRegistryBacksSerializerForClass() throws Exception {
+        assertSame(AnnotationSerializer.serializerForClass(SubTarget.class),
+                SerializerRegistry.getDefault().serializerFor(SubTarget.class));
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.CollectionSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.CollectionTarget;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.ProxySource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Source;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Target;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SerializerTypeAdapterFactoryTest {
+
+    @Test
+    public void testGsonRendersThroughSerializer() throws Exception {
+        SerializerTypeAdapterFactory factory = SerializerTypeAdapterFactory.of(SerializerRegistry.getDefault(),
+                Target.class, CollectionTarget.class);
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+
+        Source s = new Source(1, new SubSource("extra", null), "foo");
+        StringBuilder expected = new StringBuilder();
+        as.serializeTo(s, expected);
+        assertEquals(expected.toString(), gson.toJson(s));
+        assertEquals(new Gson().toJson(as.serializeToMap(s)), gson.toJson(s));
+        assertEquals("[" + expected + ",null]", gson.toJson(Arrays.asList(s, null)));
+
+        // subclasses of the source class go through the same adapter
+        ProxySource proxy = new ProxySource(2, null, "bar");
+        expected.setLength(0);
+        as.serializeTo(proxy, expected);
+        assertEquals(expected.toString(), gson.toJson(proxy));
+        assertSame(gson.getAdapter(Source.class), gson.getAdapter(Source.class));
+        assertNull(factory.create(gson, TypeToken.get(SubSource.class)));
+
+        CollectionSource c = new CollectionSource(Arrays.asList(new SubSource("a", "b"), null),
+                Collections.singletonMap("k", new SubSource("c", "d")));
+        expected.setLength(0);
+        AnnotationSerializer.serializerForClass(CollectionTarget.class).serializeTo(c, expected);
+        assertEquals(expected.toString(), gson.toJson(c));
+    }
+
+    @Test
+    public void testReadingIsLeftToGson() throws Exception {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(SerializerTypeAdapterFactory.of(SerializerRegistry.getDefault(),
+                Target.class)).create();
+        Source s = new Source(1, new SubSource("extra", "required"), "foo");
+        String json = new Gson().toJson(s);
+        Source read = gson.fromJson(json, Source.class);
+        assertEquals(1, read.getId());
+        assertEquals("foo", read.getName());
+        assertEquals("required", read.getSub().getRequired());
+        assertEquals(json, new Gson().toJson(read));
+        assertNull(gson.fromJson("null", Source.class));
+    }
+
+    @Test
+    public void testProjectionAdapter() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new SerializerTypeAdapterFactory(as.projection("id", "sub.required")))
+                .create();
+        assertEquals("{\"id\":1,\"sub\":{\"required\":\"r\"}}", gson.toJson(new Source(1, new SubSource("e", "r"), "foo")));
+
+        try {
+            new SerializerTypeAdapterFactory(as.projection("id"), as.projection("name"));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
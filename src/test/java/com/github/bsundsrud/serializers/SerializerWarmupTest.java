@@ -0,0 +1,89 @@
+package com.github.bsundsrud.serializers;
+
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.apt.PrecompiledFixtures;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Source;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubSource;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.SubTarget;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.Target;
+import com.github.bsundsrud.serializers.processors.AnnotationSerializerTest.WrongOtherSerializerTarget;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SerializerWarmupTest {
+
+    @Test
+    public void testBuildsAndWarmsUp() throws Exception {
+        SerializerRegistry registry = new SerializerRegistry();
+        SerializerWarmup.Report report = new SerializerWarmup(registry)
+                .classes(Target.class, SubTarget.class, WrongOtherSerializerTarget.class)
+                .sample(Target.class, new Source(1, new SubSource("extra", "required"), "foo"))
+                .iterations(5)
+                .run();
+
+        List<SerializerWarmup.Result> results = report.getResults();
+        assertEquals(3, results.size());
+        assertSame(Target.class, results.get(0).getSerializer());
+        assertEquals(5, results.get(0).getIterations());
+        assertTrue(results.get(0).getBuildNanos() > 0);
+        // SubSource has no no-argument constructor, so there is nothing to warm up with
+        assertEquals(0, results.get(1).getIterations());
+        assertNull(results.get(1).getFailure());
+        assertNotNull(results.get(2).getFailure());
+
+        assertEquals(1, report.getFailures().size());
+        assertTrue(report.toString().contains(WrongOtherSerializerTarget.class.getName()));
+        // the built serializers are cached, the sub-serializer was built along with Target
+        assertTrue(registry.size() >= 2);
+        assertSame(registry.serializerFor(SubTarget.class), registry.serializerFor(SubTarget.class));
+
+        try {
+            report.throwOnFailure();
+            fail("Expected SerializerException");
+        } catch (SerializerException e) {
+            assertSame(results.get(2).getFailure(), e.getCause());
+        }
+    }
+
+    @SerializedFrom(Source.class)
+    public static class Broken {
+        public int id;
+    }
+
+    @Test
+    public void testBrokenClassFailsOnlyItsSerializer() throws Exception {
+        SerializerWarmup.Report report = new SerializerWarmup(new SerializerRegistry())
+                .classes(Broken.class, SubTarget.class)
+                .run();
+        assertEquals(2, report.getResults().size());
+        assertEquals(1, report.getFailures().size());
+        SerializerWarmup.Result failed = report.getFailures().get(0);
+        assertSame(Broken.class, failed.getSerializer());
+        assertTrue(failed.getFailure().getCause() instanceof ExceptionInInitializerError);
+        assertNull(report.getResults().get(1).getFailure());
+    }
+
+    @Test
+    public void testScanPackage() throws Exception {
+        List<Class<?>> found = SerializerWarmup.scan(getClass().getClassLoader(), "com.github.bsundsrud.serializers.apt");
+        assertTrue(found.contains(PrecompiledFixtures.Target.class));
+        assertFalse(found.contains(PrecompiledFixtures.class));
+        assertFalse(found.contains(PrecompiledFixtures.Source.class));
+
+        assertTrue(SerializerWarmup.scan(getClass().getClassLoader(), "com.github.bsundsrud.serializers")
+                .contains(Target.class));
+    }
+
+    @Test
+    public void testReadIndex() throws Exception {
+        // written by the annotation processor when the tests were compiled
+        List<Class<?>> indexed = SerializerWarmup.readIndex(getClass().getClassLoader());
+        assertTrue(indexed.contains(Target.class));
+        assertTrue(indexed.contains(PrecompiledFixtures.Target.class));
+        assertFalse(indexed.contains(Source.class));
+    }
+}
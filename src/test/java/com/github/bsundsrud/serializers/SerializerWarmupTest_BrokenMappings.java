@@ -0,0 +1,12 @@
+package com.github.bsundsrud.serializers;
+
+/**
+ * Picked up as the generated mappings of {@link SerializerWarmupTest.Broken}, and fails to initialize
+ */
+class SerializerWarmupTest_BrokenMappings {
+    static {
+        if (true) {
+            throw new IllegalStateException("broken mappings");
+        }
+    }
+}
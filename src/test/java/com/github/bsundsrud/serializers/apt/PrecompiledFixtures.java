@@ -0,0 +1,98 @@
+package com.github.bsundsrud.serializers.apt;
+
+import com.github.bsundsrud.serializers.annotations.FromField;
+import com.github.bsundsrud.serializers.annotations.Precompiled;
+import com.github.bsundsrud.serializers.annotations.SerializedFrom;
+import com.github.bsundsrud.serializers.annotations.Synthesized;
+import com.github.bsundsrud.serializers.annotations.WithSerializer;
+
+import java.util.List;
+
+public class PrecompiledFixtures {
+
+    public static class Source {
+        private final int id;
+        private final String name;
+        private final List<String> tags;
+        private final SubSource sub;
+
+        public Source(int id, String name, List<String> tags, SubSource sub) {
+            this.id = id;
+            this.name = name;
+            this.tags = tags;
+            this.sub = sub;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public SubSource getSub() {
+            return sub;
+        }
+
+        public SubSource[] getSubs() {
+            return sub == null ? null : new SubSource[] { sub, sub };
+        }
+    }
+
+    public static class SubSource {
+        private final String value;
+
+        public SubSource(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    @Precompiled
+    @SerializedFrom(Source.class)
+    public static class Target {
+        public int id;
+        @FromField("id")
+        public long idCopy;
+        public List<String> tags;
+        public String label;
+        public String upper;
+        @WithSerializer
+        public SubTarget sub;
+        @WithSerializer
+        public List<SubTarget> subs;
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Synthesized(target = "label", from = { "id", "name" })
+        String makeLabel(int id, String name) {
+            return name + "#" + id;
+        }
+
+        @Synthesized(target = "upper", from = { "name" })
+        static String upper(String name) {
+            return name.toUpperCase();
+        }
+    }
+
+    @Precompiled
+    @SerializedFrom(SubSource.class)
+    public static class SubTarget {
+        public String value;
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.bsundsrud.serializers.apt;
+
+import com.github.bsundsrud.serializers.AccessorEngine;
+import com.github.bsundsrud.serializers.AnnotationSerializer;
+import com.github.bsundsrud.serializers.GeneratedMappings;
+import com.github.bsundsrud.serializers.SerializerRegistry;
+import com.github.bsundsrud.serializers.SerializerWarmup;
+import com.github.bsundsrud.serializers.apt.PrecompiledFixtures.Source;
+import com.github.bsundsrud.serializers.apt.PrecompiledFixtures.SubSource;
+import com.github.bsundsrud.serializers.apt.PrecompiledFixtures.Target;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SerializerProcessorTest {
+
+    private static final String HEADER = "package test;\n"
+            + "import com.github.bsundsrud.serializers.annotations.*;\n"
+            + "class Source {\n"
+            + "    public int getId() { return 1; }\n"
+            + "    private String getSecret() { return null; }\n"
+            + "    public String getName() { return null; }\n"
+            + "    public java.util.List<String> getTags() { return null; }\n"
+            + "}\n"
+            + "@SerializedFrom(Source.class)\n"
+            + "class Other {}\n";
+
+    @Test
+    public void testGeneratedMappingsAreUsed() throws Exception {
+        assertTrue(GeneratedMappings.class.isAssignableFrom(
+                Class.forName("com.github.bsundsrud.serializers.apt.PrecompiledFixtures_TargetMappings")));
+        for (AccessorEngine engine : AccessorEngine.values()) {
+            AnnotationSerializer<Target> as = new SerializerRegistry().serializerFor(Target.class, engine);
+            Source s = new Source(3, "foo", Arrays.asList("a", "b"), new SubSource("bar"));
+            Target t = as.serialize(s);
+            assertEquals(3, t.id);
+            assertEquals(3L, t.idCopy);
+            assertEquals("foo", t.getName());
+            assertEquals(Arrays.asList("a", "b"), t.tags);
+            // makeLabel is package-private, so only the generated code can call it
+            assertEquals("foo#3", t.label);
+            assertEquals("FOO", t.upper);
+            assertEquals("bar", t.sub.value);
+            assertEquals(2, t.subs.size());
+            assertEquals("bar", t.subs.get(1).value);
+
+            Map<String, Object> m = as.serializeToMap(s, "id", "label", "sub");
+            assertEquals(3, m.get("id"));
+            assertEquals("foo#3", m.get("label"));
+            assertEquals(Collections.singletonMap("value", "bar"), m.get("sub"));
+            assertEquals("FOO", as.serializeToMap(s, "upper").get("upper"));
+        }
+    }
+
+    @Test
+    public void testValidMappingCompiles() throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target {\n"
+                + "    public int id;\n"
+                + "    @WithSerializer @FromField(\"id\") public void setOther(Other o) {}\n"
+                + "}\n");
+        assertTrue(errors.toString(), errors.isEmpty());
+        errors = compile(
+                "class Derived extends Source {}\n"
+                + "@Precompiled @SerializedFrom(Derived.class)\n"
+                + "class Target { public int id; }\n");
+        assertTrue(errors.toString(), errors.isEmpty());
+        errors = compile(
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target {\n"
+                + "    public String name;\n"
+                + "    @FromField(\"id\") public long copy;\n"
+                + "    public String label;\n"
+                + "    @FromField(\"tags\") public void setTags(java.util.Collection<String> tags) {}\n"
+                + "    @Synthesized(target = \"label\", from = { \"name\", \"tags\" })\n"
+                + "    String label(String name, java.util.List<String> tags) { return name + tags; }\n"
+                + "}\n");
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
+    @Test
+    public void testIndexIsOptIn() throws Exception {
+        File out = Files.createTempDirectory("apt").toFile();
+        assertTrue(compile("", out).isEmpty());
+        assertFalse(new File(out, SerializerWarmup.INDEX).exists());
+
+        assertTrue(compile("", out, "-A" + SerializerProcessor.INDEX_OPTION + "=true").isEmpty());
+        assertEquals(Collections.singletonList("test.Other"),
+                Files.readAllLines(new File(out, SerializerWarmup.INDEX).toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMissingGetter() throws Exception {
+        assertError("No method named 'getMissing' on class 'test.Source'",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target { public String missing; }\n");
+    }
+
+    @Test
+    public void testInaccessibleGetter() throws Exception {
+        assertError("Method 'getSecret' on class 'test.Source' is not accessible",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target { public String secret; }\n");
+    }
+
+    @Test
+    public void testTypeMismatch() throws Exception {
+        assertError("not assignable from setter 'setId'",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target { public void setId(String id) {} }\n");
+        assertError("Cannot infer element serializer for field 'others'",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target { @WithSerializer @FromField(\"id\") public java.util.List others; }\n");
+        assertError("Type of serializer 'test.Other' does not match field type 'java.lang.String'",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target { @WithSerializer(Other.class) @FromField(\"id\") public String other; }\n");
+    }
+
+    @Test
+    public void testSynthesizedMismatch() throws Exception {
+        assertError("Parameter count mismatch for synthesizer method 'compute'. Expected 1 but found 2",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target {\n"
+                + "    private String combined;\n"
+                + "    @Synthesized(target = \"combined\", from = { \"id\" }) String compute(int id, int other) { return null; }\n"
+                + "}\n");
+        assertError("Type mismatch for parameter 0 on method 'compute'",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target {\n"
+                + "    public String combined;\n"
+                + "    @Synthesized(target = \"combined\", from = { \"id\" }) String compute(long id) { return null; }\n"
+                + "}\n");
+    }
+
+    @Test
+    public void testNotASerializer() throws Exception {
+        assertError("Serializer 'test.Target' not annotated with @SerializedFrom",
+                "@Precompiled class Target {}\n");
+        assertError("has no accessible no-argument constructor",
+                "@Precompiled @SerializedFrom(Source.class)\n"
+                + "class Target { private Target() {} }\n");
+    }
+
+    @Test
+    public void testFingerprintCoversFieldTypes() throws Exception {
+        String target = "@SerializedFrom(Source.class)\n"
+                + "public class Target {\n"
+                + "    public int id;\n"
+                + "    @FromField(\"name\") public %s label;\n"
+                + "    public void setTags(java.util.List<%s> tags) {}\n"
+                + "}\n";
+        long reflective = fingerprint(String.format(target, "String", "String"));
+        assertEquals(reflective, fingerprint(String.format(target, "String", "String")));
+        // generated mappings have no setter or field to go by, and must still agree with scanning
+        assertEquals(reflective, fingerprint("@Precompiled " + String.format(target, "String", "String")));
+        assertNotEquals(reflective, fingerprint(String.format(target, "Object", "String")));
+        assertNotEquals(reflective, fingerprint(String.format(target, "String", "Object")));
+    }
+
+    private static long fingerprint(String source) throws Exception {
+        File out = Files.createTempDirectory("apt").toFile();
+        assertEquals(Collections.emptyList(), compile(source, out));
+        URLClassLoader loader = new URLClassLoader(new URL[]{out.toURI().toURL()}, SerializerProcessorTest.class.getClassLoader());
+        try {
+            return new SerializerRegistry().serializerFor(Class.forName("test.Target", true, loader)).projection().fingerprint();
+        } finally {
+            loader.close();
+        }
+    }
+
+    private static void assertError(String expected, String source) throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(source);
+        for (Diagnostic<? extends JavaFileObject> d : errors) {
+            if (d.getMessage(null).contains(expected)) {
+                return;
+            }
+        }
+        fail("Expected error containing '" + expected + "' but got " + errors);
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(String source) throws IOException {
+        return compile(source, Files.createTempDirectory("apt").toFile());
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(String source, File out, String... options) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+        final String code = HEADER + source;
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///test/Target.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            List<String> args = new ArrayList<String>(Arrays.asList(options));
+            args.addAll(Arrays.asList("-Xlint:cast", "-d", out.getPath(), "-classpath", System.getProperty("java.class.path"), "-s", out.getPath()));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, args, null, Collections.singletonList(file));
+            task.setProcessors(Collections.singletonList(new SerializerProcessor()));
+            task.call();
+        } finally {
+            fileManager.close();
+        }
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<Diagnostic<? extends JavaFileObject>>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            // generated sources must not need more casts than hand-written ones
+            if (d.getKind() == Diagnostic.Kind.ERROR || "compiler.warn.redundant.cast".equals(d.getCode())) {
+                errors.add(d);
+            }
+        }
+        return errors;
+    }
+}
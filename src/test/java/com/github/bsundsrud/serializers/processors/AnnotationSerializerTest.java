@@ -8,9 +8,24 @@ import com.github.bsundsrud.serializers.annotations.Synthesized;
 import com.github.bsundsrud.serializers.annotations.WithSerializer;
 import com.github.bsundsrud.serializers.util.SerializerException;
 import org.junit.Test;
+import com.github.bsundsrud.serializers.AccessorEngine;
 import com.github.bsundsrud.serializers.AnnotationSerializer;
 
+import com.google.gson.Gson;
+
+import com.github.bsundsrud.serializers.util.BinaryEncoder;
+import com.github.bsundsrud.serializers.util.UncheckedSerializerException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AnnotationSerializerTest {
 
@@ -38,6 +53,29 @@ public class AnnotationSerializerTest {
         }
     }
 
+    public static class ProxySource extends Source {
+        public ProxySource(int id, SubSource sub, String name) {
+            super(id, sub, name);
+        }
+
+        @Override
+        public String getName() {
+            return "proxied " + super.getName();
+        }
+    }
+
+    public static class DerivedSource extends Source {
+        public DerivedSource(int id, String name) {
+            super(id, null, name);
+        }
+    }
+
+    @SerializedFrom(DerivedSource.class)
+    public static class DerivedTarget {
+        public int id;
+        public String name;
+    }
+
     public static class SubSource {
 
         private String extra;
@@ -173,8 +211,85 @@ public class AnnotationSerializerTest {
         public int id;
     }
 
+    @SerializedFrom(Source.class)
+    public static class CountingTarget {
+        static final AtomicInteger instances = new AtomicInteger();
+        public int id;
+        public String upper;
+        public String combined;
+
+        public CountingTarget() {
+            instances.incrementAndGet();
+        }
+
+        @Synthesized(target = "upper", from = { "name" })
+        public static String toUpper(String name) {
+            return name.toUpperCase();
+        }
+
+        @Synthesized(target = "combined", from = { "id", "name" })
+        public String combine(int id, String name) {
+            return name + id;
+        }
+    }
+
     public static class NotASerializer {}
 
+    public static class CollectionSource {
+        private final List<SubSource> children;
+        private final SubSource[] childArray;
+        private final Map<String, SubSource> childMap;
+
+        public CollectionSource(List<SubSource> children, Map<String, SubSource> childMap) {
+            this.children = children;
+            this.childArray = children == null ? null : children.toArray(new SubSource[children.size()]);
+            this.childMap = childMap;
+        }
+
+        public List<SubSource> getChildren() {
+            return children;
+        }
+
+        public SubSource[] getChildArray() {
+            return childArray;
+        }
+
+        public Map<String, SubSource> getChildMap() {
+            return childMap;
+        }
+    }
+
+    @SerializedFrom(CollectionSource.class)
+    public static class CollectionTarget {
+        @WithSerializer
+        public List<SubTarget> children;
+        @WithSerializer
+        @FromField("children")
+        public SubTarget[] childArray;
+        @WithSerializer(SubTarget.class)
+        @FromField("childArray")
+        public Set<SubTarget> childSet;
+        @WithSerializer(fields = "required")
+        public Map<String, SubTarget> childMap;
+        private Deque<SubTarget> queue;
+
+        public Deque<SubTarget> getQueue() {
+            return queue;
+        }
+
+        @WithSerializer
+        @FromField("childMap")
+        public void setQueue(Deque<SubTarget> queue) {
+            this.queue = queue;
+        }
+    }
+
+    @SerializedFrom(CollectionSource.class)
+    public static class RawCollectionTarget {
+        @WithSerializer
+        public List children;
+    }
+
     @Test
     public void testHappyPath() throws Exception {
         AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
@@ -191,6 +306,38 @@ public class AnnotationSerializerTest {
         assertEquals(t.getExtraSub().extra, "extra");
     }
 
+    @Test
+    public void testBytecodeEngine() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class, AccessorEngine.BYTECODE);
+        Source s = new Source(1, new SubSource("extra", "required"), "foo");
+        Target t = as.serialize(s);
+        assertEquals(t.id, 1);
+        assertEquals(t.idCopy, 1);
+        assertEquals(t.getName(), "foo");
+        assertEquals(t.combined, "1-foo");
+        assertEquals(t.sub.extra, "extra");
+        assertEquals(t.getExcludedSub().required, "required");
+        assertNull(t.getExcludedSub().extra);
+        Map<String, Object> m = as.serializeToMap(s);
+        assertEquals(m.get("id"), 1);
+        assertEquals(((Map)m.get("sub")).get("required"), "required");
+    }
+
+    @Test
+    public void testMethodHandleEngine() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class, AccessorEngine.METHOD_HANDLE);
+        Source s = new Source(1, new SubSource("extra", "required"), "foo");
+        Target t = as.serialize(s);
+        assertEquals(t.id, 1);
+        assertEquals(t.getName(), "foo");
+        assertEquals(t.combined, "1-foo");
+        assertEquals(t.sub.required, "required");
+        assertEquals(t.getExtraSub().extra, "extra");
+        Map<String, Object> m = as.serializeToMap(s);
+        assertEquals(m.get("combined"), "1-foo");
+        assertEquals(((Map)m.get("excludedSub")).get("required"), "required");
+    }
+
     @Test
     public void testMustBeSerializer() {
         try {
@@ -263,6 +410,58 @@ public class AnnotationSerializerTest {
         } catch (SerializerException e) {}
     }
 
+    @Test
+    public void testSerializeFromSubclass() throws Exception {
+        for (AccessorEngine engine : AccessorEngine.values()) {
+            AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class, engine);
+            Source s = new ProxySource(1, new SubSource("extra", "required"), "foo");
+            Target t = as.serialize(s);
+            assertEquals(1, t.id);
+            assertEquals("proxied foo", t.getName());
+            assertEquals("1-proxied foo", t.combined);
+            assertEquals("proxied foo", as.serializeToMap(s).get("name"));
+            assertEquals(2, as.serializeAll(Arrays.asList(s, new Source(2, null, "bar"))).size());
+
+            AnnotationSerializer<DerivedTarget> derived = AnnotationSerializer.serializerForClass(DerivedTarget.class, engine);
+            DerivedTarget d = derived.serialize(new DerivedSource(3, "inherited"));
+            assertEquals(3, d.id);
+            assertEquals("inherited", d.name);
+            try {
+                derived.serialize(new Source(3, null, "base"));
+                fail();
+            } catch (SerializerException e) {
+                assertTrue(e.getMessage().startsWith("Source Object does not match Serializer target"));
+            }
+        }
+    }
+
+    @Test
+    public void testTargetOnlyCreatedWhenNeeded() throws Exception {
+        Source s = new Source(1, null, "foo");
+        for (AccessorEngine engine : AccessorEngine.values()) {
+            AnnotationSerializer<CountingTarget> as = AnnotationSerializer.serializerForClass(CountingTarget.class, engine);
+            CountingTarget.instances.set(0);
+            Map<String, Object> m = as.serializeToMap(s, "id", "upper");
+            assertEquals(1, m.get("id"));
+            assertEquals("FOO", m.get("upper"));
+            StringBuilder json = new StringBuilder();
+            as.serializeTo(s, json, "id", "upper");
+            assertEquals("{\"id\":1,\"upper\":\"FOO\"}", json.toString());
+            assertEquals(0, CountingTarget.instances.get());
+
+            assertEquals("foo1", as.serializeToMap(s).get("combined"));
+            assertEquals(1, CountingTarget.instances.get());
+            CountingTarget t = as.serialize(s);
+            assertEquals("FOO", t.upper);
+            assertEquals("foo1", t.combined);
+            assertEquals(2, CountingTarget.instances.get());
+        }
+
+        // a serializer that can't be instantiated still works where no instance is needed
+        AnnotationSerializer<PrivateConstructor> as = AnnotationSerializer.serializerForClass(PrivateConstructor.class);
+        assertEquals(1, as.serializeToMap(s).get("id"));
+    }
+
     @Test
     public void testSerializeToMapHappyPath() throws Exception {
         AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
@@ -290,4 +489,216 @@ public class AnnotationSerializerTest {
         assertEquals(m.size(), 0);
     }
 
+    @Test
+    public void testSerializeToJson() throws Exception {
+        Gson gson = new Gson();
+        for (AccessorEngine engine : AccessorEngine.values()) {
+            AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class, engine);
+            Source s = new Source(1, new SubSource("extra", "<required>"), "foo=bar");
+            StringBuilder out = new StringBuilder();
+            as.serializeTo(s, out);
+            assertEquals(gson.toJson(as.serializeToMap(s)), out.toString());
+
+            // null values are skipped, null sub-objects are written as empty objects
+            s = new Source(2, null, null);
+            out = new StringBuilder();
+            as.serializeTo(s, out);
+            assertEquals(gson.toJson(as.serializeToMap(s)), out.toString());
+
+            out = new StringBuilder();
+            as.serializeTo(s, out, "id", "sub");
+            assertEquals("{\"id\":2,\"sub\":{}}", out.toString());
+        }
+    }
+
+    @Test
+    public void testSerializeToJsonStream() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        Source s = new Source(1, new SubSource("extra", "required"), "f\u00f6\u00f6");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        as.serializeTo(s, bytes, "name", "sub");
+        assertEquals("{\"name\":\"f\u00f6\u00f6\",\"sub\":{\"extra\":\"extra\",\"required\":\"required\"}}",
+                new String(bytes.toByteArray(), "UTF-8"));
+
+        StringBuilder out = new StringBuilder();
+        as.serializeTo(null, out);
+        assertEquals("{}", out.toString());
+
+        try {
+            as.serializeTo("Test", new StringBuilder());
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+
+    @Test
+    public void testSerializeAll() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        List<Source> sources = new ArrayList<Source>();
+        for (int i = 0; i < 5; i++) {
+            sources.add(new Source(i, new SubSource("extra", "required"), "foo" + i));
+        }
+        sources.add(null);
+        List<Target> targets = as.serializeAll(sources);
+        assertEquals(6, targets.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(targets.get(i).id, i);
+            assertEquals(targets.get(i).combined, i + "-foo" + i);
+        }
+        assertNull(targets.get(5));
+
+        List<Map<String, Object>> maps = as.serializeAllToMaps(sources, "id");
+        assertEquals(6, maps.size());
+        assertEquals(1, maps.get(3).size());
+        assertEquals(maps.get(3).get("id"), 3);
+        assertEquals(0, maps.get(5).size());
+
+        try {
+            as.serializeAll(Arrays.asList(sources.get(0), "Test"));
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+
+    @Test
+    public void testCollections() throws Exception {
+        AnnotationSerializer<CollectionTarget> as = AnnotationSerializer.serializerForClass(CollectionTarget.class);
+        Map<String, SubSource> childMap = new LinkedHashMap<String, SubSource>();
+        childMap.put("b", new SubSource("extra-b", "required-b"));
+        childMap.put("a", new SubSource("extra-a", "required-a"));
+        CollectionSource s = new CollectionSource(Arrays.asList(new SubSource("extra0", "required0"), null,
+                new SubSource("extra2", "required2")), childMap);
+
+        CollectionTarget t = as.serialize(s);
+        assertEquals(3, t.children.size());
+        assertEquals("required0", t.children.get(0).required);
+        assertNull(t.children.get(1));
+        assertEquals("extra2", t.children.get(2).extra);
+        assertEquals(3, t.childArray.length);
+        assertEquals("required2", t.childArray[2].required);
+        assertEquals(3, t.childSet.size());
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<String>(t.childMap.keySet()));
+        assertEquals("required-a", t.childMap.get("a").required);
+        assertNull(t.childMap.get("a").extra);
+
+        Map<String, Object> m = as.serializeToMap(s, "children", "childMap");
+        List<?> children = (List<?>) m.get("children");
+        assertEquals(3, children.size());
+        assertEquals("required0", ((Map<?, ?>) children.get(0)).get("required"));
+        assertEquals("required-b", ((Map<?, ?>) ((Map<?, ?>) m.get("childMap")).get("b")).get("required"));
+
+        StringBuilder json = new StringBuilder();
+        as.serializeTo(s, json, "childArray", "childMap");
+        assertEquals(new Gson().toJson(as.serializeToMap(s, "childArray", "childMap")), json.toString());
+
+        // map sources feed collection targets with their values
+        assertEquals(2, t.getQueue().size());
+        assertEquals("required-b", t.getQueue().peekFirst().required);
+
+        CollectionTarget empty = as.serialize(new CollectionSource(null, null));
+        assertNull(empty.children);
+        assertNull(empty.childMap);
+        assertEquals("{}", new Gson().toJson(as.serializeToMap(new CollectionSource(null, null), "children")));
+    }
+
+    @Test
+    public void testRawCollectionNeedsSerializerType() {
+        try {
+            AnnotationSerializer.serializerForClass(RawCollectionTarget.class);
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+
+    @Test
+    public void testSerializedCollector() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        List<Source> sources = new ArrayList<Source>();
+        for (int i = 0; i < 1000; i++) {
+            sources.add(new Source(i, new SubSource("extra", "required"), "foo"));
+        }
+        List<Target> targets = sources.parallelStream().collect(as.toSerialized("id", "name"));
+        assertEquals(1000, targets.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(targets.get(i).id, i);
+            assertNull(targets.get(i).combined);
+        }
+
+        try {
+            Arrays.<Object>asList("Test").stream().collect(as.toSerialized());
+            assertTrue(false);
+        } catch (UncheckedSerializerException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        BinaryEncoder out = new BinaryEncoder(16);
+        as.serializeToBinary(new Source(1, new SubSource("extra", "required"), "foo"), out);
+        as.serializeToBinary(new Source(2, null, "bar"), out);
+        as.serializeToBinary(null, out);
+
+        ByteBuffer in = out.toByteBuffer();
+        Target t = as.deserializeFromBinary(in);
+        assertEquals(1, t.id);
+        assertEquals(1, t.idCopy);
+        assertEquals("foo", t.getName());
+        assertEquals("1-foo", t.combined);
+        assertEquals("extra", t.sub.extra);
+        assertEquals("required", t.getExcludedSub().required);
+        assertNull(t.getExcludedSub().extra);
+        assertEquals("extra", t.getExtraSub().extra);
+        Target second = as.deserializeFromBinary(in);
+        assertEquals(2, second.id);
+        assertNull(second.sub);
+        assertNull(as.deserializeFromBinary(in));
+        assertFalse(in.hasRemaining());
+
+        out.reset();
+        as.serializeToBinary(new Source(3, null, "baz"), out, "id", "name");
+        Target partial = as.deserializeFromBinary(out.toByteBuffer(), "name", "id");
+        assertEquals(3, partial.id);
+        assertNull(partial.combined);
+        try {
+            as.deserializeFromBinary(out.toByteBuffer(), "id");
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+
+    @Test
+    public void testBinaryCollections() throws Exception {
+        AnnotationSerializer<CollectionTarget> as = AnnotationSerializer.serializerForClass(CollectionTarget.class);
+        Map<String, SubSource> childMap = new LinkedHashMap<String, SubSource>();
+        childMap.put("b", new SubSource("extra-b", "required-b"));
+        childMap.put("a", new SubSource("extra-a", "required-a"));
+        CollectionSource s = new CollectionSource(Arrays.asList(new SubSource("extra0", "required0"), null,
+                new SubSource("extra2", "required2")), childMap);
+
+        BinaryEncoder out = new BinaryEncoder(16);
+        as.serializeToBinary(s, out);
+        CollectionTarget t = as.deserializeFromBinary(out.toByteBuffer());
+        assertEquals(3, t.children.size());
+        assertNull(t.children.get(1));
+        assertEquals("extra2", t.children.get(2).extra);
+        assertEquals("required2", t.childArray[2].required);
+        assertEquals(3, t.childSet.size());
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<String>(t.childMap.keySet()));
+        assertNull(t.childMap.get("a").extra);
+        assertEquals("required-b", t.getQueue().peekFirst().required);
+
+        out.reset();
+        as.serializeToBinary(new CollectionSource(null, null), out);
+        CollectionTarget empty = as.deserializeFromBinary(out.toByteBuffer());
+        assertNull(empty.children);
+        assertNull(empty.childMap);
+    }
+
+    @Test
+    public void testBinaryFingerprint() throws Exception {
+        AnnotationSerializer<Target> as = AnnotationSerializer.serializerForClass(Target.class);
+        assertEquals(as.projection("id", "name").fingerprint(), as.projection("name", "id").fingerprint());
+        assertNotEquals(as.projection("id", "name").fingerprint(), as.projection("id").fingerprint());
+        assertNotEquals(as.projection("sub").fingerprint(), as.projection("sub.extra").fingerprint());
+        assertNotEquals(as.projection().fingerprint(),
+                AnnotationSerializer.serializerForClass(Target.class, "id", "name").projection().fingerprint());
+    }
 }
@@ -78,4 +78,39 @@ public class BaseValueProcessorTest {
         assertTrue(map.containsKey("pub"));
         assertEquals(map.get("pub"), src.pub);
     }
+
+    @Test
+    public void testMethodHandles() throws Exception {
+        Method getter = SerializerUtils.findGetterForFieldName(TestSource.class, "priv");
+        Method setter = SerializerUtils.setterForField(TestTarget.class, "priv");
+        BaseValueProcessor s = new BaseValueProcessor("priv", getter, setter, true);
+        assertNotNull(s.getterHandle);
+        assertNotNull(s.setterHandle);
+        TestSource src = new TestSource();
+        src.setPriv(4);
+        TestTarget tgt = new TestTarget();
+        s.serialize(src, tgt);
+        assertEquals(tgt.getPriv(), 4);
+        Map<String, Object> map = new HashMap<String, Object>();
+        s.serializeToMap(src, tgt, map);
+        assertEquals(map.get("priv"), 4);
+    }
+
+    @Test
+    public void testResolvedField() throws Exception {
+        Method getter = SerializerUtils.findGetterForFieldName(TestSource.class, "pub");
+        BaseValueProcessor s = new BaseValueProcessor(TestTarget.class.getField("pub"), getter);
+        TestSource src = new TestSource();
+        src.pub = "resolved";
+        TestTarget tgt = new TestTarget();
+        s.serialize(src, tgt);
+        assertEquals(tgt.pub, "resolved");
+
+        assertNull(s.setterHandle);
+        s = new BaseValueProcessor(TestTarget.class.getField("pub"), getter, true);
+        assertNotNull(s.setterHandle);
+        src.pub = "handle";
+        s.serialize(src, tgt);
+        assertEquals(tgt.pub, "handle");
+    }
 }
@@ -0,0 +1,126 @@
+package com.github.bsundsrud.serializers.processors;
+
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.github.bsundsrud.serializers.util.SerializerUtils;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BytecodeProcessorFactoryTest {
+
+    public static class TestSource {
+        private String name;
+        private int count;
+        private long total;
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        private String getHidden() {
+            return name;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException();
+        }
+    }
+
+    public static class TestTarget {
+        public String name;
+        public int count;
+        private long total;
+        public Object anything;
+
+        public long getTotal() {
+            return total;
+        }
+
+        public TestTarget setTotal(long total) {
+            this.total = total;
+            return this;
+        }
+    }
+
+    @Test
+    public void testPublicField() throws Exception {
+        Method getter = SerializerUtils.findGetterForFieldName(TestSource.class, "name");
+        BaseValueProcessor p = BytecodeProcessorFactory.create(TestTarget.class, "name", getter, null);
+        assertTrue(p instanceof GeneratedValueProcessor);
+        TestSource src = new TestSource();
+        src.name = "test";
+        TestTarget tgt = new TestTarget();
+        p.serialize(src, tgt);
+        assertEquals(tgt.name, "test");
+
+        getter = SerializerUtils.findGetterForFieldName(TestSource.class, "count");
+        p = BytecodeProcessorFactory.create(TestTarget.class, "count", getter, null);
+        assertTrue(p instanceof GeneratedValueProcessor);
+        src.count = 7;
+        p.serialize(src, tgt);
+        assertEquals(tgt.count, 7);
+
+        // widening to Object still compiles
+        getter = SerializerUtils.findGetterForFieldName(TestSource.class, "name");
+        p = BytecodeProcessorFactory.create(TestTarget.class, "anything", getter, null);
+        assertTrue(p instanceof GeneratedValueProcessor);
+        p.serialize(src, tgt);
+        assertEquals(tgt.anything, "test");
+    }
+
+    @Test
+    public void testSetterWithWidePrimitive() throws Exception {
+        Method getter = SerializerUtils.findGetterForFieldName(TestSource.class, "total");
+        Method setter = TestTarget.class.getMethod("setTotal", long.class);
+        BaseValueProcessor p = BytecodeProcessorFactory.create(TestTarget.class, "total", getter, setter);
+        assertTrue(p instanceof GeneratedValueProcessor);
+        TestSource src = new TestSource();
+        src.total = Long.MAX_VALUE;
+        TestTarget tgt = new TestTarget();
+        p.serialize(src, tgt);
+        assertEquals(tgt.getTotal(), Long.MAX_VALUE);
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        p.serializeToMap(src, tgt, map);
+        assertEquals(map.get("total"), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testFallsBackToReflection() throws Exception {
+        Method getter = TestSource.class.getDeclaredMethod("getHidden");
+        BaseValueProcessor p = BytecodeProcessorFactory.create(TestTarget.class, "name", getter, null);
+        assertFalse(p instanceof GeneratedValueProcessor);
+
+        // type mismatch: String getter into an int field
+        getter = SerializerUtils.findGetterForFieldName(TestSource.class, "name");
+        p = BytecodeProcessorFactory.create(TestTarget.class, "count", getter, null);
+        assertFalse(p instanceof GeneratedValueProcessor);
+    }
+
+    @Test
+    public void testErrorsAreWrapped() throws Exception {
+        Method getter = SerializerUtils.findGetterForFieldName(TestSource.class, "broken");
+        BaseValueProcessor p = BytecodeProcessorFactory.create(TestTarget.class, "name", getter, null);
+        assertTrue(p instanceof GeneratedValueProcessor);
+        try {
+            p.serialize(new TestSource(), new TestTarget());
+            assertTrue(false);
+        } catch (SerializerException e) {}
+        try {
+            p.serializeToMap(new TestSource(), new TestTarget(), new HashMap<String, Object>());
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.bsundsrud.serializers.processors;
+
+import static org.junit.Assert.*;
+
+import com.github.bsundsrud.serializers.util.JsonUtils;
+import com.github.bsundsrud.serializers.util.SerializerException;
+import com.github.bsundsrud.serializers.util.SerializerUtils;
+import com.google.gson.stream.JsonWriter;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PrimitiveValueProcessorTest {
+
+    public static class TestSource {
+        public int getCount() {
+            return 3;
+        }
+
+        public long getTotal() {
+            return 1L << 40;
+        }
+
+        public double getRatio() {
+            return 0.5;
+        }
+
+        public boolean getActive() {
+            return true;
+        }
+
+        public double getBroken() {
+            return Double.NaN;
+        }
+
+        public String getName() {
+            return "name";
+        }
+    }
+
+    public static class TestTarget {
+        public int count;
+        public long total;
+        public long widened;
+        public boolean active;
+        private double ratio;
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+    }
+
+    private static PrimitiveValueProcessor processor(String getterField, String targetField) throws Exception {
+        return PrimitiveValueProcessor.forMapping(targetField,
+                SerializerUtils.findGetterForFieldName(TestSource.class, getterField),
+                SerializerUtils.setterForField(TestTarget.class, targetField),
+                SerializerUtils.fieldForName(TestTarget.class, targetField));
+    }
+
+    @Test
+    public void testForMapping() throws Exception {
+        assertNotNull(processor("count", "count"));
+        assertNotNull(processor("total", "total"));
+        assertNotNull(processor("ratio", "ratio"));
+        assertNotNull(processor("active", "active"));
+        // not a primitive, or the types differ
+        assertNull(processor("name", "count"));
+        assertNull(processor("count", "widened"));
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        TestSource src = new TestSource();
+        TestTarget tgt = new TestTarget();
+        for (String field : new String[] { "count", "total", "ratio", "active" }) {
+            processor(field, field).serialize(src, tgt);
+        }
+        assertEquals(3, tgt.count);
+        assertEquals(1L << 40, tgt.total);
+        assertEquals(0.5, tgt.getRatio(), 0);
+        assertTrue(tgt.active);
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        processor("count", "count").serializeToMap(src, tgt, map);
+        processor("active", "active").serializeToMap(src, tgt, map);
+        assertEquals(3, map.get("count"));
+        assertEquals(true, map.get("active"));
+
+        try {
+            processor("count", "count").writeValue(tgt, null);
+            fail();
+        } catch (SerializerException e) {
+            assertTrue(e.getMessage().startsWith("Could not set 'count'"));
+        }
+    }
+
+    @Test
+    public void testSerializeToJson() throws Exception {
+        TestSource src = new TestSource();
+        StringWriter sw = new StringWriter();
+        JsonWriter out = JsonUtils.newJsonWriter(sw);
+        out.beginObject();
+        for (String field : new String[] { "count", "total", "ratio", "active" }) {
+            processor(field, field).serializeToJson(src, null, out);
+        }
+        out.endObject();
+        assertEquals("{\"count\":3,\"total\":1099511627776,\"ratio\":0.5,\"active\":true}", sw.toString());
+
+        out = JsonUtils.newJsonWriter(new StringWriter());
+        out.beginObject();
+        try {
+            processor("broken", "ratio").serializeToJson(src, null, out);
+            fail();
+        } catch (SerializerException e) {
+            assertEquals("Could not write 'ratio' as JSON", e.getMessage());
+        }
+    }
+}
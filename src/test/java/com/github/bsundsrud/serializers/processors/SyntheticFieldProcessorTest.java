@@ -237,4 +237,39 @@ public class SyntheticFieldProcessorTest {
         assertEquals(map.get("combined"), "3-Foo");
 
     }
+
+    @Test
+    public void testMethodHandles() throws Exception {
+        Method combinator = Target.class.getDeclaredMethod("doCombination", int.class, String.class);
+        List<Method> getters = new ArrayList<Method>();
+        getters.add(SerializerUtils.findGetterForFieldName(Source.class, "id"));
+        getters.add(SerializerUtils.findGetterForFieldName(Source.class, "name"));
+        Method setter = SerializerUtils.setterForField(Target.class, "combined");
+        SyntheticFieldProcessor sfs = new SyntheticFieldProcessor("combined", combinator, setter, getters, true);
+
+        Source s = new Source();
+        s.setId(5);
+        s.setName("Baz");
+        Target t = new Target();
+        sfs.serialize(s, t);
+        assertEquals(t.combined, "5-Baz");
+        Map<String, Object> map = new HashMap<String, Object>();
+        sfs.serializeToMap(s, t, map);
+        assertEquals(map.get("combined"), "5-Baz");
+
+        // inaccessible combinator keeps the reflective path, and its errors
+        combinator = ErrorTarget.class.getDeclaredMethod("accessCombination", int.class, String.class);
+        sfs = new SyntheticFieldProcessor("combined", combinator, null, getters, true);
+        try {
+            sfs.serialize(s, new ErrorTarget());
+            assertTrue(false);
+        } catch (SerializerException e) {}
+
+        combinator = ErrorTarget.class.getDeclaredMethod("exceptionCombination", int.class, String.class);
+        sfs = new SyntheticFieldProcessor("combined", combinator, null, getters, true);
+        try {
+            sfs.serializeToMap(s, new ErrorTarget(), map);
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
 }
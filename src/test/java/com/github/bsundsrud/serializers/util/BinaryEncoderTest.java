@@ -0,0 +1,103 @@
+package com.github.bsundsrud.serializers.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BinaryEncoderTest {
+
+    @Test
+    public void testValuesRoundTrip() throws Exception {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("b", 2L);
+        map.put("a", null);
+        List<Object> values = Arrays.<Object>asList(null, true, false, (byte) -3, (short) -300, '\u00e9', 0, -1,
+                Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, -2.25, "", "sm\u00f6rg\u00e5sbord", new Date(1234567890L),
+                Arrays.asList(1, "two"), map);
+
+        BinaryEncoder out = new BinaryEncoder(16);
+        for (Object value : values) {
+            out.writeValue(value);
+        }
+        BinaryDecoder in = new BinaryDecoder(out.toByteBuffer());
+        for (Object value : values) {
+            assertEquals(value, in.readValue());
+        }
+    }
+
+    @Test
+    public void testVarints() throws Exception {
+        BinaryEncoder out = new BinaryEncoder(16);
+        out.writeInt(63);
+        assertEquals(2, out.size());
+        out.writeInt(-64);
+        assertEquals(4, out.size());
+        out.writeInt(64);
+        assertEquals(7, out.size());
+        out.writeVarint(-1L);
+        assertEquals(17, out.size());
+
+        BinaryDecoder in = new BinaryDecoder(out.toByteBuffer());
+        assertEquals(63, in.readValue());
+        assertEquals(-64, in.readValue());
+        assertEquals(64, in.readValue());
+        assertEquals(-1L, in.readVarint());
+    }
+
+    @Test
+    public void testGrowAndReuse() throws Exception {
+        BinaryEncoder out = new BinaryEncoder(ByteBuffer.allocateDirect(16));
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        String large = new String(chars);
+        out.writeString(large);
+        assertTrue(out.size() > 1000);
+        assertEquals(large, new BinaryDecoder(out.toByteBuffer()).readValue());
+        assertTrue(out.toByteBuffer().isDirect());
+
+        out.reset();
+        assertEquals(0, out.size());
+        out.writeBoolean(true);
+        ByteBuffer written = out.toByteBuffer();
+        assertEquals(1, written.remaining());
+        assertEquals(Boolean.TRUE, new BinaryDecoder(written).readValue());
+    }
+
+    @Test
+    public void testMalformedInput() throws Exception {
+        BinaryEncoder out = new BinaryEncoder(16);
+        out.writeString("truncated");
+        ByteBuffer truncated = out.toByteBuffer();
+        truncated.limit(truncated.limit() - 1);
+        try {
+            new BinaryDecoder(truncated).readValue();
+            assertTrue(false);
+        } catch (SerializerException e) {}
+
+        try {
+            new BinaryDecoder(ByteBuffer.wrap(new byte[] {99})).readValue();
+            assertTrue(false);
+        } catch (SerializerException e) {}
+
+        // a length varint of all ones decodes to -1
+        for (byte tag : new byte[] {BinaryEncoder.STRING, BinaryEncoder.LIST, BinaryEncoder.MAP}) {
+            byte[] negative = {tag, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+            try {
+                new BinaryDecoder(ByteBuffer.wrap(negative)).readValue();
+                assertTrue(false);
+            } catch (SerializerException e) {}
+        }
+
+        try {
+            new BinaryEncoder(16).writeValue(new Object());
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.bsundsrud.serializers.util;
+
+import com.google.gson.stream.JsonWriter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void testWriteMembers() throws Exception {
+        StringBuilder out = new StringBuilder();
+        JsonWriter json = JsonUtils.newJsonWriter(out);
+        json.beginObject();
+        JsonUtils.writeMember(json, "string", "a=b");
+        JsonUtils.writeMember(json, "int", 1);
+        JsonUtils.writeMember(json, "double", 1.5);
+        JsonUtils.writeMember(json, "bool", true);
+        JsonUtils.writeMember(json, "char", 'c');
+        JsonUtils.writeMember(json, "skipped", null);
+        JsonUtils.writeMember(json, "list", Arrays.asList(1, 2));
+        json.endObject();
+        json.flush();
+        assertEquals("{\"string\":\"a\\u003db\",\"int\":1,\"double\":1.5,\"bool\":true,\"char\":\"c\",\"list\":[1,2]}",
+                out.toString());
+    }
+
+    @Test
+    public void testInvalidValue() throws Exception {
+        JsonWriter json = JsonUtils.newJsonWriter(new StringBuilder());
+        json.beginArray();
+        JsonUtils.writeValue(json, new Date(0));
+        try {
+            JsonUtils.writeValue(json, Double.NaN);
+            assertTrue(false);
+        } catch (SerializerException e) {}
+    }
+}
@@ -42,6 +42,23 @@ public class SerializerUtilsTest {
         }
     }
 
+    public static class MySubObject extends MyObject {
+    }
+
+    @Test
+    public void testInheritedGetters() throws Exception {
+        Method getter = SerializerUtils.findGetterForFieldName(MySubObject.class, "myPrivateField");
+        assertEquals(MyObject.class, getter.getDeclaringClass());
+        getter = SerializerUtils.findGetterForFieldName(MySubObject.class, "myOtherPrivateField");
+        assertEquals("getMyOtherPrivateField", getter.getName());
+        try {
+            SerializerUtils.findGetterForFieldName(MySubObject.class, "nonexistent");
+            assertTrue(false);
+        } catch (SerializerException e) {
+            assertTrue(e.getMessage().contains(MySubObject.class.getName()));
+        }
+    }
+
     @Test
     public void testFieldNameTransforms() {
         String fieldName = "myObjectField";
@@ -75,6 +92,15 @@ public class SerializerUtilsTest {
             assertTrue(false);
         } catch (SerializerException e) {
 
+        }
+        f = SerializerUtils.fieldForName(MyObject.class, "myPublicField");
+        SerializerUtils.setFieldValue(o, f, "resolved");
+        assertEquals(o.myPublicField, "resolved");
+        try {
+            SerializerUtils.setFieldValue(o, f, new Date());
+            assertTrue(false);
+        } catch (SerializerException e) {
+
         }
         Method setter = SerializerUtils.setterForField(MyObject.class, "nonexistentPrivate");
         assertNull(setter);